@@ -1,6 +1,8 @@
 package com.gofish.sentiment.api;
 
+import com.gofish.sentiment.common.discovery.LocalServices;
 import com.gofish.sentiment.sentimentservice.rxjava.SentimentService;
+import com.gofish.sentiment.storage.Granularity;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -10,14 +12,17 @@ import io.vertx.rx.java.SingleOnSubscribeAdapter;
 import io.vertx.rxjava.core.AbstractVerticle;
 import io.vertx.rxjava.core.http.HttpServerResponse;
 import io.vertx.rxjava.ext.web.Router;
+import io.vertx.rxjava.ext.web.RoutingContext;
 import io.vertx.rxjava.ext.web.handler.LoggerHandler;
 import io.vertx.rxjava.servicediscovery.ServiceDiscovery;
-import io.vertx.rxjava.servicediscovery.types.EventBusService;
 import io.vertx.servicediscovery.Record;
 import rx.Observable;
 import rx.Single;
 
+import java.util.Arrays;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -26,11 +31,20 @@ import java.util.stream.Collectors;
 public class APIGatewayVerticle extends AbstractVerticle {
 
     private static final Logger LOG = LoggerFactory.getLogger(APIGatewayVerticle.class);
+    private static final long DEFAULT_TIME_SERIES_RANGE = TimeUnit.DAYS.toMillis(7);
+    private static final int DEFAULT_ENTITY_LIMIT = 10;
+    private static final int MAX_ENTITY_LIMIT = 100;
+    private static final int DEFAULT_ARTICLE_LIMIT = 20;
+    private static final int MAX_ARTICLE_LIMIT = 100;
+    private static final int DEFAULT_EXPORT_PAGE_SIZE = 500;
 
     private ServiceDiscovery serviceDiscovery;
+    private int exportPageSize;
 
     @Override
     public void start(Future<Void> startFuture) throws Exception {
+        exportPageSize = Optional.ofNullable(config()).orElse(new JsonObject()).getInteger("export.page.size", DEFAULT_EXPORT_PAGE_SIZE);
+
         Router router = Router.router(vertx);
         router.route().handler(LoggerHandler.create());
 
@@ -55,6 +69,161 @@ public class APIGatewayVerticle extends AbstractVerticle {
             }
         });
 
+        router.route("/timeseries").handler(requestHandler -> {
+            String q = requestHandler.request().params().get("q");
+            if (q != null && !q.isEmpty()) {
+                final String query = q.toLowerCase();
+                final Granularity granularity;
+                final long to;
+                final long from;
+                try {
+                    String g = Optional.ofNullable(requestHandler.request().params().get("granularity")).orElse("hour");
+                    granularity = Granularity.valueOf(g.toUpperCase());
+                    to = Optional.ofNullable(requestHandler.request().params().get("to")).map(Long::parseLong)
+                            .orElse(System.currentTimeMillis());
+                    from = Optional.ofNullable(requestHandler.request().params().get("from")).map(Long::parseLong)
+                            .orElse(to - DEFAULT_TIME_SERIES_RANGE);
+                }
+                catch (IllegalArgumentException e) {
+                    requestHandler.fail(400); // Bad request
+                    return;
+                }
+
+                HttpServerResponse response = requestHandler.response();
+
+                rxGetService(SentimentService.name(), SentimentService.class)
+                        .flatMap(service -> service.rxGetSentimentTimeSeries(query, from, to, granularity))
+                        .subscribe(result -> {
+                            LOG.info("Finished retrieving sentiment time series");
+                            response.end(result.encode());
+                        }, failure -> {
+                            LOG.error(failure.getMessage(), failure);
+                            requestHandler.fail(failure);
+                        });
+            }
+            else {
+                requestHandler.fail(400); // Bad request
+            }
+        });
+
+        router.route("/entities").handler(requestHandler -> {
+            final String query = Optional.ofNullable(requestHandler.request().params().get("q"))
+                    .filter(q -> !q.isEmpty())
+                    .map(String::toLowerCase)
+                    .orElse(null);
+            final int limit;
+            final long to;
+            final long from;
+            try {
+                limit = Optional.ofNullable(requestHandler.request().params().get("limit")).map(Integer::parseInt)
+                        .orElse(DEFAULT_ENTITY_LIMIT);
+                to = Optional.ofNullable(requestHandler.request().params().get("to")).map(Long::parseLong)
+                        .orElse(System.currentTimeMillis());
+                from = Optional.ofNullable(requestHandler.request().params().get("from")).map(Long::parseLong)
+                        .orElse(to - DEFAULT_TIME_SERIES_RANGE);
+            }
+            catch (NumberFormatException e) {
+                requestHandler.fail(400); // Bad request
+                return;
+            }
+
+            if (limit < 1 || limit > MAX_ENTITY_LIMIT) {
+                requestHandler.fail(400); // Bad request
+                return;
+            }
+
+            HttpServerResponse response = requestHandler.response();
+
+            rxGetService(SentimentService.name(), SentimentService.class)
+                    .flatMap(service -> service.rxGetEntitySentiment(query, from, to, limit))
+                    .subscribe(result -> {
+                        LOG.info("Finished retrieving entity sentiment");
+                        response.end(result.encode());
+                    }, failure -> {
+                        LOG.error(failure.getMessage(), failure);
+                        requestHandler.fail(failure);
+                    });
+        });
+
+        router.route("/articles").handler(requestHandler -> {
+            String q = requestHandler.request().params().get("q");
+            String cursor = requestHandler.request().params().get("cursor");
+            if (q == null || q.isEmpty() || (cursor != null && !cursor.matches("[0-9a-f]{24}"))) {
+                requestHandler.fail(400); // Bad request
+                return;
+            }
+
+            final String query = q.toLowerCase();
+            final int limit;
+            try {
+                limit = Optional.ofNullable(requestHandler.request().params().get("limit")).map(Integer::parseInt)
+                        .orElse(DEFAULT_ARTICLE_LIMIT);
+            }
+            catch (NumberFormatException e) {
+                requestHandler.fail(400); // Bad request
+                return;
+            }
+
+            if (limit < 1 || limit > MAX_ARTICLE_LIMIT) {
+                requestHandler.fail(400); // Bad request
+                return;
+            }
+
+            final JsonObject projection;
+            try {
+                projection = getProjection(requestHandler);
+            }
+            catch (IllegalArgumentException e) {
+                requestHandler.fail(400); // Bad request
+                return;
+            }
+
+            final JsonObject filter = getArticleFilter(requestHandler);
+
+            HttpServerResponse response = requestHandler.response();
+
+            rxGetService(SentimentService.name(), SentimentService.class)
+                    .flatMap(service -> service.rxGetArticles(query, filter, projection, cursor, limit))
+                    .subscribe(result -> {
+                        LOG.info("Finished retrieving articles");
+                        response.end(result.encode());
+                    }, failure -> {
+                        LOG.error(failure.getMessage(), failure);
+                        requestHandler.fail(failure);
+                    });
+        });
+
+        router.route("/export").handler(requestHandler -> {
+            String q = requestHandler.request().params().get("q");
+            if (q == null || q.isEmpty()) {
+                requestHandler.fail(400); // Bad request
+                return;
+            }
+
+            final String query = q.toLowerCase();
+            final JsonObject projection;
+            try {
+                projection = getProjection(requestHandler);
+            }
+            catch (IllegalArgumentException e) {
+                requestHandler.fail(400); // Bad request
+                return;
+            }
+
+            final JsonObject filter = getArticleFilter(requestHandler);
+
+            rxGetService(SentimentService.name(), SentimentService.class)
+                    .subscribe(service -> {
+                        requestHandler.response()
+                                .setChunked(true)
+                                .putHeader("Content-Type", "application/x-ndjson");
+                        exportArticles(requestHandler, service, query, filter, projection, null);
+                    }, failure -> {
+                        LOG.error(failure.getMessage(), failure);
+                        requestHandler.fail(failure);
+                    });
+        });
+
         // Setup a failure handler
         router.route("/*").failureHandler(failureHandler -> {
             HttpServerResponse response = failureHandler.response();
@@ -84,10 +253,94 @@ public class APIGatewayVerticle extends AbstractVerticle {
         });
     }
 
+    /**
+     * Writes a query's articles to the response as newline delimited json, one page at a time. The next page is only
+     * requested once the response has room for it, so an export never holds more than a page in memory, however slowly
+     * the client reads. The export stops early if the client disconnects.
+     * @param requestHandler the RoutingContext of the export request
+     * @param service the SentimentService which the articles are read from
+     * @param query the query to export the articles of
+     * @param filter further conditions which the articles must match, or null
+     * @param projection the fields of each article to export, or null for the default fields
+     * @param cursor the cursor of the page to export, or null for the first page
+     */
+    private void exportArticles(RoutingContext requestHandler, SentimentService service, String query, JsonObject filter,
+                                JsonObject projection, String cursor) {
+        final HttpServerResponse response = requestHandler.response();
+
+        service.rxGetArticles(query, filter, projection, cursor, exportPageSize).subscribe(page -> {
+            if (response.closed()) {
+                return;
+            }
+
+            page.getJsonArray("articles").forEach(article -> response.write(((JsonObject) article).encode() + "\n"));
+
+            final String nextCursor = page.getString("cursor");
+            if (nextCursor == null) {
+                LOG.info("Finished exporting articles");
+                response.end();
+            }
+            else if (response.writeQueueFull()) {
+                response.drainHandler(v -> exportArticles(requestHandler, service, query, filter, projection, nextCursor));
+            }
+            else {
+                exportArticles(requestHandler, service, query, filter, projection, nextCursor);
+            }
+        }, failure -> {
+            LOG.error(failure.getMessage(), failure);
+            if (cursor == null) {
+                requestHandler.fail(failure);
+            }
+            else {
+                // The status has already been sent, so the only way to signal a failure is to cut the export short
+                response.close();
+            }
+        });
+    }
+
+    /**
+     * Reads the fields to retrieve for each article from the request's fields parameter, e.g. fields=name,sentiment.score
+     * @param requestHandler the RoutingContext of the request
+     * @return JsonObject describing the projection, or null if no fields were requested
+     * @throws IllegalArgumentException if a field is an operator (i.e. starts with '$')
+     */
+    private static JsonObject getProjection(RoutingContext requestHandler) {
+
+        return Optional.ofNullable(requestHandler.request().params().get("fields"))
+                .map(fields -> {
+                    JsonObject projection = new JsonObject();
+                    Arrays.stream(fields.split(",")).map(String::trim).filter(field -> !field.isEmpty())
+                            .forEach(field -> {
+                                if (field.startsWith("$")) {
+                                    throw new IllegalArgumentException("Invalid field: " + field);
+                                }
+
+                                projection.put(field, 1);
+                            });
+                    return projection;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Reads the conditions which articles must match from the request's parameters i.e. the entity they are about. The
+     * entity's name is matched regardless of case, in the same way as the entity sentiment buckets are keyed.
+     * @param requestHandler the RoutingContext of the request
+     * @return JsonObject describing the conditions, or null if there are none
+     */
+    private static JsonObject getArticleFilter(RoutingContext requestHandler) {
+
+        return Optional.ofNullable(requestHandler.request().params().get("entity"))
+                .map(entity -> new JsonObject().put("about.name", new JsonObject()
+                        .put("$regex", "^" + Pattern.quote(entity) + "$")
+                        .put("$options", "i")))
+                .orElse(null);
+    }
+
     private <T> Single<T> rxGetService(String recordName, Class<T> clazz) {
 
         return Single.create(new SingleOnSubscribeAdapter<T>(fut ->
-                EventBusService.getServiceProxy(serviceDiscovery, record -> record.getName().equals(recordName), clazz, fut)
+                LocalServices.getServiceProxy(serviceDiscovery.getDelegate(), recordName, clazz, fut)
         ));
     }
 
@@ -0,0 +1,199 @@
+package com.gofish.sentiment.common.discovery;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.serviceproxy.ProxyHandler;
+import io.vertx.serviceproxy.ProxyHelper;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.types.EventBusService;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Local-first registration and lookup of event bus services. Besides the service's cluster wide address, each service
+ * instance also consumes on:
+ * <ul>
+ *     <li>a local address (address + ".local"), which is never propagated to the cluster, and</li>
+ *     <li>a node address (address + "." + node id), which is only consumed by instances on this node.</li>
+ * </ul>
+ * Records carry the node id and host name of the node which published them. When a service proxy is requested, an
+ * instance in the same JVM is called over the local address, otherwise an instance on the same host is called over its
+ * node address, and only if there is neither is the request sent to the cluster wide address. Co-located services
+ * therefore don't pay for the cluster's routing or network hops.
+ *
+ * @author Luke Herron
+ */
+public final class LocalServices {
+
+    public static final String NODE_ID = UUID.randomUUID().toString();
+    public static final String HOST = getHostName();
+
+    private static final String LOCAL_SUFFIX = ".local";
+
+    private LocalServices() {}
+
+    /**
+     * Registers the service on its cluster wide, node and local addresses
+     * @param clazz the service interface
+     * @param vertx the vertx instance
+     * @param service the service implementation
+     * @param address the service's cluster wide address
+     * @param <T> the type of the service interface
+     * @return ServiceRegistration, used to unregister the service's consumers
+     */
+    public static <T> ServiceRegistration registerService(Class<T> clazz, Vertx vertx, T service, String address) {
+        final ProxyHandler localHandler = createProxyHandler(clazz, vertx, service);
+        final MessageConsumer<JsonObject> localConsumer = vertx.eventBus().localConsumer(localAddress(address), localHandler);
+        localHandler.setConsumer(localConsumer);
+
+        return new ServiceRegistration(Arrays.asList(
+                ProxyHelper.registerService(clazz, vertx, service, address),
+                ProxyHelper.registerService(clazz, vertx, service, nodeAddress(address)),
+                localConsumer));
+    }
+
+    /**
+     * Creates an event bus service record, whose metadata identifies the node and host which publishes it
+     * @param name the name of the service
+     * @param address the service's cluster wide address
+     * @param itf the name of the service interface
+     * @return the created Record
+     */
+    public static Record createRecord(String name, String address, String itf) {
+        return EventBusService.createRecord(name, address, itf, new JsonObject()
+                .put("node", NODE_ID)
+                .put("host", HOST)
+                .put("node.address", nodeAddress(address)));
+    }
+
+    /**
+     * Retrieves a proxy to the named service, preferring an instance in the same JVM, then one on the same host, and
+     * otherwise any instance in the cluster. The proxy should be released with ServiceDiscovery.releaseServiceObject.
+     * @param discovery the ServiceDiscovery to look the service up in
+     * @param name the name of the service's record
+     * @param clazz the client class of the expected service (either the rxjava or non-rx service class)
+     * @param resultHandler the proxy will be returned asynchronously in this handler
+     * @param <T> the type of the client class
+     */
+    public static <T> void getServiceProxy(ServiceDiscovery discovery, String name, Class<T> clazz, Handler<AsyncResult<T>> resultHandler) {
+        discovery.getRecords(record -> name.equals(record.getName()), records -> {
+            if (records.failed()) {
+                resultHandler.handle(Future.failedFuture(records.cause()));
+            }
+            else if (records.result().isEmpty()) {
+                resultHandler.handle(Future.failedFuture("No matching records"));
+            }
+            else {
+                final Record target = selectTarget(records.result());
+                resultHandler.handle(Future.succeededFuture(discovery.getReference(target).getAs(clazz)));
+            }
+        });
+    }
+
+    /**
+     * Selects the record to call, and points its endpoint at the closest address through which it can be reached
+     * @param records the records published for the service
+     * @return copy of the selected record, with its endpoint updated
+     */
+    static Record selectTarget(List<Record> records) {
+        final Optional<Record> local = records.stream()
+                .filter(record -> NODE_ID.equals(record.getMetadata().getString("node")))
+                .findFirst();
+        if (local.isPresent()) {
+            return withEndpoint(local.get(), localAddress(local.get().getLocation().getString(Record.ENDPOINT)));
+        }
+
+        final List<Record> sameHost = records.stream()
+                .filter(record -> HOST.equals(record.getMetadata().getString("host")))
+                .filter(record -> record.getMetadata().containsKey("node.address"))
+                .collect(Collectors.toList());
+        if (!sameHost.isEmpty()) {
+            final Record record = sameHost.get(ThreadLocalRandom.current().nextInt(sameHost.size()));
+            return withEndpoint(record, record.getMetadata().getString("node.address"));
+        }
+
+        return records.get(0);
+    }
+
+    static String localAddress(String address) {
+        return address + LOCAL_SUFFIX;
+    }
+
+    static String nodeAddress(String address) {
+        return address + "." + NODE_ID;
+    }
+
+    private static Record withEndpoint(Record record, String endpoint) {
+        final Record copy = new Record(record.toJson());
+        copy.getLocation().put(Record.ENDPOINT, endpoint);
+
+        return copy;
+    }
+
+    /**
+     * Creates the generated proxy handler for the service, in the same way as ProxyHelper does when registering it
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ProxyHandler createProxyHandler(Class<T> clazz, Vertx vertx, T service) {
+        try {
+            final Class<? extends ProxyHandler> handlerClass = (Class<? extends ProxyHandler>)
+                    Class.forName(clazz.getName() + "VertxProxyHandler", true, clazz.getClassLoader());
+
+            return handlerClass.getConstructor(Vertx.class, clazz).newInstance(vertx, service);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create proxy handler for " + clazz.getName(), e);
+        }
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        }
+        catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    /**
+     * The consumers registered for a service instance
+     */
+    public static class ServiceRegistration {
+
+        private final List<MessageConsumer<JsonObject>> consumers;
+
+        private ServiceRegistration(List<MessageConsumer<JsonObject>> consumers) {
+            this.consumers = consumers;
+        }
+
+        /**
+         * Unregisters each of the service instance's consumers
+         * @param completionHandler handler called once every consumer has been unregistered
+         */
+        public void unregister(Handler<AsyncResult<Void>> completionHandler) {
+            // CompositeFuture.all only accepts a raw List<Future>, so the unregisters are chained instead
+            Future<Void> unregistered = Future.succeededFuture();
+            for (MessageConsumer<JsonObject> consumer : consumers) {
+                unregistered = unregistered.compose(v -> {
+                    final Future<Void> future = Future.future();
+                    consumer.unregister(future.completer());
+                    return future;
+                });
+            }
+
+            unregistered.setHandler(completionHandler);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.gofish.sentiment.common.discovery;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes a single service discovery record per node for each service, however many instances of the service's
+ * verticle are deployed on the node. Every instance registers a consumer on the service's address (so the event bus
+ * spreads requests over them), but the record only needs publishing once. The first instance to start publishes the
+ * record, and the last instance to stop unpublishes it.
+ *
+ * @author Luke Herron
+ */
+public final class NodeRecords {
+
+    private static final String NODE_RECORDS = "sentiment.discovery.records";
+
+    private NodeRecords() {}
+
+    /**
+     * Publishes the record, unless another instance on this node has already published it. If another instance is still
+     * publishing the record, this waits for that publish to complete.
+     * @param vertx the vertx instance
+     * @param discovery the ServiceDiscovery to publish the record with
+     * @param record the service's record
+     * @param resultHandler handler called once the record has been published (or was already)
+     */
+    public static void publish(Vertx vertx, ServiceDiscovery discovery, Record record, Handler<AsyncResult<Void>> resultHandler) {
+        final LocalMap<String, Registration> records = vertx.sharedData().getLocalMap(NODE_RECORDS);
+        final Registration registration;
+
+        synchronized (NodeRecords.class) {
+            final Registration existing = records.get(record.getName());
+            if (existing != null) {
+                existing.instances++;
+                if (!existing.published) {
+                    existing.waiting.add(resultHandler);
+                    return;
+                }
+
+                registration = null;
+            }
+            else {
+                registration = new Registration();
+                registration.instances = 1;
+                registration.waiting.add(resultHandler);
+                records.put(record.getName(), registration);
+            }
+        }
+
+        if (registration == null) {
+            resultHandler.handle(Future.succeededFuture());
+            return;
+        }
+
+        discovery.publish(record, published -> {
+            final List<Handler<AsyncResult<Void>>> waiting;
+            final Handler<AsyncResult<Void>> unpublishHandler;
+
+            synchronized (NodeRecords.class) {
+                if (published.succeeded()) {
+                    registration.id = published.result().getRegistration();
+                    registration.published = true;
+                }
+                else if (records.get(record.getName()) == registration) {
+                    records.remove(record.getName());
+                }
+
+                waiting = new ArrayList<>(registration.waiting);
+                registration.waiting.clear();
+                unpublishHandler = registration.unpublishHandler;
+            }
+
+            final AsyncResult<Void> result = published.failed() ?
+                    Future.failedFuture(published.cause()) : Future.succeededFuture();
+            waiting.forEach(handler -> handler.handle(result));
+
+            // Every instance stopped while the record was being published, so it is unpublished straight away
+            if (unpublishHandler != null) {
+                if (published.succeeded()) {
+                    discovery.unpublish(registration.id, unpublishHandler);
+                }
+                else {
+                    unpublishHandler.handle(Future.succeededFuture());
+                }
+            }
+        });
+    }
+
+    /**
+     * Unpublishes the record if this is the last instance on this node which published it. If the record is still
+     * being published, it is unpublished once the publish completes.
+     * @param vertx the vertx instance
+     * @param discovery the ServiceDiscovery the record was published with
+     * @param name the name of the service's record
+     * @param resultHandler handler called once the record has been unpublished (or still has other instances)
+     */
+    public static void unpublish(Vertx vertx, ServiceDiscovery discovery, String name, Handler<AsyncResult<Void>> resultHandler) {
+        final LocalMap<String, Registration> records = vertx.sharedData().getLocalMap(NODE_RECORDS);
+        final String id;
+
+        synchronized (NodeRecords.class) {
+            final Registration registration = records.get(name);
+            if (registration == null || --registration.instances > 0) {
+                resultHandler.handle(Future.succeededFuture());
+                return;
+            }
+
+            records.remove(name);
+            if (!registration.published) {
+                registration.unpublishHandler = resultHandler;
+                return;
+            }
+
+            id = registration.id;
+        }
+
+        discovery.unpublish(id, resultHandler);
+    }
+
+    /**
+     * The instances of a service on this node, and the state of the service's record. Only accessed while holding the
+     * NodeRecords class lock.
+     */
+    private static class Registration implements Shareable {
+
+        private int instances;
+        private boolean published;
+        private String id;
+        private final List<Handler<AsyncResult<Void>>> waiting = new ArrayList<>();
+        private Handler<AsyncResult<Void>> unpublishHandler;
+    }
+}
@@ -0,0 +1,154 @@
+package com.gofish.sentiment.common.error;
+
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.json.JsonObject;
+import io.vertx.serviceproxy.ServiceException;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Helpers for creating and inspecting the errors returned by the services which front the Microsoft Cognitive Services
+ * APIs. Errors are returned as a ServiceException, whose failure code is the HTTP status code reported by the API, and
+ * whose debug info carries the delay (in ms) requested by the API before the next attempt. A ServiceException keeps its
+ * failure code and debug info when it is sent across the event bus, so callers can act on them without having to parse
+ * the error message.
+ *
+ * @author Luke Herron
+ */
+public final class ServiceErrors {
+
+    public static final int RATE_LIMITED = 429;
+    public static final int UNAVAILABLE = 503;
+    public static final int UNKNOWN = -1;
+    public static final String RETRY_AFTER = "retryAfter";
+
+    // Cognitive Services describe the rate limit window in the error message e.g. "Try again in 26 seconds."
+    private static final Pattern RETRY_AFTER_MESSAGE = Pattern.compile("(\\d+)\\s+seconds?", Pattern.CASE_INSENSITIVE);
+
+    private ServiceErrors() {}
+
+    /**
+     * Creates a ServiceException from an API error response.
+     * @param httpStatus the HTTP status code of the response
+     * @param retryAfterHeader the value of the Retry-After header of the response, if any
+     * @param errorBody JsonObject describing the error. The encoded json is used as the exception message.
+     * @return ServiceException representing the error
+     */
+    public static ServiceException fromResponse(int httpStatus, String retryAfterHeader, JsonObject errorBody) {
+        final JsonObject error = Optional.ofNullable(errorBody.getJsonObject("error")).orElse(errorBody);
+        final int statusCode = error.getInteger("statusCode", httpStatus);
+        final String message = error.getString("message", "");
+        final long retryAfter = parseRetryAfter(retryAfterHeader, message);
+
+        final JsonObject debugInfo = new JsonObject();
+        if (retryAfter > 0) {
+            debugInfo.put(RETRY_AFTER, retryAfter);
+        }
+
+        return new ServiceException(statusCode, errorBody.encode(), debugInfo);
+    }
+
+    /**
+     * Creates a ServiceException for an API response which has no usable body.
+     * @param httpStatus the HTTP status code of the response
+     * @param retryAfterHeader the value of the Retry-After header of the response, if any
+     * @param statusMessage the HTTP status message of the response, used as the exception message
+     * @return ServiceException representing the error
+     */
+    public static ServiceException fromStatus(int httpStatus, String retryAfterHeader, String statusMessage) {
+        final long retryAfter = parseRetryAfter(retryAfterHeader, "");
+        final JsonObject debugInfo = retryAfter > 0 ? new JsonObject().put(RETRY_AFTER, retryAfter) : new JsonObject();
+
+        return new ServiceException(httpStatus, statusMessage, debugInfo);
+    }
+
+    /**
+     * Creates a ServiceException for a call which was not made because the API rate limit window is still in effect
+     * @param retryAfter the time remaining in the rate limit window, in ms
+     * @return ServiceException representing the error
+     */
+    public static ServiceException rateLimited(long retryAfter) {
+        final JsonObject errorBody = new JsonObject().put("error", new JsonObject()
+                .put("statusCode", RATE_LIMITED)
+                .put("message", "Rate limit is exceeded. Try again in " + (retryAfter + 999) / 1000 + " seconds."));
+
+        return new ServiceException(RATE_LIMITED, errorBody.encode(), new JsonObject().put(RETRY_AFTER, retryAfter));
+    }
+
+    /**
+     * Creates a ServiceException for a call which was not made because the service's circuit breaker is open, i.e. the
+     * service has failed too often recently and is being given time to recover
+     * @param retryAfter the time remaining until the breaker lets calls through again, in ms
+     * @return ServiceException representing the error
+     */
+    public static ServiceException unavailable(long retryAfter) {
+        final JsonObject errorBody = new JsonObject().put("error", new JsonObject()
+                .put("statusCode", UNAVAILABLE)
+                .put("message", "Service is unavailable. Try again in " + (retryAfter + 999) / 1000 + " seconds."));
+
+        return new ServiceException(UNAVAILABLE, errorBody.encode(), new JsonObject().put(RETRY_AFTER, retryAfter));
+    }
+
+    /**
+     * Retrieves the status code carried by an error
+     * @param throwable the error to inspect
+     * @return the status code, or UNKNOWN if the error does not carry one
+     */
+    public static int getStatusCode(Throwable throwable) {
+        return throwable instanceof ReplyException ? ((ReplyException) throwable).failureCode() : UNKNOWN;
+    }
+
+    /**
+     * Retrieves the delay requested by the API before the next attempt should be made
+     * @param throwable the error to inspect
+     * @return the delay in ms, or 0 if the error does not request one
+     */
+    public static long getRetryAfter(Throwable throwable) {
+        if (throwable instanceof ServiceException && ((ServiceException) throwable).getDebugInfo() != null) {
+            return ((ServiceException) throwable).getDebugInfo().getLong(RETRY_AFTER, 0L);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Checks if an error was caused by the API rate limit being exceeded
+     * @param throwable the error to inspect
+     * @return true if the API responded with a 429
+     */
+    public static boolean isRateLimited(Throwable throwable) {
+        return getStatusCode(throwable) == RATE_LIMITED;
+    }
+
+    /**
+     * Checks if an error was caused by the service (or the API behind it) being temporarily unavailable
+     * @param throwable the error to inspect
+     * @return true if the service or API responded with a 503
+     */
+    public static boolean isUnavailable(Throwable throwable) {
+        return getStatusCode(throwable) == UNAVAILABLE;
+    }
+
+    /**
+     * Parses the delay requested by the API, preferring the Retry-After header and falling back on the error message
+     * @param retryAfterHeader the value of the Retry-After header (in seconds), if any
+     * @param message the error message returned by the API
+     * @return the requested delay in ms, or 0 if none was requested
+     */
+    static long parseRetryAfter(String retryAfterHeader, String message) {
+        if (retryAfterHeader != null) {
+            try {
+                return Long.parseLong(retryAfterHeader.trim()) * 1000;
+            }
+            catch (NumberFormatException e) {
+                // Retry-After may also be an HTTP date, which the Cognitive Services APIs don't use. Fall back on the
+                // message instead.
+            }
+        }
+
+        final Matcher matcher = RETRY_AFTER_MESSAGE.matcher(message);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) * 1000 : 0;
+    }
+}
@@ -0,0 +1,172 @@
+package com.gofish.sentiment.common.http;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP client for one of the Microsoft Cognitive Services APIs. Each instance of a service (e.g. each deployed
+ * NewsAnalyserVerticle) has a client of its own, created on the instance's event loop, so its connections are never
+ * used from another event loop and are closed when the instance is undeployed. The client's options are read from the
+ * api config json object (see ApiClientOptions).
+ *
+ * Requests which are tracked by the client are counted per host, giving the number of requests in flight (i.e. the
+ * connections or HTTP/2 streams in use), the number completed and failed, and their latency. The counts are shared by
+ * name, so they cover every instance of the service on the node.
+ *
+ * @author Luke Herron
+ */
+public class ApiClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ApiClient.class);
+    private static final String SHARED_METRICS = "sentiment.api.metrics";
+    private static final long DEFAULT_REQUEST_TIMEOUT = 30000;
+
+    private final WebClient webClient;
+    private final long requestTimeout;
+    private final Metrics metrics;
+
+    ApiClient(WebClient webClient, long requestTimeout, Metrics metrics) {
+        this.webClient = webClient;
+        this.requestTimeout = requestTimeout;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Creates a client for the calling instance, whose metrics are shared with every other client of the same name.
+     * Besides the options read by ApiClientOptions, the following values are read from the "http" object of the api
+     * config json object: "request.timeout" (ms to wait for a response before failing the request) and
+     * "metrics.interval" (ms between logging the shared metrics, 0 to disable).
+     * @param vertx the vertx instance
+     * @param name the name of the client, i.e. the name of the service which uses it
+     * @param apiConfig JsonObject holding the api configuration
+     * @return ApiClient object
+     */
+    public static ApiClient createShared(Vertx vertx, String name, JsonObject apiConfig) {
+        final JsonObject httpConfig = apiConfig.getJsonObject("http", new JsonObject());
+        final Metrics metrics = getSharedMetrics(vertx, name);
+        final ApiClient apiClient = new ApiClient(WebClient.create(vertx, ApiClientOptions.create(apiConfig)),
+                httpConfig.getLong("request.timeout", DEFAULT_REQUEST_TIMEOUT), metrics);
+
+        final long metricsInterval = httpConfig.getLong("metrics.interval", 0L);
+        if (metricsInterval > 0) {
+            // Every instance has a timer, so the metrics are still logged after any one instance is undeployed, but
+            // only the first timer to fire in each interval logs them
+            vertx.setPeriodic(metricsInterval, id -> {
+                final long now = System.currentTimeMillis();
+                final long lastReported = metrics.lastReported.get();
+                if (now - lastReported >= metricsInterval && metrics.lastReported.compareAndSet(lastReported, now)) {
+                    LOG.info("HTTP client ''{0}'' metrics: {1}", name, apiClient.getMetrics().encode());
+                }
+            });
+        }
+
+        return apiClient;
+    }
+
+    private static Metrics getSharedMetrics(Vertx vertx, String name) {
+        final LocalMap<String, Metrics> sharedMetrics = vertx.sharedData().getLocalMap(SHARED_METRICS);
+
+        synchronized (ApiClient.class) {
+            Metrics metrics = sharedMetrics.get(name);
+            if (metrics == null) {
+                metrics = new Metrics();
+                sharedMetrics.put(name, metrics);
+            }
+
+            return metrics;
+        }
+    }
+
+    public WebClient getWebClient() {
+        return webClient;
+    }
+
+    /**
+     * Retrieves the time to wait for a response, which should be set on each request sent with this client
+     * @return the request timeout in ms
+     */
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Wraps a response handler so that the request is counted in the metrics for its host
+     * @param host the host the request is sent to
+     * @param port the port the request is sent to
+     * @param handler the response handler
+     * @return the wrapped response handler, to be passed to send
+     */
+    public <T> Handler<AsyncResult<HttpResponse<T>>> track(String host, int port, Handler<AsyncResult<HttpResponse<T>>> handler) {
+        final HostMetrics metrics = this.metrics.hosts.computeIfAbsent(host + ":" + port, key -> new HostMetrics());
+        final long start = System.nanoTime();
+        metrics.inFlight.incrementAndGet();
+
+        return response -> {
+            metrics.record(response.succeeded(), (System.nanoTime() - start) / 1000000);
+            handler.handle(response);
+        };
+    }
+
+    /**
+     * Retrieves a snapshot of the metrics for each host, across every client of the same name, e.g.
+     * <pre>
+     * { "api.cognitive.microsoft.com:443": { "in.flight": 2, "requests": 120, "failures": 1, "latency.mean": 85, "latency.max": 740 } }
+     * </pre>
+     * @return JsonObject holding the metrics, keyed by host and port
+     */
+    public JsonObject getMetrics() {
+        final JsonObject snapshot = new JsonObject();
+        metrics.hosts.forEach((host, hostMetrics) -> snapshot.put(host, hostMetrics.toJson()));
+
+        return snapshot;
+    }
+
+    private static class HostMetrics {
+
+        private final AtomicLong inFlight = new AtomicLong();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalLatency = new AtomicLong();
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        private void record(boolean succeeded, long latency) {
+            inFlight.decrementAndGet();
+            requests.incrementAndGet();
+            if (!succeeded) {
+                failures.incrementAndGet();
+            }
+
+            totalLatency.addAndGet(latency);
+            maxLatency.accumulateAndGet(latency, Math::max);
+        }
+
+        private JsonObject toJson() {
+            final long completed = requests.get();
+
+            return new JsonObject()
+                    .put("in.flight", inFlight.get())
+                    .put("requests", completed)
+                    .put("failures", failures.get())
+                    .put("latency.mean", completed == 0 ? 0 : totalLatency.get() / completed)
+                    .put("latency.max", maxLatency.get());
+        }
+    }
+
+    private static class Metrics implements Shareable {
+
+        private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+        private final AtomicLong lastReported = new AtomicLong();
+    }
+}
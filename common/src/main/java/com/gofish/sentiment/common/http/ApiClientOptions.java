@@ -0,0 +1,96 @@
+package com.gofish.sentiment.common.http;
+
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.net.JdkSSLEngineOptions;
+import io.vertx.core.net.OpenSSLEngineOptions;
+import io.vertx.ext.web.client.WebClientOptions;
+
+import java.util.Arrays;
+
+/**
+ * Builds the WebClientOptions used to call the Microsoft Cognitive Services APIs. By default requests are sent over
+ * HTTP/1.1 with pipelining. HTTP/2 can be enabled instead, which multiplexes concurrent requests over each connection so
+ * that one slow response does not hold up those queued behind it.
+ *
+ * HTTP/2 is negotiated with the server (using ALPN over TLS, or an h2c upgrade over plain text), so a server which only
+ * speaks HTTP/1.1 is still called over HTTP/1.1. If the JVM has no ALPN support, HTTP/1.1 is used for TLS connections.
+ *
+ * @author Luke Herron
+ */
+public final class ApiClientOptions {
+
+    public static final String HTTP_1_1 = "HTTP/1.1";
+    public static final String HTTP_2 = "HTTP/2";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ApiClientOptions.class);
+
+    private static final int DEFAULT_PIPELINING_LIMIT = 10;
+    private static final int DEFAULT_MAX_STREAMS = 100;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    private static final int DEFAULT_IDLE_TIMEOUT = 60;
+
+    private ApiClientOptions() {}
+
+    /**
+     * Creates the WebClientOptions for an API. SSL is used unless the "base.url" is localhost. The following values are
+     * read from the "http" object of the api config json object, with defaults used for any which are missing:
+     * "version" ("HTTP/1.1" or "HTTP/2"), "pipelining.limit" (HTTP/1.1 only), "max.streams" (the maximum concurrent
+     * requests per HTTP/2 connection), "pool.size" (the maximum connections per host), "connect.timeout" (ms),
+     * "idle.timeout" (seconds without any data after which a connection is closed), "tcp.nodelay" and "tcp.keepalive".
+     * @param apiConfig JsonObject holding the api configuration
+     * @return WebClientOptions object
+     */
+    public static WebClientOptions create(JsonObject apiConfig) {
+        final JsonObject httpConfig = apiConfig.getJsonObject("http", new JsonObject());
+        final boolean ssl = !apiConfig.getString("base.url", "").equalsIgnoreCase("localhost");
+        final WebClientOptions options = new WebClientOptions()
+                .setConnectTimeout(httpConfig.getInteger("connect.timeout", DEFAULT_CONNECT_TIMEOUT))
+                .setIdleTimeout(httpConfig.getInteger("idle.timeout", DEFAULT_IDLE_TIMEOUT))
+                .setTcpNoDelay(httpConfig.getBoolean("tcp.nodelay", true))
+                .setTcpKeepAlive(httpConfig.getBoolean("tcp.keepalive", true))
+                .setSsl(ssl)
+                .setKeepAlive(true);
+
+        final String version = httpConfig.getString("version", HTTP_1_1);
+        if (HTTP_2.equalsIgnoreCase(version) && (!ssl || configureAlpn(options))) {
+            return options
+                    .setProtocolVersion(HttpVersion.HTTP_2)
+                    .setHttp2ClearTextUpgrade(true)
+                    .setHttp2MultiplexingLimit(httpConfig.getInteger("max.streams", DEFAULT_MAX_STREAMS))
+                    .setHttp2MaxPoolSize(httpConfig.getInteger("pool.size", WebClientOptions.DEFAULT_HTTP2_MAX_POOL_SIZE));
+        }
+        else if (!HTTP_2.equalsIgnoreCase(version) && !HTTP_1_1.equalsIgnoreCase(version)) {
+            throw new IllegalArgumentException("Unknown HTTP version " + version);
+        }
+
+        return options
+                .setProtocolVersion(HttpVersion.HTTP_1_1)
+                .setPipelining(true)
+                .setPipeliningLimit(httpConfig.getInteger("pipelining.limit", DEFAULT_PIPELINING_LIMIT))
+                .setMaxPoolSize(httpConfig.getInteger("pool.size", WebClientOptions.DEFAULT_MAX_POOL_SIZE));
+    }
+
+    /**
+     * Enables ALPN, preferring the JDK's SSL engine and falling back to OpenSSL, offering HTTP/2 and HTTP/1.1
+     * @param options the options to configure
+     * @return true if ALPN is available, false if HTTP/1.1 must be used instead
+     */
+    private static boolean configureAlpn(WebClientOptions options) {
+        if (JdkSSLEngineOptions.isAlpnAvailable()) {
+            options.setJdkSslEngineOptions(new JdkSSLEngineOptions());
+        }
+        else if (OpenSSLEngineOptions.isAlpnAvailable()) {
+            options.setOpenSslEngineOptions(new OpenSSLEngineOptions());
+        }
+        else {
+            LOG.warn("ALPN is not available, falling back to HTTP/1.1");
+            return false;
+        }
+
+        options.setUseAlpn(true).setAlpnVersions(Arrays.asList(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1));
+        return true;
+    }
+}
@@ -0,0 +1,100 @@
+package com.gofish.sentiment.common.launcher;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Launcher;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Launcher for each of the sentiment modules. Behaves as the standard vertx Launcher, but also sizes the vertx instance
+ * (and the number of verticle instances it deploys) according to the "performance" section of the module's config
+ * (i.e. the file passed with -conf), e.g.
+ * <pre>
+ * "performance": {
+ *   "verticle.instances"            : 8,
+ *   "event.loop.pool.size"          : 16,
+ *   "worker.pool.size"              : 40,
+ *   "internal.blocking.pool.size"   : 20,
+ *   "blocked.thread.check.interval" : 1000,
+ *   "max.event.loop.execute.time"   : 2000,
+ *   "max.worker.execute.time"       : 60000,
+ *   "warning.exception.time"        : 5000
+ * }
+ * </pre>
+ * Times are in ms. Any value which is missing keeps the vertx default.
+ *
+ * @author Luke Herron
+ */
+public class SentimentLauncher extends Launcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SentimentLauncher.class);
+
+    private JsonObject performanceConfig = new JsonObject();
+
+    public static void main(String[] args) {
+        new SentimentLauncher().dispatch(args);
+    }
+
+    @Override
+    public void afterConfigParsed(JsonObject config) {
+        performanceConfig = config.getJsonObject("performance", new JsonObject());
+    }
+
+    @Override
+    public void beforeStartingVertx(VertxOptions options) {
+        configure(options, performanceConfig);
+    }
+
+    @Override
+    public void beforeDeployingVerticle(DeploymentOptions deploymentOptions) {
+        // An instance count passed on the command line takes precedence
+        if (deploymentOptions.getInstances() == DeploymentOptions.DEFAULT_INSTANCES) {
+            deploymentOptions.setInstances(performanceConfig.getInteger("verticle.instances", DeploymentOptions.DEFAULT_INSTANCES));
+        }
+    }
+
+    /**
+     * Applies the performance config to the vertx options
+     * @param options the VertxOptions to configure
+     * @param performanceConfig JsonObject holding the performance config
+     * @return the configured VertxOptions
+     */
+    static VertxOptions configure(VertxOptions options, JsonObject performanceConfig) {
+        if (performanceConfig.containsKey("event.loop.pool.size")) {
+            options.setEventLoopPoolSize(performanceConfig.getInteger("event.loop.pool.size"));
+        }
+        if (performanceConfig.containsKey("worker.pool.size")) {
+            options.setWorkerPoolSize(performanceConfig.getInteger("worker.pool.size"));
+        }
+        if (performanceConfig.containsKey("internal.blocking.pool.size")) {
+            options.setInternalBlockingPoolSize(performanceConfig.getInteger("internal.blocking.pool.size"));
+        }
+        if (performanceConfig.containsKey("blocked.thread.check.interval")) {
+            options.setBlockedThreadCheckInterval(performanceConfig.getLong("blocked.thread.check.interval"));
+        }
+        if (performanceConfig.containsKey("max.event.loop.execute.time")) {
+            options.setMaxEventLoopExecuteTime(
+                    TimeUnit.MILLISECONDS.toNanos(performanceConfig.getLong("max.event.loop.execute.time")));
+        }
+        if (performanceConfig.containsKey("max.worker.execute.time")) {
+            options.setMaxWorkerExecuteTime(
+                    TimeUnit.MILLISECONDS.toNanos(performanceConfig.getLong("max.worker.execute.time")));
+        }
+        if (performanceConfig.containsKey("warning.exception.time")) {
+            options.setWarningExceptionTime(
+                    TimeUnit.MILLISECONDS.toNanos(performanceConfig.getLong("warning.exception.time")));
+        }
+        if (performanceConfig.getBoolean("prefer.native.transport", false)) {
+            LOG.warn("Native transport is not supported by this version of vertx, the NIO transport will be used");
+        }
+
+        LOG.info("Starting vertx with {0} event loop threads and {1} worker threads",
+                options.getEventLoopPoolSize(), options.getWorkerPoolSize());
+
+        return options;
+    }
+}
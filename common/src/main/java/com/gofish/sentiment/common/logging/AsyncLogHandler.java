@@ -0,0 +1,215 @@
+package com.gofish.sentiment.common.logging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * JUL handler which hands log records off to a bounded queue, from which a single background thread publishes them to
+ * the configured delegate handlers. Publishing a record (e.g. shipping it to logstash via the GelfLogHandler) therefore
+ * never happens on the calling thread, so a slow or unavailable log sink cannot stall the vertx event loop. If the
+ * queue fills up, records are dropped rather than blocking the caller, and the number of dropped records is reported
+ * once space frees up again.
+ *
+ * The handler is configured through the standard logging properties file:
+ * <pre>
+ * handlers= com.gofish.sentiment.common.logging.AsyncLogHandler
+ * com.gofish.sentiment.common.logging.AsyncLogHandler.delegates= java.util.logging.ConsoleHandler, biz.paluch.logging.gelf.jul.GelfLogHandler
+ * com.gofish.sentiment.common.logging.AsyncLogHandler.queue.size= 8192
+ * </pre>
+ *
+ * @author Luke Herron
+ */
+public class AsyncLogHandler extends Handler {
+
+    private static final int DEFAULT_QUEUE_SIZE = 8192;
+    private static final long SHUTDOWN_TIMEOUT = 2000;
+
+    private final BlockingQueue<LogRecord> queue;
+    private final List<Handler> delegates;
+    private final AtomicLong droppedRecords = new AtomicLong(0);
+    private final Thread publisher;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Creates the handler from the logging properties file. This is the constructor used by the JUL LogManager.
+     */
+    public AsyncLogHandler() {
+        this(getQueueSize(), LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + ".delegates"));
+    }
+
+    /**
+     * Creates the handler with an explicit queue size and set of delegates.
+     * @param queueSize the maximum number of records which can be waiting to be published
+     * @param delegates the handlers to which each record will eventually be published
+     */
+    public AsyncLogHandler(int queueSize, List<Handler> delegates) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.delegates = Collections.unmodifiableList(new ArrayList<>(delegates));
+        this.publisher = start();
+    }
+
+    private AsyncLogHandler(int queueSize, String delegateNames) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.delegates = Collections.unmodifiableList(loadDelegates(delegateNames));
+        this.publisher = start();
+    }
+
+    /**
+     * Applies the configured level and starts the publisher thread
+     * @return the publisher thread
+     */
+    private Thread start() {
+        String level = LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + ".level");
+        setLevel(level == null ? Level.ALL : Level.parse(level.trim()));
+
+        Thread thread = new Thread(this::drain, "sentiment-async-log-publisher");
+        thread.setDaemon(true);
+        thread.start();
+
+        // Flush anything left in the queue when the JVM exits, so that the final records (usually the most important
+        // ones) are not lost
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "sentiment-async-log-shutdown"));
+
+        return thread;
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+
+        // The source class and method are inferred lazily from the current stack. We need them inferred on the
+        // calling thread, not the publisher thread, otherwise every record appears to originate from this handler.
+        record.getSourceClassName();
+
+        if (!queue.offer(record)) {
+            droppedRecords.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void flush() {
+        delegates.forEach(Handler::flush);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        publisher.interrupt();
+
+        try {
+            publisher.join(SHUTDOWN_TIMEOUT);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        delegates.forEach(Handler::close);
+    }
+
+    /**
+     * Retrieves the number of records which have been dropped because the queue was full
+     * @return the total number of dropped records since this handler was created
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Publishes each queued record to the delegates until the handler is closed, at which point any records still
+     * queued are published before returning.
+     */
+    private void drain() {
+        long reportedDrops = 0;
+
+        while (!closed) {
+            try {
+                LogRecord record = queue.poll(1, TimeUnit.SECONDS);
+                if (record != null) {
+                    publishToDelegates(record);
+                }
+
+                long drops = droppedRecords.get();
+                if (drops > reportedDrops) {
+                    publishToDelegates(new LogRecord(Level.WARNING,
+                            "Async log queue full, dropped " + (drops - reportedDrops) + " log records"));
+                    reportedDrops = drops;
+                }
+            }
+            catch (InterruptedException e) {
+                break;
+            }
+        }
+
+        List<LogRecord> remaining = new ArrayList<>(queue.size());
+        queue.drainTo(remaining);
+        remaining.forEach(this::publishToDelegates);
+        flush();
+    }
+
+    private void publishToDelegates(LogRecord record) {
+        for (Handler delegate : delegates) {
+            try {
+                delegate.publish(record);
+            }
+            catch (RuntimeException e) {
+                reportError("Delegate handler failed to publish record", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private static int getQueueSize() {
+        String queueSize = LogManager.getLogManager().getProperty(AsyncLogHandler.class.getName() + ".queue.size");
+
+        try {
+            return queueSize == null ? DEFAULT_QUEUE_SIZE : Integer.parseInt(queueSize.trim());
+        }
+        catch (NumberFormatException e) {
+            return DEFAULT_QUEUE_SIZE;
+        }
+    }
+
+    /**
+     * Instantiates the delegate handlers named in the logging properties file. Delegates which cannot be loaded are
+     * reported to this handler's ErrorManager and skipped.
+     */
+    private List<Handler> loadDelegates(String delegateNames) {
+        List<Handler> handlers = new ArrayList<>();
+
+        if (delegateNames == null) {
+            return handlers;
+        }
+
+        for (String delegateName : delegateNames.split(",")) {
+            if (delegateName.trim().isEmpty()) {
+                continue;
+            }
+
+            try {
+                Class<?> handlerClass = ClassLoader.getSystemClassLoader().loadClass(delegateName.trim());
+                handlers.add((Handler) handlerClass.newInstance());
+            }
+            catch (ReflectiveOperationException | ClassCastException e) {
+                reportError("Could not load delegate log handler '" + delegateName.trim() + "'", e, ErrorManager.OPEN_FAILURE);
+            }
+        }
+
+        return handlers;
+    }
+}
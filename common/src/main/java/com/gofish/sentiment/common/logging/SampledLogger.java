@@ -0,0 +1,176 @@
+package com.gofish.sentiment.common.logging;
+
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.LogManager;
+
+/**
+ * Logger for hot-path events, i.e. events which are logged for every article or every request. Messages are
+ * parameterised ({0}, {1}, ...) so that they are only formatted if they are actually published, and the parameters
+ * are carried as separate fields on the log record (the GelfLogHandler ships them as MessageParam0, MessageParam1 etc.).
+ *
+ * Each logger admits at most a fixed number of records per sampling interval. Any records over that limit are
+ * suppressed, and a single summary record stating how many were suppressed is logged when the next interval begins.
+ * The limit is configured per logger in the logging properties file, e.g.
+ * <pre>
+ * com.gofish.sentiment.storage.StorageServiceImpl.sampling.limit= 10
+ * com.gofish.sentiment.storage.StorageServiceImpl.sampling.interval= 1000
+ * </pre>
+ *
+ * @author Luke Herron
+ */
+public class SampledLogger {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final long DEFAULT_INTERVAL = 1000;
+
+    private final Logger logger;
+    private final int limit;
+    private final long interval;
+
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window(0));
+    private final AtomicLong suppressed = new AtomicLong(0);
+
+    SampledLogger(Logger logger, int limit, long interval) {
+        this.logger = logger;
+        this.limit = limit;
+        this.interval = interval;
+    }
+
+    /**
+     * Factory method for creating a SampledLogger, configured from the logging properties file
+     * @param clazz the class which the logger is named after
+     * @return SampledLogger object
+     */
+    public static SampledLogger getLogger(Class<?> clazz) {
+        return getLogger(clazz.getName());
+    }
+
+    /**
+     * Factory method for creating a SampledLogger, configured from the logging properties file
+     * @param name the name of the logger
+     * @return SampledLogger object
+     */
+    public static SampledLogger getLogger(String name) {
+        final LogManager logManager = LogManager.getLogManager();
+        final int limit = parse(logManager.getProperty(name + ".sampling.limit"), DEFAULT_LIMIT);
+        final long interval = parse(logManager.getProperty(name + ".sampling.interval"), DEFAULT_INTERVAL);
+
+        return new SampledLogger(LoggerFactory.getLogger(name), limit, interval);
+    }
+
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
+    }
+
+    public boolean isInfoEnabled() {
+        return logger.isInfoEnabled();
+    }
+
+    /**
+     * Logs a parameterised message at debug level, subject to sampling
+     * @param message the message pattern, in java.text.MessageFormat style
+     * @param params the parameters to be substituted into the message
+     */
+    public void debug(String message, Object... params) {
+        if (logger.isDebugEnabled() && tryAcquire()) {
+            logger.debug(message, params);
+        }
+    }
+
+    /**
+     * Logs a parameterised message at info level, subject to sampling
+     * @param message the message pattern, in java.text.MessageFormat style
+     * @param params the parameters to be substituted into the message
+     */
+    public void info(String message, Object... params) {
+        if (logger.isInfoEnabled() && tryAcquire()) {
+            logger.info(message, params);
+        }
+    }
+
+    /**
+     * Logs a parameterised message at warn level, subject to sampling
+     * @param message the message pattern, in java.text.MessageFormat style
+     * @param params the parameters to be substituted into the message
+     */
+    public void warn(String message, Object... params) {
+        if (tryAcquire()) {
+            logger.warn(message, params);
+        }
+    }
+
+    /**
+     * Logs an error. Errors are never sampled.
+     * @param message the message pattern, in java.text.MessageFormat style
+     * @param t the cause of the error
+     * @param params the parameters to be substituted into the message
+     */
+    public void error(String message, Throwable t, Object... params) {
+        logger.error(message, t, params);
+    }
+
+    /**
+     * Attempts to take a permit from the current sampling window, starting a new window if the current one has expired
+     * @return true if the record may be logged, false if it should be suppressed
+     */
+    private boolean tryAcquire() {
+        final long now = System.currentTimeMillis();
+        Window current = window.get();
+
+        if (now - current.start >= interval) {
+            // The new window starts with an empty count, so the start and the count are replaced in one step
+            final Window next = new Window(now);
+            if (window.compareAndSet(current, next)) {
+                current = next;
+
+                final long suppressedCount = suppressed.getAndSet(0);
+                if (suppressedCount > 0) {
+                    logger.info("Suppressed {0} log records in the last {1}ms", suppressedCount, interval);
+                }
+            }
+            else {
+                current = window.get();
+            }
+        }
+
+        if (current.count.incrementAndGet() <= limit) {
+            return true;
+        }
+
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    private static class Window {
+
+        private final long start;
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        private Window(long start) {
+            this.start = start;
+        }
+    }
+
+    private static int parse(String value, int defaultValue) {
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static long parse(String value, long defaultValue) {
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
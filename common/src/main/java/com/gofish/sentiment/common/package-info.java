@@ -0,0 +1,6 @@
+/**
+ * Utilities shared between each of the sentiment modules.
+ *
+ * @author Luke Herron
+ */
+package com.gofish.sentiment.common;
@@ -0,0 +1,74 @@
+package com.gofish.sentiment.common.quota;
+
+import io.vertx.core.Vertx;
+
+/**
+ * A single API key within an ApiKeyPool. Each key has its own rate limit window, shared with every other instance
+ * using the same key, and a weight which determines its share of the requests made through the pool.
+ *
+ * @author Luke Herron
+ */
+public class ApiKey {
+
+    private final String key;
+    private final int weight;
+    private final QuotaState quotaState;
+
+    // Selection state, guarded by the owning ApiKeyPool
+    int currentWeight = 0;
+    int effectiveWeight;
+    long lastThrottled = 0;
+
+    ApiKey(String key, int weight, QuotaState quotaState) {
+        this.key = key;
+        this.weight = weight;
+        this.quotaState = quotaState;
+        this.effectiveWeight = weight;
+    }
+
+    static ApiKey create(Vertx vertx, String poolName, String key, int weight) {
+        // The key itself is a secret, so the shared quota is named after its hash rather than the key
+        final String quotaName = poolName + "." + Integer.toHexString(key.hashCode());
+        return new ApiKey(key, Math.max(1, weight), QuotaState.create(vertx, quotaName));
+    }
+
+    /**
+     * Retrieves the key, to be sent as the subscription key header
+     * @return the API key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Retrieves the configured weight of this key
+     * @return the weight of this key
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Retrieves the time remaining in this key's rate limit window
+     * @return the remaining time in ms, or 0 if the key may currently be used
+     */
+    public long getRemaining() {
+        return quotaState.getRemaining();
+    }
+
+    /**
+     * Starts a rate limit window for this key if the supplied error was caused by the API rate limit being exceeded
+     * @param throwable the error returned by a call made with this key
+     */
+    public void recordFailure(Throwable throwable) {
+        quotaState.recordFailure(throwable);
+    }
+
+    void throttle(long delay) {
+        quotaState.throttle(delay);
+    }
+
+    void close() {
+        quotaState.close();
+    }
+}
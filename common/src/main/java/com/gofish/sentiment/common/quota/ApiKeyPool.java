@@ -0,0 +1,146 @@
+package com.gofish.sentiment.common.quota;
+
+import com.gofish.sentiment.common.error.ServiceErrors;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pool of API keys for one of the Microsoft Cognitive Services APIs. Spreading requests over several keys (i.e. several
+ * subscriptions) multiplies the request rate we can sustain before hitting the API rate limits.
+ *
+ * Keys are selected using a smooth weighted round robin, so each key receives a share of the requests proportional to
+ * its weight. A key which is in a rate limit window is skipped entirely. When the window passes, the key's weight is
+ * restored gradually rather than all at once, so the most recently throttled keys are favoured least until they have
+ * shown that they are healthy again.
+ *
+ * A pool is closed along with the context (i.e. the verticle) which created it.
+ *
+ * @author Luke Herron
+ */
+public class ApiKeyPool {
+
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private final List<ApiKey> apiKeys;
+
+    ApiKeyPool(List<ApiKey> apiKeys) {
+        this.apiKeys = Collections.unmodifiableList(new ArrayList<>(apiKeys));
+    }
+
+    /**
+     * Factory method for creating an ApiKeyPool. Keys are read from the "keys" array of the api config json object.
+     * Each entry is either a key, or an object holding the "key" and its "weight", e.g.
+     * <pre>
+     * "keys": [ { "key": "abc", "weight": 5 }, { "key": "def", "weight": 1 }, "ghi" ]
+     * </pre>
+     * Keys without a weight have a weight of 1. The weight should be set in proportion to the quota of each key's
+     * subscription. If there is no "keys" array, the single "key" entry is used instead.
+     * @param vertx the vertx instance
+     * @param name the name of the service which uses the keys, used to share rate limit windows between instances
+     * @param apiConfig JsonObject holding the api configuration
+     * @return ApiKeyPool object
+     */
+    public static ApiKeyPool create(Vertx vertx, String name, JsonObject apiConfig) {
+        final JsonArray keys = apiConfig.getJsonArray("keys", new JsonArray());
+        final List<ApiKey> apiKeys = new ArrayList<>();
+
+        keys.forEach(entry -> {
+            if (entry instanceof JsonObject) {
+                final JsonObject keyConfig = (JsonObject) entry;
+                apiKeys.add(ApiKey.create(vertx, name, keyConfig.getString("key", ""),
+                        keyConfig.getInteger("weight", DEFAULT_WEIGHT)));
+            }
+            else {
+                apiKeys.add(ApiKey.create(vertx, name, String.valueOf(entry), DEFAULT_WEIGHT));
+            }
+        });
+
+        if (apiKeys.isEmpty()) {
+            apiKeys.add(ApiKey.create(vertx, name, apiConfig.getString("key", ""), DEFAULT_WEIGHT));
+        }
+
+        final ApiKeyPool apiKeyPool = new ApiKeyPool(apiKeys);
+        vertx.getOrCreateContext().addCloseHook(completionHandler -> {
+            apiKeyPool.close();
+            completionHandler.handle(Future.succeededFuture());
+        });
+
+        return apiKeyPool;
+    }
+
+    /**
+     * Selects the key to be used for the next request
+     * @return the selected ApiKey
+     * @throws io.vertx.serviceproxy.ServiceException if every key is currently in a rate limit window
+     */
+    public synchronized ApiKey select() {
+        final long now = System.currentTimeMillis();
+        ApiKey selected = null;
+        int totalWeight = 0;
+
+        for (ApiKey apiKey : apiKeys) {
+            if (apiKey.getRemaining() > 0) {
+                // The window may have been started by another instance, so this is where we find out about it
+                apiKey.effectiveWeight = 1;
+                apiKey.lastThrottled = now;
+                continue;
+            }
+
+            apiKey.currentWeight += apiKey.effectiveWeight;
+            totalWeight += apiKey.effectiveWeight;
+
+            if (apiKey.effectiveWeight < apiKey.getWeight()) {
+                apiKey.effectiveWeight++;
+            }
+
+            if (selected == null || apiKey.currentWeight > selected.currentWeight ||
+                    (apiKey.currentWeight == selected.currentWeight && apiKey.lastThrottled < selected.lastThrottled)) {
+                selected = apiKey;
+            }
+        }
+
+        if (selected == null) {
+            throw ServiceErrors.rateLimited(getRemaining());
+        }
+
+        selected.currentWeight -= totalWeight;
+        return selected;
+    }
+
+    /**
+     * Retrieves the time until a key will next be available
+     * @return the remaining time in ms, or 0 if a key is currently available
+     */
+    public long getRemaining() {
+        return apiKeys.stream().mapToLong(ApiKey::getRemaining).min().orElse(0);
+    }
+
+    /**
+     * Starts a rate limit window for every key in the pool, i.e. pauses all requests made through the pool
+     * @param delay the length of the window in ms
+     */
+    public void throttle(long delay) {
+        apiKeys.forEach(apiKey -> apiKey.throttle(delay));
+    }
+
+    /**
+     * Closes the shared rate limit state of every key in the pool
+     */
+    public void close() {
+        apiKeys.forEach(ApiKey::close);
+    }
+
+    /**
+     * Retrieves the keys in this pool
+     * @return unmodifiable list of the keys in this pool
+     */
+    public List<ApiKey> getApiKeys() {
+        return apiKeys;
+    }
+}
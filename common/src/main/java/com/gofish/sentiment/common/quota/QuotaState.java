@@ -0,0 +1,150 @@
+package com.gofish.sentiment.common.quota;
+
+import com.gofish.sentiment.common.error.ServiceErrors;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.AsyncMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the rate limit window of an external API across every instance of the service which calls it. When one
+ * instance is told by the API to back off (i.e. receives a 429), the end of the window is written to a shared map and
+ * published on the event bus, so that every other instance (on this node, or anywhere in the cluster) stops calling the
+ * API until the window has passed. Instances which start up during a window pick it up from the shared map.
+ *
+ * When vertx is clustered the shared map is the cluster wide (Hazelcast) map, otherwise it is a local map. Each state
+ * listens on the event bus until it is closed.
+ *
+ * @author Luke Herron
+ */
+public class QuotaState {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QuotaState.class);
+
+    static final String MAP_NAME = "sentiment.quota";
+    static final String ADDRESS_PREFIX = "sentiment.quota.";
+
+    // Used when the API reports a 429 without saying how long to wait
+    private static final long DEFAULT_THROTTLE = 1000;
+
+    private final Vertx vertx;
+    private final String name;
+    private final AtomicLong resumeAt = new AtomicLong(0);
+
+    private volatile AsyncMap<String, Long> clusterMap;
+    private MessageConsumer<Long> consumer;
+
+    QuotaState(Vertx vertx, String name) {
+        this.vertx = vertx;
+        this.name = name;
+    }
+
+    /**
+     * Factory method for creating a QuotaState
+     * @param vertx the vertx instance
+     * @param name the name of the quota, shared by every instance which calls the same API (e.g. the service name)
+     * @return QuotaState object
+     */
+    public static QuotaState create(Vertx vertx, String name) {
+        final QuotaState quotaState = new QuotaState(vertx, name);
+        quotaState.init();
+
+        return quotaState;
+    }
+
+    /**
+     * Retrieves the time remaining in the current rate limit window
+     * @return the remaining time in ms, or 0 if the API may currently be called
+     */
+    public long getRemaining() {
+        return Math.max(0, resumeAt.get() - System.currentTimeMillis());
+    }
+
+    /**
+     * Starts a rate limit window, shared with every other instance using this quota. If a longer window is already in
+     * effect, this has no effect.
+     * @param delay the length of the window in ms
+     */
+    public void throttle(long delay) {
+        if (delay <= 0) {
+            return;
+        }
+
+        final long until = System.currentTimeMillis() + delay;
+        if (!update(until)) {
+            return;
+        }
+
+        LOG.info("Rate limit window started for {0}, resuming in {1}ms", name, delay);
+
+        if (clusterMap != null) {
+            // The entry expires along with the window, so the map doesn't accumulate stale windows
+            clusterMap.put(name, until, delay, result -> {
+                if (result.failed()) {
+                    LOG.error("Failed to share rate limit window for {0}", result.cause(), name);
+                }
+            });
+        }
+        else if (!vertx.isClustered()) {
+            vertx.sharedData().<String, Long>getLocalMap(MAP_NAME).put(name, until);
+        }
+
+        vertx.eventBus().publish(ADDRESS_PREFIX + name, until);
+    }
+
+    /**
+     * Starts a rate limit window if the supplied error was caused by the API rate limit being exceeded
+     * @param throwable the error returned by a call to the API
+     */
+    public void recordFailure(Throwable throwable) {
+        if (ServiceErrors.isRateLimited(throwable)) {
+            final long retryAfter = ServiceErrors.getRetryAfter(throwable);
+            throttle(retryAfter > 0 ? retryAfter : DEFAULT_THROTTLE);
+        }
+    }
+
+    /**
+     * Stops listening for rate limit windows started by other instances. The window shared with them is unaffected.
+     */
+    public void close() {
+        consumer.unregister();
+    }
+
+    private void init() {
+        consumer = vertx.eventBus().<Long>consumer(ADDRESS_PREFIX + name, message -> update(message.body()));
+
+        if (vertx.isClustered()) {
+            vertx.sharedData().<String, Long>getClusterWideMap(MAP_NAME, mapResult -> {
+                if (mapResult.failed()) {
+                    LOG.error("Failed to retrieve shared rate limit state for {0}", mapResult.cause(), name);
+                    return;
+                }
+
+                clusterMap = mapResult.result();
+                clusterMap.get(name, result -> {
+                    if (result.succeeded() && result.result() != null) {
+                        update(result.result());
+                    }
+                });
+            });
+        }
+        else {
+            final Long until = vertx.sharedData().<String, Long>getLocalMap(MAP_NAME).get(name);
+            if (until != null) {
+                update(until);
+            }
+        }
+    }
+
+    /**
+     * Extends the current window to the supplied time, if it is later than the current end of the window
+     * @param until the time (epoch ms) at which the window ends
+     * @return true if the window was extended
+     */
+    private boolean update(long until) {
+        return resumeAt.getAndAccumulate(until, Math::max) < until;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gofish.sentiment.common.discovery;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.types.EventBusService;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Luke Herron
+ */
+public class LocalServicesTest {
+
+    private static final String ADDRESS = "test.address";
+
+    @Test
+    public void testSameNodeRecordIsCalledLocally() {
+        final Record remote = createRecord("other-node", "other-host");
+        final Record local = LocalServices.createRecord("test-service", ADDRESS, "test.Service");
+
+        final Record target = LocalServices.selectTarget(Arrays.asList(remote, local));
+
+        assertEquals(LocalServices.localAddress(ADDRESS), target.getLocation().getString(Record.ENDPOINT));
+        assertEquals(ADDRESS, local.getLocation().getString(Record.ENDPOINT));
+    }
+
+    @Test
+    public void testSameHostRecordIsCalledOnItsNodeAddress() {
+        final Record remote = createRecord("other-node", "other-host");
+        final Record sameHost = createRecord("other-node", LocalServices.HOST);
+
+        final Record target = LocalServices.selectTarget(Arrays.asList(remote, sameHost));
+
+        assertEquals(ADDRESS + ".other-node", target.getLocation().getString(Record.ENDPOINT));
+    }
+
+    @Test
+    public void testRemoteRecordIsCalledOnClusterAddress() {
+        final Record remote = createRecord("other-node", "other-host");
+        final Record legacy = EventBusService.createRecord("test-service", ADDRESS, "test.Service");
+
+        assertEquals(ADDRESS, LocalServices.selectTarget(Arrays.asList(remote, legacy)).getLocation().getString(Record.ENDPOINT));
+    }
+
+    private static Record createRecord(String node, String host) {
+        return EventBusService.createRecord("test-service", ADDRESS, "test.Service", new JsonObject()
+                .put("node", node)
+                .put("host", host)
+                .put("node.address", ADDRESS + "." + node));
+    }
+}
@@ -0,0 +1,118 @@
+package com.gofish.sentiment.common.discovery;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.types.EventBusService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class NodeRecordsTest {
+
+    @Rule
+    public final RunTestOnContext vertxRule = new RunTestOnContext();
+
+    private Vertx vertx;
+    private ServiceDiscovery discovery;
+
+    @Before
+    public void setUp() {
+        vertx = vertxRule.vertx();
+        discovery = ServiceDiscovery.create(vertx);
+    }
+
+    @Test
+    public void testRecordIsPublishedOncePerNode(TestContext context) {
+        NodeRecords.publish(vertx, discovery, createRecord(), context.asyncAssertSuccess(first ->
+                NodeRecords.publish(vertx, discovery, createRecord(), context.asyncAssertSuccess(second ->
+                        discovery.getRecords(record -> true, context.asyncAssertSuccess(records ->
+                                context.assertEquals(1, records.size())))))));
+    }
+
+    @Test
+    public void testRecordIsUnpublishedByLastInstance(TestContext context) {
+        NodeRecords.publish(vertx, discovery, createRecord(), context.asyncAssertSuccess(first ->
+                NodeRecords.publish(vertx, discovery, createRecord(), context.asyncAssertSuccess(second ->
+                        NodeRecords.unpublish(vertx, discovery, "test-service", context.asyncAssertSuccess(v ->
+                                discovery.getRecords(record -> true, context.asyncAssertSuccess(remaining -> {
+                                    context.assertEquals(1, remaining.size());
+
+                                    NodeRecords.unpublish(vertx, discovery, "test-service", context.asyncAssertSuccess(w ->
+                                            discovery.getRecords(record -> true, context.asyncAssertSuccess(records ->
+                                                    context.assertTrue(records.isEmpty())))));
+                                }))))))));
+    }
+
+    @Test
+    public void testInstancesWaitForPendingPublish(TestContext context) {
+        List<Runnable> pending = new ArrayList<>();
+        ServiceDiscovery delayed = delayPublish(pending);
+        List<String> published = new ArrayList<>();
+
+        NodeRecords.publish(vertx, delayed, createRecord(), context.asyncAssertSuccess(first -> published.add("first")));
+        NodeRecords.publish(vertx, delayed, createRecord(), context.asyncAssertSuccess(second -> published.add("second")));
+        context.assertTrue(published.isEmpty());
+        context.assertEquals(1, pending.size());
+
+        // Both instances complete once the first instance's publish does
+        pending.get(0).run();
+    }
+
+    @Test
+    public void testRecordIsUnpublishedIfLastInstanceStopsWhilePublishing(TestContext context) {
+        List<Runnable> pending = new ArrayList<>();
+        ServiceDiscovery delayed = delayPublish(pending);
+
+        List<String> published = new ArrayList<>();
+
+        NodeRecords.publish(vertx, delayed, createRecord(), context.asyncAssertSuccess(v -> published.add("first")));
+        NodeRecords.unpublish(vertx, delayed, "test-service", context.asyncAssertSuccess(v -> {
+            // The record can only be unpublished once it has actually been published
+            context.assertEquals(1, published.size());
+            discovery.getRecords(record -> true, context.asyncAssertSuccess(records -> context.assertTrue(records.isEmpty())));
+        }));
+
+        pending.get(0).run();
+    }
+
+    /**
+     * Wraps the test's ServiceDiscovery so that each publish is only made once its pending entry is run
+     */
+    @SuppressWarnings("unchecked")
+    private ServiceDiscovery delayPublish(List<Runnable> pending) {
+        return (ServiceDiscovery) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ServiceDiscovery.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("publish")) {
+                        pending.add(() -> discovery.publish((Record) args[0], (Handler<AsyncResult<Record>>) args[1]));
+                        return proxy;
+                    }
+
+                    try {
+                        return method.invoke(discovery, args);
+                    }
+                    catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static Record createRecord() {
+        return EventBusService.createRecord("test-service", "test.address", "test.Service");
+    }
+}
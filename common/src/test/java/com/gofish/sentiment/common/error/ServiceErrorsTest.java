@@ -0,0 +1,63 @@
+package com.gofish.sentiment.common.error;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.serviceproxy.ServiceException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class ServiceErrorsTest {
+
+    @Test
+    public void testRateLimitErrorInBodyIsParsed() {
+        JsonObject body = new JsonObject().put("error", new JsonObject()
+                .put("statusCode", 429)
+                .put("message", "Rate limit is exceeded. Try again in 26 seconds."));
+
+        ServiceException exception = ServiceErrors.fromResponse(200, null, body);
+
+        assertEquals(body.encode(), exception.getMessage());
+        assertTrue(ServiceErrors.isRateLimited(exception));
+        assertEquals(26000, ServiceErrors.getRetryAfter(exception));
+    }
+
+    @Test
+    public void testRetryAfterHeaderTakesPrecedence() {
+        JsonObject body = new JsonObject().put("statusCode", 429).put("message", "Try again in 26 seconds.");
+
+        ServiceException exception = ServiceErrors.fromResponse(429, "3", body);
+
+        assertEquals(3000, ServiceErrors.getRetryAfter(exception));
+    }
+
+    @Test
+    public void testStatusErrorWithoutRetryAfter() {
+        ServiceException exception = ServiceErrors.fromStatus(500, null, "Internal Server Error");
+
+        assertEquals(500, ServiceErrors.getStatusCode(exception));
+        assertEquals(0, ServiceErrors.getRetryAfter(exception));
+        assertFalse(ServiceErrors.isRateLimited(exception));
+    }
+
+    @Test
+    public void testUnavailableErrorCarriesRetryAfter() {
+        ServiceException exception = ServiceErrors.unavailable(12000);
+
+        assertTrue(ServiceErrors.isUnavailable(exception));
+        assertFalse(ServiceErrors.isRateLimited(exception));
+        assertEquals(12000, ServiceErrors.getRetryAfter(exception));
+    }
+
+    @Test
+    public void testOtherErrorsHaveUnknownStatus() {
+        RuntimeException exception = new RuntimeException("429");
+
+        assertEquals(ServiceErrors.UNKNOWN, ServiceErrors.getStatusCode(exception));
+        assertFalse(ServiceErrors.isRateLimited(exception));
+    }
+}
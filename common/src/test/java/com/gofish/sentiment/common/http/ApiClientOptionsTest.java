@@ -0,0 +1,90 @@
+package com.gofish.sentiment.common.http;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class ApiClientOptionsTest {
+
+    private static final int PORT = 18080;
+
+    @Rule
+    public final RunTestOnContext vertxRule = new RunTestOnContext();
+
+    private Vertx vertx;
+
+    @Before
+    public void setUp() {
+        vertx = vertxRule.vertx();
+    }
+
+    @Test
+    public void testDefaultsToPipelinedHttp1(TestContext context) {
+        WebClientOptions options = ApiClientOptions.create(new JsonObject().put("base.url", "api.cognitive.microsoft.com"));
+
+        context.assertEquals(HttpVersion.HTTP_1_1, options.getProtocolVersion());
+        context.assertTrue(options.isPipelining());
+        context.assertEquals(10, options.getPipeliningLimit());
+        context.assertTrue(options.isSsl());
+        context.assertEquals(60, options.getIdleTimeout());
+        context.assertTrue(options.isTcpNoDelay());
+    }
+
+    @Test
+    public void testHttp2Options(TestContext context) {
+        WebClientOptions options = ApiClientOptions.create(new JsonObject()
+                .put("base.url", "localhost")
+                .put("http", new JsonObject().put("version", "HTTP/2").put("max.streams", 50).put("pool.size", 2)));
+
+        context.assertEquals(HttpVersion.HTTP_2, options.getProtocolVersion());
+        context.assertFalse(options.isSsl());
+        context.assertEquals(50, options.getHttp2MultiplexingLimit());
+        context.assertEquals(2, options.getHttp2MaxPoolSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownVersionIsRejected() {
+        ApiClientOptions.create(new JsonObject().put("http", new JsonObject().put("version", "SPDY")));
+    }
+
+    @Test
+    public void testHttp2IsNegotiatedWithServer(TestContext context) {
+        vertx.createHttpServer()
+                .requestHandler(request -> request.response().end(request.version().name()))
+                .listen(PORT, context.asyncAssertSuccess(server -> assertNegotiatedVersion(context, HttpVersion.HTTP_2)));
+    }
+
+    @Test
+    public void testHttp1IsUsedWhenServerDoesNotSupportHttp2(TestContext context) {
+        // A server which only speaks HTTP/1.1, and ignores the h2c upgrade request
+        vertx.createNetServer()
+                .connectHandler(socket -> socket.handler(RecordParser.newDelimited("\r\n\r\n", request ->
+                        socket.write("HTTP/1.1 200 OK\r\nContent-Length: 8\r\n\r\nHTTP_1_1"))))
+                .listen(PORT, context.asyncAssertSuccess(server -> assertNegotiatedVersion(context, HttpVersion.HTTP_1_1)));
+    }
+
+    private void assertNegotiatedVersion(TestContext context, HttpVersion expected) {
+        WebClient webClient = WebClient.create(vertx, ApiClientOptions.create(new JsonObject()
+                .put("base.url", "localhost")
+                .put("http", new JsonObject().put("version", "HTTP/2"))));
+
+        // The first request upgrades the connection, so it's the second which shows the protocol used
+        webClient.get(PORT, "localhost", "/").send(context.asyncAssertSuccess(first ->
+                webClient.get(PORT, "localhost", "/").send(context.asyncAssertSuccess(second ->
+                        context.assertEquals(expected.name(), second.bodyAsString())))));
+    }
+}
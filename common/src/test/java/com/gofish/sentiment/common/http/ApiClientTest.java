@@ -0,0 +1,74 @@
+package com.gofish.sentiment.common.http;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class ApiClientTest {
+
+    private static final int PORT = 18081;
+
+    @Rule
+    public final RunTestOnContext vertxRule = new RunTestOnContext();
+
+    private Vertx vertx;
+    private JsonObject apiConfig;
+
+    @Before
+    public void setUp() {
+        vertx = vertxRule.vertx();
+        apiConfig = new JsonObject()
+                .put("base.url", "localhost")
+                .put("http", new JsonObject().put("request.timeout", 5000));
+    }
+
+    @Test
+    public void testMetricsAreSharedByName(TestContext context) {
+        ApiClient apiClient = ApiClient.createShared(vertx, "test-service", apiConfig);
+        ApiClient sameName = ApiClient.createShared(vertx, "test-service", apiConfig);
+        ApiClient otherName = ApiClient.createShared(vertx, "other-service", apiConfig);
+
+        context.assertFalse(apiClient.getWebClient() == sameName.getWebClient());
+        context.assertEquals(5000L, apiClient.getRequestTimeout());
+
+        apiClient.track("localhost", PORT, response -> {});
+        context.assertEquals(1L, sameName.getMetrics().getJsonObject("localhost:" + PORT).getLong("in.flight"));
+        context.assertFalse(otherName.getMetrics().containsKey("localhost:" + PORT));
+    }
+
+    @Test
+    public void testTrackedRequestsAreCountedPerHost(TestContext context) {
+        ApiClient apiClient = ApiClient.createShared(vertx, "test-service", apiConfig);
+
+        vertx.createHttpServer()
+                .requestHandler(request -> request.response().setStatusCode(200).end())
+                .listen(PORT, context.asyncAssertSuccess(server ->
+                        apiClient.getWebClient().get(PORT, "localhost", "/")
+                                .send(apiClient.track("localhost", PORT, context.asyncAssertSuccess(response -> {
+                                    JsonObject metrics = apiClient.getMetrics().getJsonObject("localhost:" + PORT);
+                                    context.assertEquals(0L, metrics.getLong("in.flight"));
+                                    context.assertEquals(1L, metrics.getLong("requests"));
+                                    context.assertEquals(0L, metrics.getLong("failures"));
+                                })))));
+    }
+
+    @Test
+    public void testFailedRequestsAreCounted(TestContext context) {
+        ApiClient apiClient = ApiClient.createShared(vertx, "test-service", apiConfig);
+
+        // Nothing is listening on the port, so the connection is refused
+        apiClient.getWebClient().get(PORT, "localhost", "/")
+                .send(apiClient.track("localhost", PORT, context.asyncAssertFailure(cause ->
+                        context.assertEquals(1L, apiClient.getMetrics().getJsonObject("localhost:" + PORT).getLong("failures")))));
+    }
+}
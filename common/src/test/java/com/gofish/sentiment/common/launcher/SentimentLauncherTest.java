@@ -0,0 +1,41 @@
+package com.gofish.sentiment.common.launcher;
+
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Luke Herron
+ */
+public class SentimentLauncherTest {
+
+    @Test
+    public void testPerformanceConfigIsApplied() {
+        VertxOptions options = SentimentLauncher.configure(new VertxOptions(), new JsonObject()
+                .put("event.loop.pool.size", 16)
+                .put("worker.pool.size", 40)
+                .put("internal.blocking.pool.size", 8)
+                .put("blocked.thread.check.interval", 500)
+                .put("max.event.loop.execute.time", 100)
+                .put("warning.exception.time", 5000));
+
+        assertEquals(16, options.getEventLoopPoolSize());
+        assertEquals(40, options.getWorkerPoolSize());
+        assertEquals(8, options.getInternalBlockingPoolSize());
+        assertEquals(500, options.getBlockedThreadCheckInterval());
+        assertEquals(100000000L, options.getMaxEventLoopExecuteTime());
+        assertEquals(5000000000L, options.getWarningExceptionTime());
+    }
+
+    @Test
+    public void testMissingValuesKeepDefaults() {
+        VertxOptions defaults = new VertxOptions();
+        VertxOptions options = SentimentLauncher.configure(new VertxOptions(), new JsonObject());
+
+        assertEquals(defaults.getEventLoopPoolSize(), options.getEventLoopPoolSize());
+        assertEquals(defaults.getWorkerPoolSize(), options.getWorkerPoolSize());
+        assertEquals(defaults.getMaxWorkerExecuteTime(), options.getMaxWorkerExecuteTime());
+    }
+}
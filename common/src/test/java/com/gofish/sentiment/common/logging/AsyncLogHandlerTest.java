@@ -0,0 +1,96 @@
+package com.gofish.sentiment.common.logging;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class AsyncLogHandlerTest {
+
+    @Test
+    public void testRecordsArePublishedToDelegateOffTheCallingThread() throws InterruptedException {
+        final List<String> publishingThreads = new CopyOnWriteArrayList<>();
+        final CountDownLatch published = new CountDownLatch(1);
+
+        AsyncLogHandler handler = new AsyncLogHandler(16, Collections.singletonList(new TestHandler(record -> {
+            publishingThreads.add(Thread.currentThread().getName());
+            published.countDown();
+        })));
+
+        handler.publish(new LogRecord(Level.INFO, "test record"));
+
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+        assertNotEquals(Thread.currentThread().getName(), publishingThreads.get(0));
+        handler.close();
+    }
+
+    @Test
+    public void testRecordsAreDroppedRatherThanBlockingWhenQueueIsFull() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        AsyncLogHandler handler = new AsyncLogHandler(1, Collections.singletonList(new TestHandler(record -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })));
+
+        for (int i = 0; i < 10; i++) {
+            handler.publish(new LogRecord(Level.INFO, "test record " + i));
+        }
+
+        assertTrue(handler.getDroppedRecords() >= 8);
+        release.countDown();
+        handler.close();
+    }
+
+    @Test
+    public void testQueuedRecordsAreFlushedOnClose() {
+        final List<LogRecord> records = new CopyOnWriteArrayList<>();
+        AsyncLogHandler handler = new AsyncLogHandler(64, Collections.singletonList(new TestHandler(records::add)));
+
+        for (int i = 0; i < 50; i++) {
+            handler.publish(new LogRecord(Level.INFO, "test record " + i));
+        }
+
+        handler.close();
+
+        assertEquals(50, records.size());
+    }
+
+    private static class TestHandler extends Handler {
+
+        private final Consumer<LogRecord> consumer;
+
+        TestHandler(Consumer<LogRecord> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            consumer.accept(record);
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
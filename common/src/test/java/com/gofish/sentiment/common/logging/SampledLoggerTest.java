@@ -0,0 +1,87 @@
+package com.gofish.sentiment.common.logging;
+
+import io.vertx.core.logging.LoggerFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class SampledLoggerTest {
+
+    private static final String LOGGER_NAME = "com.gofish.sentiment.common.logging.SampledLoggerTest.sampled";
+
+    // Held as a field, as the LogManager only holds weak references to its loggers
+    private final Logger julLogger = Logger.getLogger(LOGGER_NAME);
+    private final List<LogRecord> records = new ArrayList<>();
+    private final Handler handler = new Handler() {
+        @Override public void publish(LogRecord record) { records.add(record); }
+        @Override public void flush() {}
+        @Override public void close() {}
+    };
+
+    @BeforeClass
+    public static void initialiseLogging() {
+        // The first use of the vertx LoggerFactory reads the logging properties file, which resets the handlers of every
+        // existing logger. Make sure that has happened before our handler is added.
+        LoggerFactory.getLogger(LOGGER_NAME);
+    }
+
+    @Before
+    public void setUp() {
+        julLogger.addHandler(handler);
+    }
+
+    @After
+    public void tearDown() {
+        julLogger.removeHandler(handler);
+    }
+
+    @Test
+    public void testRecordsOverLimitAreSuppressed() {
+        SampledLogger logger = new SampledLogger(LoggerFactory.getLogger(LOGGER_NAME), 5, 60000);
+
+        for (int i = 0; i < 20; i++) {
+            logger.info("Record {0}", i);
+        }
+
+        assertEquals(5, records.size());
+    }
+
+    @Test
+    public void testSuppressedRecordsAreSummarisedInNextInterval() throws InterruptedException {
+        SampledLogger logger = new SampledLogger(LoggerFactory.getLogger(LOGGER_NAME), 1, 500);
+
+        logger.info("Record {0}", 1);
+        logger.info("Record {0}", 2);
+        logger.info("Record {0}", 3);
+        Thread.sleep(600);
+        logger.info("Record {0}", 4);
+
+        assertEquals(3, records.size());
+        assertTrue(records.get(1).getMessage().startsWith("Suppressed"));
+        assertEquals(2L, records.get(1).getParameters()[0]);
+    }
+
+    @Test
+    public void testMessageParametersAreCarriedOnTheRecord() {
+        SampledLogger logger = new SampledLogger(LoggerFactory.getLogger(LOGGER_NAME), 5, 60000);
+
+        logger.info("Checking if ''{0}'' has article ''{1}''", "collection", "article");
+
+        assertEquals("Checking if ''{0}'' has article ''{1}''", records.get(0).getMessage());
+        assertArrayEquals(new Object[] { "collection", "article" }, records.get(0).getParameters());
+    }
+}
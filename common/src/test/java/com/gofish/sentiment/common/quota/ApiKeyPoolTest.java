@@ -0,0 +1,100 @@
+package com.gofish.sentiment.common.quota;
+
+import com.gofish.sentiment.common.error.ServiceErrors;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.serviceproxy.ServiceException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class ApiKeyPoolTest {
+
+    @Rule
+    public final RunTestOnContext vertxRule = new RunTestOnContext();
+
+    private Vertx vertx;
+
+    @Before
+    public void setUp() {
+        vertx = vertxRule.vertx();
+    }
+
+    @Test
+    public void testSingleKeyIsUsedWhenNoKeysListed(TestContext context) {
+        ApiKeyPool apiKeys = ApiKeyPool.create(vertx, "test-service", new JsonObject().put("key", "single"));
+
+        context.assertEquals(1, apiKeys.getApiKeys().size());
+        context.assertEquals("single", apiKeys.select().getKey());
+    }
+
+    @Test
+    public void testKeysAreSelectedInProportionToWeight(TestContext context) {
+        ApiKeyPool apiKeys = ApiKeyPool.create(vertx, "test-service", new JsonObject().put("keys", new JsonArray()
+                .add(new JsonObject().put("key", "heavy").put("weight", 3))
+                .add("light")));
+        Map<String, Integer> selections = new HashMap<>();
+
+        for (int i = 0; i < 400; i++) {
+            selections.merge(apiKeys.select().getKey(), 1, Integer::sum);
+        }
+
+        context.assertEquals(300, selections.get("heavy"));
+        context.assertEquals(100, selections.get("light"));
+    }
+
+    @Test
+    public void testThrottledKeyIsRemovedFromRotation(TestContext context) {
+        ApiKeyPool apiKeys = ApiKeyPool.create(vertx, "test-service", new JsonObject().put("keys", new JsonArray()
+                .add("first")
+                .add("second")));
+
+        apiKeys.getApiKeys().get(0).throttle(60000);
+
+        for (int i = 0; i < 10; i++) {
+            context.assertEquals("second", apiKeys.select().getKey());
+        }
+    }
+
+    @Test
+    public void testSelectFailsWhenAllKeysThrottled(TestContext context) {
+        ApiKeyPool apiKeys = ApiKeyPool.create(vertx, "test-service", new JsonObject().put("keys", new JsonArray()
+                .add("first")
+                .add("second")));
+
+        apiKeys.throttle(60000);
+
+        try {
+            apiKeys.select();
+            context.fail("Expected all keys to be throttled");
+        }
+        catch (ServiceException e) {
+            context.assertTrue(ServiceErrors.isRateLimited(e));
+            context.assertTrue(ServiceErrors.getRetryAfter(e) > 59000);
+        }
+    }
+
+    @Test
+    public void testThrottleIsSharedByInstancesUsingTheSameKey(TestContext context) {
+        JsonObject apiConfig = new JsonObject().put("keys", new JsonArray().add("first").add("second"));
+        ApiKeyPool firstPool = ApiKeyPool.create(vertx, "test-service", apiConfig);
+
+        firstPool.getApiKeys().get(1).throttle(60000);
+
+        ApiKeyPool secondPool = ApiKeyPool.create(vertx, "test-service", apiConfig);
+        context.assertEquals(0L, secondPool.getApiKeys().get(0).getRemaining());
+        context.assertTrue(secondPool.getApiKeys().get(1).getRemaining() > 59000);
+    }
+}
@@ -0,0 +1,99 @@
+package com.gofish.sentiment.common.quota;
+
+import com.gofish.sentiment.common.error.ServiceErrors;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class QuotaStateTest {
+
+    @Rule
+    public final RunTestOnContext vertxRule = new RunTestOnContext();
+
+    private Vertx vertx;
+
+    @Before
+    public void setUp() {
+        vertx = vertxRule.vertx();
+    }
+
+    @Test
+    public void testThrottleIsSharedWithOtherInstances(TestContext context) {
+        QuotaState first = QuotaState.create(vertx, "test-service");
+        QuotaState second = QuotaState.create(vertx, "test-service");
+        Async async = context.async();
+
+        first.throttle(60000);
+        context.assertTrue(first.getRemaining() > 0);
+
+        // The window is published over the event bus, so give it a moment to arrive
+        vertx.setTimer(100, id -> {
+            context.assertTrue(second.getRemaining() > 59000);
+            async.complete();
+        });
+    }
+
+    @Test
+    public void testNewInstancePicksUpCurrentWindow(TestContext context) {
+        QuotaState.create(vertx, "test-service").throttle(60000);
+
+        context.assertTrue(QuotaState.create(vertx, "test-service").getRemaining() > 59000);
+    }
+
+    @Test
+    public void testShorterWindowDoesNotReplaceLongerWindow(TestContext context) {
+        QuotaState quotaState = QuotaState.create(vertx, "test-service");
+
+        quotaState.throttle(60000);
+        quotaState.throttle(1000);
+
+        context.assertTrue(quotaState.getRemaining() > 59000);
+    }
+
+    @Test
+    public void testOtherQuotasAreUnaffected(TestContext context) {
+        QuotaState.create(vertx, "test-service").throttle(60000);
+
+        context.assertEquals(0L, QuotaState.create(vertx, "other-service").getRemaining());
+    }
+
+    @Test
+    public void testRateLimitFailureStartsWindow(TestContext context) {
+        QuotaState quotaState = QuotaState.create(vertx, "test-service");
+        JsonObject error = new JsonObject().put("error", new JsonObject()
+                .put("statusCode", 429)
+                .put("message", "Rate limit is exceeded. Try again in 26 seconds."));
+
+        quotaState.recordFailure(new RuntimeException("429"));
+        context.assertEquals(0L, quotaState.getRemaining());
+
+        quotaState.recordFailure(ServiceErrors.fromResponse(200, null, error));
+        context.assertTrue(quotaState.getRemaining() > 25000);
+    }
+
+    @Test
+    public void testClosedInstanceIgnoresOtherInstances(TestContext context) {
+        QuotaState first = QuotaState.create(vertx, "test-service");
+        QuotaState second = QuotaState.create(vertx, "test-service");
+        Async async = context.async();
+
+        second.close();
+        first.throttle(60000);
+
+        vertx.setTimer(100, id -> {
+            context.assertEquals(0L, second.getRemaining());
+            async.complete();
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package com.gofish.sentiment.monolith;
+
+import com.gofish.sentiment.api.APIGatewayVerticle;
+import com.gofish.sentiment.newsanalyser.NewsAnalyserVerticle;
+import com.gofish.sentiment.newscrawler.NewsCrawlerVerticle;
+import com.gofish.sentiment.newslinker.NewsLinkerVerticle;
+import com.gofish.sentiment.sentimentservice.SentimentServiceVerticle;
+import com.gofish.sentiment.storage.StorageVerticle;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.rx.java.RxHelper;
+import io.vertx.rxjava.core.AbstractVerticle;
+import rx.Observable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Deploys every module in a single vertx instance. Each module is configured from the section of this verticle's
+ * configuration named after the module (e.g. "storage", "news-crawler"), and the number of instances of its verticle
+ * from that section's "performance.verticle.instances". Since the modules share a JVM, calls between them are made over
+ * local addresses, and never leave the process.
+ *
+ * @author Luke Herron
+ */
+public class MonolithVerticle extends AbstractVerticle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MonolithVerticle.class);
+
+    private static final Map<String, String> MODULES = new LinkedHashMap<>();
+
+    static {
+        MODULES.put("storage", StorageVerticle.class.getName());
+        MODULES.put("news-crawler", NewsCrawlerVerticle.class.getName());
+        MODULES.put("news-analyser", NewsAnalyserVerticle.class.getName());
+        MODULES.put("news-linker", NewsLinkerVerticle.class.getName());
+        MODULES.put("sentiment-service", SentimentServiceVerticle.class.getName());
+        MODULES.put("api-gateway", APIGatewayVerticle.class.getName());
+    }
+
+    @Override
+    public void start(Future<Void> startFuture) throws Exception {
+        LOG.info("Bringing up MonolithVerticle");
+
+        JsonObject config = Optional.ofNullable(config()).orElseGet(JsonObject::new);
+
+        Observable.from(MODULES.entrySet())
+                .concatMap(module -> vertx.rxDeployVerticle(module.getValue(), getDeploymentOptions(config, module.getKey()))
+                        .doOnSuccess(id -> LOG.info("Deployed module {0}", module.getKey()))
+                        .toObservable())
+                .toList()
+                .map(ids -> (Void) null)
+                .subscribe(RxHelper.toSubscriber(startFuture));
+    }
+
+    /**
+     * Builds the deployment options for a module from its section of the configuration
+     * @param config the monolith's configuration
+     * @param module the name of the module
+     * @return DeploymentOptions for the module's verticle
+     */
+    static DeploymentOptions getDeploymentOptions(JsonObject config, String module) {
+        JsonObject moduleConfig = config.getJsonObject(module, new JsonObject());
+        int instances = moduleConfig.getJsonObject("performance", new JsonObject()).getInteger("verticle.instances", 1);
+
+        return new DeploymentOptions().setConfig(moduleConfig).setInstances(instances);
+    }
+}
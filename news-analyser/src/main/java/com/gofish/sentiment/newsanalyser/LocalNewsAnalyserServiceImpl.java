@@ -0,0 +1,72 @@
+package com.gofish.sentiment.newsanalyser;
+
+import com.gofish.sentiment.common.logging.SampledLogger;
+import com.gofish.sentiment.newsanalyser.lexicon.SentimentLexicon;
+import com.gofish.sentiment.newsanalyser.lexicon.SentimentScorer;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+
+import java.util.UUID;
+
+/**
+ * NewsAnalyserService implementation which scores sentiment in-process, using a lexicon based scorer, rather than
+ * calling the Text Analytics API. Scoring an article takes microseconds, so it is performed directly on the calling
+ * thread. The result has the same shape as the API's (a 'sentiment' object holding a 'score' between 0 and 1, and an
+ * 'id'), so consumers of the service need not know which implementation they are using.
+ *
+ * @author Luke Herron
+ */
+public class LocalNewsAnalyserServiceImpl implements NewsAnalyserService {
+
+    private static final SampledLogger HOT_PATH_LOG = SampledLogger.getLogger(LocalNewsAnalyserServiceImpl.class);
+
+    private final SentimentScorer scorer;
+
+    public LocalNewsAnalyserServiceImpl() {
+        this(new SentimentScorer(SentimentLexicon.getDefault()));
+    }
+
+    LocalNewsAnalyserServiceImpl(SentimentScorer scorer) {
+        this.scorer = scorer;
+    }
+
+    @Override
+    public void analyseSentiment(JsonObject article, Handler<AsyncResult<JsonObject>> resultHandler) {
+        final String articleName = article.getString("name");
+        final String articleDescription = article.getString("description");
+
+        HOT_PATH_LOG.info("Starting local sentiment analysis for article ''{0}''", articleName);
+
+        if (articleName == null && articleDescription == null) {
+            resultHandler.handle(Future.failedFuture("Invalid Request"));
+        }
+        else if (articleName == null) {
+            resultHandler.handle(Future.failedFuture("Invalid article headline supplied"));
+        }
+        else if (articleDescription == null) {
+            resultHandler.handle(Future.failedFuture("Invalid article lead paragraph supplied"));
+        }
+        else {
+            final double score = SentimentScorer.toUnitScore(scorer.score(String.join(". ", articleName, articleDescription)));
+
+            article.put("sentiment", new JsonObject()
+                    .put("score", score)
+                    .put("id", UUID.randomUUID().toString()));
+
+            resultHandler.handle(Future.succeededFuture(article));
+        }
+    }
+
+    @Override
+    public void getTimeout(Handler<AsyncResult<Long>> timeoutHandler) {
+        // There is no API rate limit to respect
+        timeoutHandler.handle(Future.succeededFuture(0L));
+    }
+
+    @Override
+    public void setTimeout(Long delay) {
+        // There is no API rate limit to respect
+    }
+}
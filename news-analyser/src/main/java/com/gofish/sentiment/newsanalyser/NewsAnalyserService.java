@@ -18,14 +18,30 @@ public interface NewsAnalyserService {
     String NAME = "newsanalyser-eventbus-service";
     String ADDRESS = "sentiment.service.analyser";
 
+    String MODE_REMOTE = "remote";
+    String MODE_LOCAL = "local";
+    String MODE_TIERED = "tiered";
+
     /**
-     * Factory method for creating NewsAnalyserService instance
+     * Factory method for creating NewsAnalyserService instance. The "analyser.mode" config value selects the
+     * implementation: "remote" (the default) analyses articles with the Text Analytics API, while "local" scores them
+     * in-process using a sentiment lexicon, and "tiered" scores them locally but sends those with an uncertain local
+     * score to the Text Analytics API.
      * @param vertx Vertx instance
      * @param config JsonObject for configuring the NewsAnalyserService
      * @return NewsAnalyserService object
      */
     static NewsAnalyserService create(Vertx vertx, JsonObject config) {
-        return new NewsAnalyserServiceImpl(vertx, config);
+        switch (config.getString("analyser.mode", MODE_REMOTE)) {
+            case MODE_LOCAL:
+                return new LocalNewsAnalyserServiceImpl();
+            case MODE_REMOTE:
+                return new NewsAnalyserServiceImpl(vertx, config);
+            case MODE_TIERED:
+                return new TieredNewsAnalyserServiceImpl(vertx, config);
+            default:
+                throw new IllegalArgumentException("Unknown analyser mode " + config.getString("analyser.mode"));
+        }
     }
 
     /**
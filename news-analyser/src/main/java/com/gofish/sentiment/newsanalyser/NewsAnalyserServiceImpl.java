@@ -1,5 +1,10 @@
 package com.gofish.sentiment.newsanalyser;
 
+import com.gofish.sentiment.common.error.ServiceErrors;
+import com.gofish.sentiment.common.http.ApiClient;
+import com.gofish.sentiment.common.logging.SampledLogger;
+import com.gofish.sentiment.common.quota.ApiKey;
+import com.gofish.sentiment.common.quota.ApiKeyPool;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
 import io.vertx.core.AsyncResult;
@@ -12,8 +17,6 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
-import io.vertx.ext.web.client.WebClient;
-import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.codec.BodyCodec;
 import io.vertx.rx.java.RxHelper;
 import io.vertx.rx.java.SingleOnSubscribeAdapter;
@@ -21,51 +24,49 @@ import rx.Single;
 
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Luke Herron
  */
 public class NewsAnalyserServiceImpl implements NewsAnalyserService {
 
+    private static final long BREAKER_RESET_TIMEOUT = 30000;
     private static final Logger LOG = LoggerFactory.getLogger(NewsAnalyserServiceImpl.class);
+    private static final SampledLogger HOT_PATH_LOG = SampledLogger.getLogger(NewsAnalyserServiceImpl.class);
 
     private final Vertx vertx;
-    private final WebClient webClient;
+    private final ApiClient apiClient;
     private final HttpRequest<JsonObject> request;
     private final CircuitBreaker breaker;
-    private final String apiKey;
+    private volatile long breakerOpenedAt;
+    private final ApiKeyPool apiKeys;
     private final String baseUrl;
     private final String urlPath;
     private final Integer port;
 
-    private final AtomicLong timeoutTimeStamp;
-    private final AtomicLong timeoutDelay;
-
     public NewsAnalyserServiceImpl(Vertx vertx, JsonObject config) {
         this.vertx = vertx;
         JsonObject apiConfig = config.getJsonObject("api");
-        apiKey = apiConfig.getString("key", "");
+        apiKeys = ApiKeyPool.create(vertx, NewsAnalyserService.name(), apiConfig);
         baseUrl = apiConfig.getString("base.url", "");
         urlPath = apiConfig.getString("url.path", "");
         port = apiConfig.getInteger("port", 443);
 
-        webClient = WebClient.create(vertx, getWebClientOptions());
+        apiClient = ApiClient.createShared(vertx, NewsAnalyserService.name(), apiConfig);
         request = getHttpRequest();
         breaker = CircuitBreaker.create("newsanalyser-circuit-breaker", vertx,
-                new CircuitBreakerOptions().setMaxRetries(5).setMaxFailures(5).setTimeout(30000).setResetTimeout(30000));
-
-        timeoutTimeStamp = new AtomicLong(0);
-        timeoutDelay = new AtomicLong(0);
+                new CircuitBreakerOptions().setMaxRetries(5).setMaxFailures(5).setTimeout(30000).setResetTimeout(BREAKER_RESET_TIMEOUT))
+                .openHandler(v -> breakerOpenedAt = System.currentTimeMillis());
     }
 
     @Override
     public void analyseSentiment(JsonObject article, Handler<AsyncResult<JsonObject>> resultHandler) {
-        LOG.info("Starting sentiment analysis");
-
         final String articleName = article.getString("name");
         final String articleDescription = article.getString("description");
 
+        HOT_PATH_LOG.info("Starting sentiment analysis for article ''{0}''", articleName);
+
         if (articleName == null && articleDescription == null) {
             resultHandler.handle(Future.failedFuture("Invalid Request"));
         }
@@ -83,9 +84,10 @@ public class NewsAnalyserServiceImpl implements NewsAnalyserService {
                             .put("id", UUID.randomUUID().toString())
                             .put("text", text)));
 
-            rxAnalyseSentiment(requestData)
-                    .map(HttpResponse::body)
-                    .flatMap(body -> rxAddSentimentResults(article, body))
+            Single.fromCallable(apiKeys::select)
+                    .flatMap(apiKey -> rxAnalyseSentiment(requestData, apiKey)
+                            .flatMap(response -> rxAddSentimentResults(article, response))
+                            .doOnError(apiKey::recordFailure))
                     .subscribe(RxHelper.toSubscriber(resultHandler));
         }
     }
@@ -94,39 +96,58 @@ public class NewsAnalyserServiceImpl implements NewsAnalyserService {
      * Takes request data and sends it to the Microsoft Cognitive Services API. This API processes the text submitted in
      * the request and returns a sentiment analysis score as part of the response
      * @param requestData JsonObject representing the request data to send
+     * @param apiKey ApiKey to send the request with
      * @return Single which emits the result of the HttpResponse
      */
-    private Single<HttpResponse<JsonObject>> rxAnalyseSentiment(JsonObject requestData) {
+    private Single<HttpResponse<JsonObject>> rxAnalyseSentiment(JsonObject requestData, ApiKey apiKey) {
 
         return Single.create(new SingleOnSubscribeAdapter<HttpResponse<JsonObject>>(fut -> {
+            final AtomicBoolean executed = new AtomicBoolean(false);
             breaker.<HttpResponse<JsonObject>>execute(future -> {
-                request.sendJson(requestData, response -> {
-                    if (response.failed()) {
-                        LOG.error(response.cause().getMessage(), response.cause());
-                        future.fail(response.cause());
-                    }
-
-                    HttpResponse<JsonObject> result = response.result();
-                    if (result.statusCode() != 200 && result.statusCode() != 429) {
-                        future.fail(result.body() == null ? result.statusMessage() : result.body().encode());
-                    } else {
-                        future.complete(result);
-                    }
-                });
-            }).setHandler(fut);
+                executed.set(true);
+                request.copy()
+                        .putHeader("Ocp-Apim-Subscription-Key", apiKey.getKey())
+                        .sendJson(requestData, apiClient.track(baseUrl, port, response -> {
+                            if (response.failed()) {
+                                LOG.error(response.cause().getMessage(), response.cause());
+                                future.fail(response.cause());
+                                return;
+                            }
+
+                            HttpResponse<JsonObject> result = response.result();
+                            if (result.statusCode() != 200 && result.statusCode() != 429) {
+                                future.fail(result.body() == null ?
+                                        ServiceErrors.fromStatus(result.statusCode(), result.getHeader("Retry-After"), result.statusMessage()) :
+                                        ServiceErrors.fromResponse(result.statusCode(), result.getHeader("Retry-After"), result.body()));
+                            } else {
+                                future.complete(result);
+                            }
+                        }));
+            }).setHandler(result -> {
+                // A call rejected by the open breaker was never sent, so the caller is told when it may try again
+                if (result.failed() && !executed.get()) {
+                    final long retryAfter = breakerOpenedAt + BREAKER_RESET_TIMEOUT - System.currentTimeMillis();
+                    fut.handle(Future.failedFuture(ServiceErrors.unavailable(Math.max(1, retryAfter))));
+                }
+                else {
+                    fut.handle(result);
+                }
+            });
         }));
     }
 
     /**
-     * Updates a supplied news article with the supplied sentiment analysis response
+     * Updates a supplied news article with the supplied sentiment analysis response. If the response does not contain
+     * any results (e.g. the API rate limit has been exceeded), a ServiceException describing the error is emitted.
      * @param article JsonObject which represents the news article to be updated with the sentiment results
-     * @param analysisResponse JsonObject which holds the sentiment analysis results
+     * @param response HttpResponse which holds the sentiment analysis results
      * @return Single which emits the news article which has been updated with the sentiment results
      */
-    private Single<JsonObject> rxAddSentimentResults(JsonObject article, JsonObject analysisResponse) {
+    private Single<JsonObject> rxAddSentimentResults(JsonObject article, HttpResponse<JsonObject> response) {
+        final JsonObject analysisResponse = response.body();
         JsonArray documents = Optional.ofNullable(analysisResponse.getJsonArray("documents"))
-                .orElseThrow(() -> new RuntimeException(analysisResponse.containsKey("error") ?
-                        analysisResponse.encode() : new JsonObject().put("error", analysisResponse).encode()));
+                .orElseThrow(() -> ServiceErrors.fromResponse(response.statusCode(), response.getHeader("Retry-After"),
+                        analysisResponse.containsKey("error") ? analysisResponse : new JsonObject().put("error", analysisResponse)));
 
         article.put("sentiment", documents.getJsonObject(0));
 
@@ -139,36 +160,18 @@ public class NewsAnalyserServiceImpl implements NewsAnalyserService {
      */
     private HttpRequest<JsonObject> getHttpRequest() {
 
-        return webClient.post(port, baseUrl, urlPath)
-                .putHeader("Ocp-Apim-Subscription-Key", apiKey)
+        return apiClient.getWebClient().post(port, baseUrl, urlPath)
+                .timeout(apiClient.getRequestTimeout())
                 .as(BodyCodec.jsonObject());
     }
 
-    /**
-     * Creates and returns an HttpClientOptions object. Values for each option are retrieved from the config json object
-     * (this config json object is passed in to the verticle when it is deployed)
-     *
-     * @return HttpClientOptions object to configure this verticles HttpClient
-     */
-    private WebClientOptions getWebClientOptions() {
-
-        return new WebClientOptions()
-                .setPipelining(true)
-                .setPipeliningLimit(10)
-                .setIdleTimeout(0)
-                .setSsl(!baseUrl.equalsIgnoreCase("localhost"))
-                .setKeepAlive(true);
-    }
-
     @Override
     public void getTimeout(Handler<AsyncResult<Long>> timeoutHandler) {
-        final long delay = timeoutDelay.get() - (System.currentTimeMillis() - timeoutTimeStamp.get());
-        timeoutHandler.handle(Future.succeededFuture(delay));
+        timeoutHandler.handle(Future.succeededFuture(apiKeys.getRemaining()));
     }
 
     @Override
     public void setTimeout(Long delay) {
-        timeoutTimeStamp.set(System.currentTimeMillis());
-        timeoutDelay.set(delay);
+        apiKeys.throttle(delay);
     }
 }
@@ -0,0 +1,123 @@
+package com.gofish.sentiment.newsanalyser;
+
+import com.gofish.sentiment.common.logging.SampledLogger;
+import com.gofish.sentiment.newsanalyser.lexicon.SentimentLexicon;
+import com.gofish.sentiment.newsanalyser.lexicon.SentimentScorer;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.UUID;
+
+/**
+ * NewsAnalyserService implementation which scores every article locally first, and only sends those articles whose
+ * local score is uncertain (i.e. close to neutral) to the Text Analytics API. The number of articles sent to the API is
+ * capped by a budget which is replenished every window, so API usage stays bounded however many articles are crawled.
+ * If the budget has been spent, or the API call fails, the local score is used instead.
+ *
+ * @author Luke Herron
+ */
+public class TieredNewsAnalyserServiceImpl implements NewsAnalyserService {
+
+    private static final SampledLogger HOT_PATH_LOG = SampledLogger.getLogger(TieredNewsAnalyserServiceImpl.class);
+
+    private static final double DEFAULT_UNCERTAIN_BAND = 0.3;
+    private static final int DEFAULT_REMOTE_BUDGET = 100;
+    private static final long DEFAULT_BUDGET_WINDOW = 3600000;
+
+    private final SentimentScorer scorer;
+    private final NewsAnalyserService remote;
+    private final double uncertainBand;
+    private final int remoteBudget;
+    private final long budgetWindow;
+
+    private long windowStart;
+    private int remoteCalls;
+
+    public TieredNewsAnalyserServiceImpl(Vertx vertx, JsonObject config) {
+        this(new SentimentScorer(SentimentLexicon.getDefault()), new NewsAnalyserServiceImpl(vertx, config),
+                config.getJsonObject("tiered", new JsonObject()));
+    }
+
+    TieredNewsAnalyserServiceImpl(SentimentScorer scorer, NewsAnalyserService remote, JsonObject tieredConfig) {
+        this.scorer = scorer;
+        this.remote = remote;
+        this.uncertainBand = tieredConfig.getDouble("uncertain.band", DEFAULT_UNCERTAIN_BAND);
+        this.remoteBudget = tieredConfig.getInteger("remote.budget", DEFAULT_REMOTE_BUDGET);
+        this.budgetWindow = tieredConfig.getLong("budget.window", DEFAULT_BUDGET_WINDOW);
+    }
+
+    @Override
+    public void analyseSentiment(JsonObject article, Handler<AsyncResult<JsonObject>> resultHandler) {
+        final String articleName = article.getString("name");
+        final String articleDescription = article.getString("description");
+
+        if (articleName == null && articleDescription == null) {
+            resultHandler.handle(Future.failedFuture("Invalid Request"));
+        }
+        else if (articleName == null) {
+            resultHandler.handle(Future.failedFuture("Invalid article headline supplied"));
+        }
+        else if (articleDescription == null) {
+            resultHandler.handle(Future.failedFuture("Invalid article lead paragraph supplied"));
+        }
+        else {
+            final double compound = scorer.score(String.join(". ", articleName, articleDescription));
+
+            if (Math.abs(compound) > uncertainBand || !acquireRemoteCall()) {
+                resultHandler.handle(Future.succeededFuture(addLocalSentiment(article, compound)));
+                return;
+            }
+
+            HOT_PATH_LOG.info("Local score {0} for article ''{1}'' is uncertain, analysing remotely", compound, articleName);
+
+            remote.analyseSentiment(article, result -> {
+                if (result.succeeded()) {
+                    resultHandler.handle(result);
+                } else {
+                    HOT_PATH_LOG.warn("Remote analysis failed for article ''{0}'', using local score: {1}",
+                            articleName, result.cause().getMessage());
+                    resultHandler.handle(Future.succeededFuture(addLocalSentiment(article, compound)));
+                }
+            });
+        }
+    }
+
+    /**
+     * Takes a call from the remote budget for the current window, starting a new window if the current one has passed
+     * @return true if the budget allowed the call, false if it has been spent
+     */
+    synchronized boolean acquireRemoteCall() {
+        final long now = System.currentTimeMillis();
+        if (now - windowStart >= budgetWindow) {
+            windowStart = now;
+            remoteCalls = 0;
+        }
+
+        if (remoteCalls >= remoteBudget) {
+            return false;
+        }
+
+        remoteCalls++;
+        return true;
+    }
+
+    private JsonObject addLocalSentiment(JsonObject article, double compound) {
+        return article.put("sentiment", new JsonObject()
+                .put("score", SentimentScorer.toUnitScore(compound))
+                .put("id", UUID.randomUUID().toString()));
+    }
+
+    @Override
+    public void getTimeout(Handler<AsyncResult<Long>> timeoutHandler) {
+        // A throttled API only means falling back to the local score, so callers never need to wait
+        timeoutHandler.handle(Future.succeededFuture(0L));
+    }
+
+    @Override
+    public void setTimeout(Long delay) {
+        remote.setTimeout(delay);
+    }
+}
@@ -0,0 +1,227 @@
+package com.gofish.sentiment.newsanalyser.lexicon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Token dictionary used by the SentimentScorer. Each entry maps a token to its kind (a sentiment bearing word, a
+ * negation, an intensifier or a contrasting conjunction) and a value.
+ *
+ * The dictionary is compiled once, when it is loaded, into an open addressing hash table keyed by a 64 bit hash of the
+ * token. Looking up a token only requires its hash, which the scorer computes as it scans the text, so scoring an
+ * article never creates a String (or any other object) per token.
+ *
+ * The lexicon file is made up of sections, each holding one "token value" entry per line:
+ * <pre>
+ * [valence]
+ * good 2
+ * [negation]
+ * not
+ * [intensifier]
+ * very 0.3
+ * [contrast]
+ * but
+ * </pre>
+ * Valences range from -4 (most negative) to 4 (most positive). An intensifier's value is added to the magnitude of the
+ * valence of the word it precedes, so dampeners (e.g. "slightly") have a negative value.
+ *
+ * @author Luke Herron
+ */
+public class SentimentLexicon {
+
+    public static final byte NONE = 0;
+    public static final byte VALENCE = 1;
+    public static final byte NEGATION = 2;
+    public static final byte INTENSIFIER = 3;
+    public static final byte CONTRAST = 4;
+
+    private static final String DEFAULT_LEXICON = "lexicon/sentiment-lexicon.txt";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static volatile SentimentLexicon defaultLexicon;
+
+    private final long[] keys;
+    private final float[] values;
+    private final byte[] kinds;
+    private final int mask;
+    private int size = 0;
+
+    SentimentLexicon(int expectedSize) {
+        // Keep the load factor at or below 0.5 so that probe sequences stay short
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new float[capacity];
+        kinds = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Retrieves the lexicon bundled with the news analyser. It is loaded on first use and then shared.
+     * @return the default SentimentLexicon
+     */
+    public static SentimentLexicon getDefault() {
+        if (defaultLexicon == null) {
+            synchronized (SentimentLexicon.class) {
+                if (defaultLexicon == null) {
+                    defaultLexicon = load(SentimentLexicon.class.getClassLoader().getResourceAsStream(DEFAULT_LEXICON));
+                }
+            }
+        }
+
+        return defaultLexicon;
+    }
+
+    /**
+     * Loads and compiles a lexicon
+     * @param inputStream stream holding the lexicon file, which is closed once read
+     * @return the compiled SentimentLexicon
+     */
+    public static SentimentLexicon load(InputStream inputStream) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Lexicon not found");
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            final String[] lines = reader.lines().map(String::trim).toArray(String[]::new);
+            final SentimentLexicon lexicon = new SentimentLexicon(lines.length);
+            byte kind = NONE;
+
+            for (String line : lines) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                if (line.startsWith("[")) {
+                    kind = parseSection(line);
+                    continue;
+                }
+
+                final String[] entry = line.split("\\s+");
+                final float value = entry.length > 1 ? Float.parseFloat(entry[1]) : 0;
+                lexicon.put(hash(entry[0]), kind, value);
+            }
+
+            return lexicon;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Computes the hash of a token. Tokens are case-insensitive.
+     * @param token the token to hash
+     * @return the 64 bit hash of the token
+     */
+    public static long hash(CharSequence token) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < token.length(); i++) {
+            hash = hash(hash, token.charAt(i));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Folds the next character of a token into its hash. Starting from FNV_OFFSET_BASIS, this produces the same
+     * result as hash(CharSequence), which lets the scorer hash tokens as it scans them.
+     * @param hash the hash of the token so far
+     * @param c the next character of the token
+     * @return the hash of the token including the character
+     */
+    public static long hash(long hash, char c) {
+        return (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+    }
+
+    /**
+     * The initial value for a hash computed with hash(long, char)
+     * @return the hash of the empty token
+     */
+    public static long emptyHash() {
+        return FNV_OFFSET_BASIS;
+    }
+
+    /**
+     * Looks up the kind of a token
+     * @param hash the hash of the token
+     * @return the kind of the token, or NONE if it is not in the lexicon
+     */
+    public byte kind(long hash) {
+        final int slot = find(hash);
+        return slot < 0 ? NONE : kinds[slot];
+    }
+
+    /**
+     * Looks up the value of a token
+     * @param hash the hash of the token
+     * @return the value of the token, or 0 if it is not in the lexicon
+     */
+    public float value(long hash) {
+        final int slot = find(hash);
+        return slot < 0 ? 0 : values[slot];
+    }
+
+    /**
+     * Retrieves the number of tokens in the lexicon
+     * @return the number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    void put(long hash, byte kind, float value) {
+        final long key = hash == 0 ? 1 : hash;
+        int slot = (int) mix(key) & mask;
+
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        if (keys[slot] == 0) {
+            size++;
+        }
+
+        keys[slot] = key;
+        kinds[slot] = kind;
+        values[slot] = value;
+    }
+
+    private int find(long hash) {
+        final long key = hash == 0 ? 1 : hash;
+        int slot = (int) mix(key) & mask;
+
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private static long mix(long key) {
+        return key ^ (key >>> 32) ^ (key >>> 17);
+    }
+
+    private static byte parseSection(String line) {
+        switch (line) {
+            case "[valence]":
+                return VALENCE;
+            case "[negation]":
+                return NEGATION;
+            case "[intensifier]":
+                return INTENSIFIER;
+            case "[contrast]":
+                return CONTRAST;
+            default:
+                throw new IllegalArgumentException("Unknown lexicon section " + line);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.gofish.sentiment.newsanalyser.lexicon;
+
+/**
+ * Lexicon based sentiment scorer, in the style of VADER. The text is scanned once, and the valence of each sentiment
+ * bearing word is summed, taking into account:
+ * <ul>
+ *     <li>negation - a valence within three words of a negation (e.g. "not good") is flipped and dampened</li>
+ *     <li>intensifiers - words such as "very" or "slightly" increase or decrease the magnitude of the next valence</li>
+ *     <li>contrast - after a contrasting conjunction (e.g. "but") the remainder of the text carries more weight</li>
+ * </ul>
+ * The summed valence is then normalised to a compound score between -1 and 1.
+ *
+ * @author Luke Herron
+ */
+public class SentimentScorer {
+
+    private static final double NEGATION_SCALAR = -0.74;
+    private static final int NEGATION_WINDOW = 3;
+    private static final double CONTRAST_BEFORE = 0.5;
+    private static final double CONTRAST_AFTER = 1.5;
+    private static final double NORMALISATION_ALPHA = 15;
+
+    private final SentimentLexicon lexicon;
+
+    public SentimentScorer(SentimentLexicon lexicon) {
+        this.lexicon = lexicon;
+    }
+
+    /**
+     * Scores the sentiment of a piece of text
+     * @param text the text to score
+     * @return the compound score, between -1 (most negative) and 1 (most positive). Text without any sentiment bearing
+     * words scores 0.
+     */
+    public double score(CharSequence text) {
+        double sum = 0;
+        double weight = 1;
+        double boost = 0;
+        int sinceNegation = NEGATION_WINDOW;
+
+        long hash = SentimentLexicon.emptyHash();
+        long hashBeforeApostrophe = hash;
+        int tokenLength = 0;
+        char previous = ' ';
+
+        // One extra iteration, so that a token at the very end of the text is terminated
+        for (int i = 0; i <= text.length(); i++) {
+            final char c = i < text.length() ? normalise(text.charAt(i)) : ' ';
+
+            if (Character.isLetterOrDigit(c) || (c == '\'' && tokenLength > 0)) {
+                if (c == '\'') {
+                    hashBeforeApostrophe = hash;
+                }
+
+                hash = SentimentLexicon.hash(hash, c);
+                tokenLength++;
+                previous = c;
+                continue;
+            }
+
+            if (tokenLength > 0) {
+                // A trailing apostrophe is possessive (e.g. "investors'"), not part of the word
+                if (previous == '\'') {
+                    hash = hashBeforeApostrophe;
+                }
+
+                switch (lexicon.kind(hash)) {
+                    case SentimentLexicon.VALENCE:
+                        double valence = lexicon.value(hash);
+                        valence += Math.signum(valence) * boost;
+                        if (sinceNegation < NEGATION_WINDOW) {
+                            valence *= NEGATION_SCALAR;
+                        }
+
+                        sum += valence * weight;
+                        boost = 0;
+                        sinceNegation++;
+                        break;
+                    case SentimentLexicon.NEGATION:
+                        sinceNegation = 0;
+                        boost = 0;
+                        break;
+                    case SentimentLexicon.INTENSIFIER:
+                        boost += lexicon.value(hash);
+                        sinceNegation++;
+                        break;
+                    case SentimentLexicon.CONTRAST:
+                        sum *= CONTRAST_BEFORE;
+                        weight = CONTRAST_AFTER;
+                        boost = 0;
+                        sinceNegation = NEGATION_WINDOW;
+                        break;
+                    default:
+                        boost = 0;
+                        sinceNegation++;
+                }
+
+                hash = SentimentLexicon.emptyHash();
+                tokenLength = 0;
+            }
+
+            previous = c;
+
+            // Negation does not carry over into the next sentence
+            if (c == '.' || c == '!' || c == '?' || c == ';') {
+                sinceNegation = NEGATION_WINDOW;
+                boost = 0;
+            }
+        }
+
+        return sum / Math.sqrt(sum * sum + NORMALISATION_ALPHA);
+    }
+
+    /**
+     * Converts a compound score to the scale used by the Text Analytics API, where 0 is most negative, 1 is most
+     * positive and 0.5 is neutral
+     * @param compound the compound score, between -1 and 1
+     * @return the score, between 0 and 1
+     */
+    public static double toUnitScore(double compound) {
+        return (compound + 1) / 2;
+    }
+
+    private static char normalise(char c) {
+        // Typographic apostrophes are common in news copy e.g. "don’t"
+        return c == '\u2019' || c == '\u2018' ? '\'' : c;
+    }
+}
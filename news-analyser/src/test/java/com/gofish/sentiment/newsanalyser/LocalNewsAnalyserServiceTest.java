@@ -0,0 +1,59 @@
+package com.gofish.sentiment.newsanalyser;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class LocalNewsAnalyserServiceTest {
+
+    @Rule
+    public final RunTestOnContext vertxRule = new RunTestOnContext();
+
+    private NewsAnalyserService newsAnalyserService;
+
+    @Before
+    public void setUp() {
+        Vertx vertx = vertxRule.vertx();
+        newsAnalyserService = NewsAnalyserService.create(vertx, new JsonObject().put("analyser.mode", "local"));
+    }
+
+    @Test
+    public void testLocalModeCreatesLocalService(TestContext context) {
+        context.assertTrue(newsAnalyserService instanceof LocalNewsAnalyserServiceImpl);
+    }
+
+    @Test
+    public void testNewsAnalyserReturnsSentimentScore(TestContext context) {
+        JsonObject article = new JsonObject()
+                .put("name", "Shares surge after record profits")
+                .put("description", "Investors celebrated a strong quarter");
+
+        newsAnalyserService.analyseSentiment(article, context.asyncAssertSuccess(result -> {
+            JsonObject sentiment = result.getJsonObject("sentiment");
+            context.assertNotNull(sentiment.getString("id"));
+            context.assertTrue(sentiment.getDouble("score") > 0.5 && sentiment.getDouble("score") <= 1);
+        }));
+    }
+
+    @Test
+    public void testNewsAnalyserFailsOnInvalidJsonObjectParameter(TestContext context) {
+        newsAnalyserService.analyseSentiment(new JsonObject(), context.asyncAssertFailure(cause ->
+                context.assertEquals("Invalid Request", cause.getMessage())));
+    }
+
+    @Test
+    public void testTimeoutIsAlwaysZero(TestContext context) {
+        newsAnalyserService.setTimeout(1000L);
+        newsAnalyserService.getTimeout(context.asyncAssertSuccess(timeout -> context.assertEquals(0L, timeout)));
+    }
+}
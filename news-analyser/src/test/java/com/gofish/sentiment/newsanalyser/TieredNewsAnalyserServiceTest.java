@@ -0,0 +1,98 @@
+package com.gofish.sentiment.newsanalyser;
+
+import com.gofish.sentiment.newsanalyser.lexicon.SentimentLexicon;
+import com.gofish.sentiment.newsanalyser.lexicon.SentimentScorer;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class TieredNewsAnalyserServiceTest {
+
+    private static final JsonObject UNCERTAIN_ARTICLE = new JsonObject()
+            .put("name", "The committee meets on Tuesday")
+            .put("description", "A decision is expected");
+    private static final JsonObject CERTAIN_ARTICLE = new JsonObject()
+            .put("name", "Shares surge after record profits")
+            .put("description", "Investors celebrated a strong quarter");
+
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+    private boolean remoteFails;
+    private TieredNewsAnalyserServiceImpl newsAnalyserService;
+
+    @Before
+    public void setUp() {
+        NewsAnalyserService remote = new NewsAnalyserService() {
+            @Override
+            public void analyseSentiment(JsonObject article, Handler<AsyncResult<JsonObject>> resultHandler) {
+                remoteCalls.incrementAndGet();
+                resultHandler.handle(remoteFails ? Future.failedFuture("Rate limit is exceeded") :
+                        Future.succeededFuture(article.put("sentiment", new JsonObject().put("score", 0.9).put("id", "1"))));
+            }
+
+            @Override
+            public void getTimeout(Handler<AsyncResult<Long>> timeoutHandler) {
+                timeoutHandler.handle(Future.succeededFuture(0L));
+            }
+
+            @Override
+            public void setTimeout(Long delay) {
+            }
+        };
+
+        newsAnalyserService = new TieredNewsAnalyserServiceImpl(new SentimentScorer(SentimentLexicon.getDefault()),
+                remote, new JsonObject().put("uncertain.band", 0.3).put("remote.budget", 2).put("budget.window", 60000));
+    }
+
+    @Test
+    public void testCertainArticlesAreScoredLocally(TestContext context) {
+        newsAnalyserService.analyseSentiment(CERTAIN_ARTICLE.copy(), context.asyncAssertSuccess(result -> {
+            context.assertEquals(0, remoteCalls.get());
+            context.assertTrue(result.getJsonObject("sentiment").getDouble("score") > 0.5);
+        }));
+    }
+
+    @Test
+    public void testUncertainArticlesAreAnalysedRemotely(TestContext context) {
+        newsAnalyserService.analyseSentiment(UNCERTAIN_ARTICLE.copy(), context.asyncAssertSuccess(result -> {
+            context.assertEquals(1, remoteCalls.get());
+            context.assertEquals(0.9, result.getJsonObject("sentiment").getDouble("score"));
+        }));
+    }
+
+    @Test
+    public void testLocalScoreIsUsedOnceBudgetIsSpent(TestContext context) {
+        newsAnalyserService.analyseSentiment(UNCERTAIN_ARTICLE.copy(), context.asyncAssertSuccess());
+        newsAnalyserService.analyseSentiment(UNCERTAIN_ARTICLE.copy(), context.asyncAssertSuccess());
+        newsAnalyserService.analyseSentiment(UNCERTAIN_ARTICLE.copy(), context.asyncAssertSuccess(result -> {
+            context.assertEquals(2, remoteCalls.get());
+            context.assertEquals(0.5, result.getJsonObject("sentiment").getDouble("score"));
+        }));
+    }
+
+    @Test
+    public void testLocalScoreIsUsedWhenRemoteFails(TestContext context) {
+        remoteFails = true;
+        newsAnalyserService.analyseSentiment(UNCERTAIN_ARTICLE.copy(), context.asyncAssertSuccess(result -> {
+            context.assertEquals(1, remoteCalls.get());
+            context.assertEquals(0.5, result.getJsonObject("sentiment").getDouble("score"));
+        }));
+    }
+
+    @Test
+    public void testNewsAnalyserFailsOnInvalidJsonObjectParameter(TestContext context) {
+        newsAnalyserService.analyseSentiment(new JsonObject(), context.asyncAssertFailure(cause ->
+                context.assertEquals("Invalid Request", cause.getMessage())));
+    }
+}
@@ -0,0 +1,64 @@
+package com.gofish.sentiment.newsanalyser.lexicon;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class SentimentScorerTest {
+
+    private final SentimentScorer scorer = new SentimentScorer(SentimentLexicon.getDefault());
+
+    @Test
+    public void testPositiveAndNegativeText() {
+        assertTrue(scorer.score("Shares surge after record profits") > 0.5);
+        assertTrue(scorer.score("Markets crash as recession fears grow") < -0.5);
+    }
+
+    @Test
+    public void testNeutralTextScoresZero() {
+        assertEquals(0, scorer.score("The committee meets on Tuesday"), 0);
+        assertEquals(0, scorer.score(""), 0);
+    }
+
+    @Test
+    public void testNegationFlipsValence() {
+        assertTrue(scorer.score("The results were good") > 0);
+        assertTrue(scorer.score("The results were not good") < 0);
+        assertTrue(scorer.score("The results weren\u2019t good") < 0);
+    }
+
+    @Test
+    public void testNegationDoesNotCrossSentences() {
+        assertEquals(scorer.score("Good results"), scorer.score("Not today. Good results"), 0);
+    }
+
+    @Test
+    public void testIntensifiersScaleValence() {
+        final double plain = scorer.score("a good quarter");
+
+        assertTrue(scorer.score("a very good quarter") > plain);
+        assertTrue(scorer.score("a slightly good quarter") < plain);
+    }
+
+    @Test
+    public void testContrastWeightsLaterClause() {
+        assertTrue(scorer.score("Profits fell but the outlook is strong") > 0);
+    }
+
+    @Test
+    public void testTokensAreCaseInsensitive() {
+        assertEquals(scorer.score("great"), scorer.score("GREAT"), 0);
+        assertEquals(scorer.score("investors"), scorer.score("investors'"), 0);
+    }
+
+    @Test
+    public void testUnitScore() {
+        assertEquals(0.5, SentimentScorer.toUnitScore(0), 0);
+        assertEquals(1, SentimentScorer.toUnitScore(1), 0);
+        assertEquals(0, SentimentScorer.toUnitScore(-1), 0);
+    }
+}
@@ -1,5 +1,9 @@
 package com.gofish.sentiment.newscrawler;
 
+import com.gofish.sentiment.common.error.ServiceErrors;
+import com.gofish.sentiment.common.http.ApiClient;
+import com.gofish.sentiment.common.quota.ApiKey;
+import com.gofish.sentiment.common.quota.ApiKeyPool;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
 import io.vertx.core.AsyncResult;
@@ -11,14 +15,12 @@ import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
-import io.vertx.ext.web.client.WebClient;
-import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.codec.BodyCodec;
 import io.vertx.rx.java.RxHelper;
 import io.vertx.rx.java.SingleOnSubscribeAdapter;
 import rx.Single;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Luke Herron
@@ -28,37 +30,34 @@ public class NewsCrawlerServiceImpl implements NewsCrawlerService {
     private static final int DEFAULT_API_PORT = 443;
     private static final int DEFAULT_RESULT_COUNT = 100;
     private static final String DEFAULT_FRESHNESS = "Day";
+    private static final long BREAKER_RESET_TIMEOUT = 30000;
     private static final Logger LOG = LoggerFactory.getLogger(NewsCrawlerServiceImpl.class);
 
-    private final WebClient webClient;
+    private final ApiClient apiClient;
     private final HttpRequest<JsonObject> request;
     private final CircuitBreaker breaker;
-    private final String apiKey;
+    private volatile long breakerOpenedAt;
+    private final ApiKeyPool apiKeys;
     private final String baseUrl;
     private final String freshness;
     private final String urlPath;
     private final Integer port;
     private final Integer resultCount;
 
-    private final AtomicLong timeoutTimeStamp;
-    private final AtomicLong timeoutDelay;
-
     public NewsCrawlerServiceImpl(Vertx vertx, JsonObject config) {
         JsonObject apiConfig = config.getJsonObject("api");
-        apiKey = apiConfig.getString("key", "");
+        apiKeys = ApiKeyPool.create(vertx, NewsCrawlerService.name(), apiConfig);
         baseUrl = apiConfig.getString("base.url", "");
         freshness = apiConfig.getString("freshness", DEFAULT_FRESHNESS);
         urlPath = apiConfig.getString("url.path", "");
         port = apiConfig.getInteger("port", DEFAULT_API_PORT);
         resultCount = apiConfig.getInteger("result.count", DEFAULT_RESULT_COUNT);
 
-        webClient = WebClient.create(vertx, getWebClientOptions());
+        apiClient = ApiClient.createShared(vertx, NewsCrawlerService.name(), apiConfig);
         request = getHttpRequest();
         breaker = CircuitBreaker.create("newscrawler-circuit-breaker", vertx,
-                new CircuitBreakerOptions().setMaxRetries(5).setMaxFailures(5).setTimeout(30000).setResetTimeout(30000));
-
-        timeoutTimeStamp = new AtomicLong(0);
-        timeoutDelay = new AtomicLong(0);
+                new CircuitBreakerOptions().setMaxRetries(5).setMaxFailures(5).setTimeout(30000).setResetTimeout(BREAKER_RESET_TIMEOUT))
+                .openHandler(v -> breakerOpenedAt = System.currentTimeMillis());
     }
 
     @Override
@@ -68,10 +67,12 @@ public class NewsCrawlerServiceImpl implements NewsCrawlerService {
             resultHandler.handle(Future.failedFuture("Invalid Query"));
         }
 
-        LOG.info("Starting crawl for query: " + query);
+        LOG.info("Starting crawl for query: {0}", query);
 
-        rxCrawlQuery(query)
-                .map(HttpResponse::body)
+        Single.fromCallable(apiKeys::select)
+                .flatMap(apiKey -> rxCrawlQuery(query, apiKey)
+                        .map(this::checkResponse)
+                        .doOnError(apiKey::recordFailure))
                 .map(ResponseParser::parse)
                 .subscribe(RxHelper.toSubscriber(resultHandler));
     }
@@ -80,68 +81,85 @@ public class NewsCrawlerServiceImpl implements NewsCrawlerService {
      * Takes the query string and sends it to the Bing News Search API. This API performs a news search, returning
      * articles which are related to the supplied query.
      * @param query String query to search the news for
+     * @param apiKey ApiKey to send the request with
      * @return Single which emits the result of the HttpResponse
      */
-    private Single<HttpResponse<JsonObject>> rxCrawlQuery(String query) {
+    private Single<HttpResponse<JsonObject>> rxCrawlQuery(String query, ApiKey apiKey) {
 
         return Single.create(new SingleOnSubscribeAdapter<>(fut -> {
+            final AtomicBoolean executed = new AtomicBoolean(false);
             breaker.<HttpResponse<JsonObject>>execute(future -> {
-                request.setQueryParam("q", query).send(response -> {
-                    if (response.failed()) {
-                        LOG.error(response.cause().getMessage(), response.cause());
-                        future.fail(response.cause());
-                    }
-
-                    HttpResponse<JsonObject> result = response.result();
-                    if (result.statusCode() != 200 && result.statusCode() != 429) {
-                        future.fail(result.body() == null ? result.statusMessage() : result.body().encode());
-                    } else {
-                        future.complete(result);
-                    }
-                });
-            }).setHandler(fut);
+                executed.set(true);
+                request.copy()
+                        .putHeader("Ocp-Apim-Subscription-Key", apiKey.getKey())
+                        .setQueryParam("q", query)
+                        .send(apiClient.track(baseUrl, port, response -> {
+                            if (response.failed()) {
+                                LOG.error(response.cause().getMessage(), response.cause());
+                                future.fail(response.cause());
+                                return;
+                            }
+
+                            HttpResponse<JsonObject> result = response.result();
+                            if (result.statusCode() != 200 && result.statusCode() != 429) {
+                                future.fail(result.body() == null ?
+                                        ServiceErrors.fromStatus(result.statusCode(), result.getHeader("Retry-After"), result.statusMessage()) :
+                                        ServiceErrors.fromResponse(result.statusCode(), result.getHeader("Retry-After"), result.body()));
+                            } else {
+                                future.complete(result);
+                            }
+                        }));
+            }).setHandler(result -> {
+                // A call rejected by the open breaker was never sent, so the caller is told when it may try again
+                if (result.failed() && !executed.get()) {
+                    final long retryAfter = breakerOpenedAt + BREAKER_RESET_TIMEOUT - System.currentTimeMillis();
+                    fut.handle(Future.failedFuture(ServiceErrors.unavailable(Math.max(1, retryAfter))));
+                }
+                else {
+                    fut.handle(result);
+                }
+            });
         }));
     }
 
+    /**
+     * Checks that the search response contains results. The API reports some errors, such as exceeding the rate limit,
+     * in a 200 response, so the status code alone can't be relied upon.
+     * @param response HttpResponse received from the Bing News Search API
+     * @return JsonObject holding the search results
+     * @throws io.vertx.serviceproxy.ServiceException if the response does not contain any search results
+     */
+    private JsonObject checkResponse(HttpResponse<JsonObject> response) {
+        final JsonObject body = response.body();
+
+        if (!body.containsKey("value")) {
+            throw ServiceErrors.fromResponse(response.statusCode(), response.getHeader("Retry-After"), body);
+        }
+
+        return body;
+    }
+
     /**
      * Retrieves the HttpRequest, configured for access to the Microsoft Cognitive Services API
      * @return HTTP client request object
      */
     private HttpRequest<JsonObject> getHttpRequest() {
 
-        return webClient.get(port, baseUrl, urlPath)
-                .putHeader("Ocp-Apim-Subscription-Key", apiKey)
+        return apiClient.getWebClient().get(port, baseUrl, urlPath)
+                .timeout(apiClient.getRequestTimeout())
                 .addQueryParam("mkt", "en-US")
                 .addQueryParam("freshness", freshness)
                 .addQueryParam("count", String.valueOf(resultCount))
                 .as(BodyCodec.jsonObject());
     }
 
-    /**
-     * Creates and returns an HttpClientOptions object. Values for each option are retrieved from the config json object
-     * (this config json object is passed in to the verticle when it is deployed)
-     *
-     * @return HttpClientOptions object to configure this verticles HttpClient
-     */
-    private WebClientOptions getWebClientOptions() {
-
-        return new WebClientOptions()
-                .setPipelining(true)
-                .setPipeliningLimit(10)
-                .setIdleTimeout(0)
-                .setSsl(!baseUrl.equalsIgnoreCase("localhost"))
-                .setKeepAlive(true);
-    }
-
     @Override
     public void getTimeout(Handler<AsyncResult<Long>> timeoutHandler) {
-        final long delay = timeoutDelay.get() - (System.currentTimeMillis() - timeoutTimeStamp.get());
-        timeoutHandler.handle(Future.succeededFuture(delay));
+        timeoutHandler.handle(Future.succeededFuture(apiKeys.getRemaining()));
     }
 
     @Override
     public void setTimeout(Long delay) {
-        timeoutTimeStamp.set(System.currentTimeMillis());
-        timeoutDelay.set(delay);
+        apiKeys.throttle(delay);
     }
 }
@@ -0,0 +1,137 @@
+package com.gofish.sentiment.newslinker;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Typed view of the entities which an article is about (its 'about' array). Entity names are indexed once, case
+ * folded, so that linked entities can be merged into the article in a single pass, with a constant time check for
+ * whether the article already has each one. Shared by the remote and local NewsLinkerService implementations, so that
+ * both update articles in the same way.
+ *
+ * @author Luke Herron
+ */
+public final class ArticleEntities {
+
+    private final JsonArray about;
+    private final List<Entity> entities;
+    private final Set<String> names;
+
+    private ArticleEntities(JsonArray about) {
+        this.about = about;
+        this.entities = new ArrayList<>(about.size());
+        this.names = new HashSet<>(Math.max(16, about.size() * 2));
+
+        for (int i = 0; i < about.size(); i++) {
+            final JsonObject entity = about.getJsonObject(i);
+            final String name = entity.getString("name");
+
+            entities.add(new Entity(name, entity.getString("readLink")));
+            if (name != null) {
+                names.add(fold(name));
+            }
+        }
+    }
+
+    /**
+     * Creates the entity view of an article. If the article does not yet have an 'about' array, an empty one is added.
+     * @param article JsonObject which represents the news article
+     * @return ArticleEntities backed by the article's 'about' array
+     */
+    public static ArticleEntities of(JsonObject article) {
+        JsonArray about = article.getJsonArray("about");
+        if (about == null) {
+            about = new JsonArray();
+            article.put("about", about);
+        }
+
+        return new ArticleEntities(about);
+    }
+
+    /**
+     * Adds any linked entities which the article does not already have (compared by name, ignoring case) to the
+     * article's 'about' array
+     * @param linkedEntities JsonArray of entities, in the shape returned by the Entity Linking API
+     * @return the number of entities which were added
+     */
+    public int merge(JsonArray linkedEntities) {
+        int added = 0;
+        for (int i = 0; i < linkedEntities.size(); i++) {
+            if (add(linkedEntities.getJsonObject(i).getString("name"))) {
+                added++;
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Adds an entity, with an empty read link, if the article does not already have one of the same name
+     * @param name name of the entity
+     * @return true if the entity was added
+     */
+    public boolean add(String name) {
+        if (name == null || !names.add(fold(name))) {
+            return false;
+        }
+
+        entities.add(new Entity(name, ""));
+        about.add(new JsonObject().put("name", name).put("readLink", ""));
+
+        return true;
+    }
+
+    /**
+     * Retrieves the article's entities, in the order they appear in its 'about' array
+     * @return unmodifiable list of entities
+     */
+    public List<Entity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    /**
+     * Retrieves the number of entities the article is about
+     * @return the number of entities
+     */
+    public int size() {
+        return entities.size();
+    }
+
+    // Case folds a name in the same way as String.equalsIgnoreCase compares characters
+    private static String fold(String name) {
+        final char[] folded = new char[name.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+
+        return new String(folded);
+    }
+
+    /**
+     * An entity which an article is about
+     */
+    public static final class Entity {
+
+        private final String name;
+        private final String readLink;
+
+        Entity(String name, String readLink) {
+            this.name = name;
+            this.readLink = readLink;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getReadLink() {
+            return readLink;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.gofish.sentiment.newslinker;
+
+import com.gofish.sentiment.common.logging.SampledLogger;
+import com.gofish.sentiment.newslinker.gazetteer.Gazetteer;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonObject;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+
+/**
+ * NewsLinkerService implementation which links entities in-process, by matching the article text against an entity
+ * gazetteer, rather than calling the Entity Linking API. Linking an article is a single pass over its text, so it is
+ * performed directly on the calling thread. Articles are updated in the same way as by the remote implementation.
+ *
+ * @author Luke Herron
+ */
+public class LocalNewsLinkerServiceImpl implements NewsLinkerService {
+
+    private static final SampledLogger HOT_PATH_LOG = SampledLogger.getLogger(LocalNewsLinkerServiceImpl.class);
+
+    private final Gazetteer gazetteer;
+
+    public LocalNewsLinkerServiceImpl(JsonObject config) {
+        this(loadGazetteer(config.getString("gazetteer.path")));
+    }
+
+    LocalNewsLinkerServiceImpl(Gazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+    }
+
+    @Override
+    public void linkEntities(JsonObject article, Handler<AsyncResult<JsonObject>> resultHandler) {
+        final String articleName = article.getString("name");
+        final String articleDescription = article.getString("description");
+
+        HOT_PATH_LOG.info("Starting local entity linking for article ''{0}''", articleName);
+
+        if (articleName == null && articleDescription == null) {
+            resultHandler.handle(Future.failedFuture("Invalid Request"));
+        }
+        else if (articleName == null) {
+            resultHandler.handle(Future.failedFuture("Invalid article headline supplied"));
+        }
+        else if (articleDescription == null) {
+            resultHandler.handle(Future.failedFuture("Invalid article lead paragraph supplied"));
+        }
+        else {
+            final JsonObject linkerResponse = gazetteer.link(String.join(". ", articleName, articleDescription));
+            ArticleEntities.of(article).merge(linkerResponse.getJsonArray("entities"));
+            resultHandler.handle(Future.succeededFuture(article));
+        }
+    }
+
+    @Override
+    public void getTimeout(Handler<AsyncResult<Long>> timeoutHandler) {
+        // There is no API rate limit to respect
+        timeoutHandler.handle(Future.succeededFuture(0L));
+    }
+
+    @Override
+    public void setTimeout(Long delay) {
+        // There is no API rate limit to respect
+    }
+
+    /**
+     * Loads the gazetteer from the supplied path, or the gazetteer bundled with the news linker if there is none
+     * @param path path to the gazetteer file, may be null
+     * @return the loaded Gazetteer
+     */
+    private static Gazetteer loadGazetteer(String path) {
+        if (path == null) {
+            return Gazetteer.getDefault();
+        }
+
+        try {
+            return Gazetteer.load(new FileInputStream(path));
+        }
+        catch (FileNotFoundException e) {
+            throw new IllegalArgumentException("Gazetteer not found at " + path, e);
+        }
+    }
+}
@@ -18,14 +18,26 @@ public interface NewsLinkerService {
     String NAME = "newslinker-eventbus-service";
     String ADDRESS = "sentiment.service.linker";
 
+    String MODE_REMOTE = "remote";
+    String MODE_LOCAL = "local";
+
     /**
-     * Factory method for creating NewsLinkerService instance
+     * Factory method for creating NewsLinkerService instance. The "linker.mode" config value selects the
+     * implementation: "remote" (the default) links entities with the Entity Linking API, while "local" matches them
+     * in-process against an entity gazetteer.
      * @param vertx Vertx instance
      * @param config JsonObject for configuring the NewsAnalyserService
      * @return NewsAnalyserService object
      */
     static NewsLinkerService create(Vertx vertx, JsonObject config) {
-        return new NewsLinkerServiceImpl(vertx, config);
+        switch (config.getString("linker.mode", MODE_REMOTE)) {
+            case MODE_LOCAL:
+                return new LocalNewsLinkerServiceImpl(config);
+            case MODE_REMOTE:
+                return new NewsLinkerServiceImpl(vertx, config);
+            default:
+                throw new IllegalArgumentException("Unknown linker mode " + config.getString("linker.mode"));
+        }
     }
 
     /**
@@ -1,5 +1,10 @@
 package com.gofish.sentiment.newslinker;
 
+import com.gofish.sentiment.common.error.ServiceErrors;
+import com.gofish.sentiment.common.http.ApiClient;
+import com.gofish.sentiment.common.logging.SampledLogger;
+import com.gofish.sentiment.common.quota.ApiKey;
+import com.gofish.sentiment.common.quota.ApiKeyPool;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
 import io.vertx.core.AsyncResult;
@@ -11,63 +16,57 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
-import io.vertx.core.streams.ReadStream;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
-import io.vertx.ext.web.client.WebClient;
-import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.codec.BodyCodec;
 import io.vertx.rx.java.RxHelper;
 import io.vertx.rx.java.SingleOnSubscribeAdapter;
-import rx.Observable;
 import rx.Single;
 
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Luke Herron
  */
 public class NewsLinkerServiceImpl implements NewsLinkerService {
 
+    private static final long BREAKER_RESET_TIMEOUT = 30000;
     private static final Logger LOG = LoggerFactory.getLogger(NewsLinkerServiceImpl.class);
+    private static final SampledLogger HOT_PATH_LOG = SampledLogger.getLogger(NewsLinkerServiceImpl.class);
 
     private final Vertx vertx;
-    private final WebClient webClient;
+    private final ApiClient apiClient;
     private final HttpRequest<JsonObject> request;
     private final CircuitBreaker breaker;
-    private final String apiKey;
+    private volatile long breakerOpenedAt;
+    private final ApiKeyPool apiKeys;
     private final String baseUrl;
     private final String urlPath;
     private final Integer port;
 
-    private final AtomicLong timeoutTimeStamp;
-    private final AtomicLong timeoutDelay;
-
     public NewsLinkerServiceImpl(Vertx vertx, JsonObject config) {
         this.vertx = vertx;
         JsonObject apiConfig = config.getJsonObject("api");
-        apiKey = apiConfig.getString("key", "");
+        apiKeys = ApiKeyPool.create(vertx, NewsLinkerService.name(), apiConfig);
         baseUrl = apiConfig.getString("base.url", "");
         urlPath = apiConfig.getString("url.path", "");
         port = apiConfig.getInteger("port", 443);
 
-        webClient = WebClient.create(vertx, getWebClientOptions());
+        apiClient = ApiClient.createShared(vertx, NewsLinkerService.name(), apiConfig);
         request = getHttpRequest();
         breaker = CircuitBreaker.create("newslinker-circuit-breaker", vertx,
-                new CircuitBreakerOptions().setMaxRetries(5).setMaxFailures(5).setTimeout(30000).setResetTimeout(30000));
-
-        timeoutTimeStamp = new AtomicLong(0);
-        timeoutDelay = new AtomicLong(0);
+                new CircuitBreakerOptions().setMaxRetries(5).setMaxFailures(5).setTimeout(30000).setResetTimeout(BREAKER_RESET_TIMEOUT))
+                .openHandler(v -> breakerOpenedAt = System.currentTimeMillis());
     }
 
     @Override
     public void linkEntities(JsonObject article, Handler<AsyncResult<JsonObject>> resultHandler) {
-        LOG.info("Starting entity linking");
-
         final String articleName = article.getString("name");
         final String articleDescription = article.getString("description");
 
+        HOT_PATH_LOG.info("Starting entity linking for article ''{0}''", articleName);
+
         if (articleName == null && articleDescription == null) {
             resultHandler.handle(Future.failedFuture("Invalid Request"));
         }
@@ -77,66 +76,75 @@ public class NewsLinkerServiceImpl implements NewsLinkerService {
         else if (articleDescription == null) {
             resultHandler.handle(Future.failedFuture("Invalid article lead paragraph supplied"));
         }
-
-        final String text = String.join(". ", articleName, articleDescription);
-        final Buffer buffer = Buffer.buffer(text);
-        final ReadStream<Buffer> readStream = RxHelper.toReadStream(Observable.just(buffer));
-
-        rxLinkEntities(readStream)
-                .map(HttpResponse::body)
-                .flatMap(body -> rxAddNewEntities(article, body))
-                .subscribe(RxHelper.toSubscriber(resultHandler));
+        else {
+            final Buffer requestData = TextBody.join(". ", articleName, articleDescription);
+
+            Single.fromCallable(apiKeys::select)
+                    .flatMap(apiKey -> rxLinkEntities(requestData, apiKey)
+                            .flatMap(response -> rxAddNewEntities(article, response))
+                            .doOnError(apiKey::recordFailure))
+                    .subscribe(RxHelper.toSubscriber(resultHandler));
+        }
     }
 
     /**
      * Takes request data and sends it to the Microsoft Cognitive Services API. This API processes the text submitted in
      * the request and returns a response containing entity linked keywords
-     * @param readStream ReadStream buffer representing the request data to send
+     * @param requestData Buffer holding the request data to send
+     * @param apiKey ApiKey to send the request with
      * @return Single which emits the result of the HttpResponse
      */
-    private Single<HttpResponse<JsonObject>> rxLinkEntities(ReadStream<Buffer> readStream) {
-
-        return Single.create(new SingleOnSubscribeAdapter<HttpResponse<JsonObject>>(fut ->
-                breaker.<HttpResponse<JsonObject>>execute(future -> {
-                    request.sendStream(readStream, response -> {
-                        if (response.failed()) {
-                            LOG.error(response.cause().getMessage(), response.cause());
-                            future.fail(response.cause());
-                        }
-
-                        HttpResponse<JsonObject> result = response.result();
-                        if (result.statusCode() != 200 && result.statusCode() != 429) {
-                            future.fail(result.body() == null ? result.statusMessage() : result.body().encode());
-                        } else {
-                            future.complete(result);
-                        }
-                    });
-                }).setHandler(fut)));
+    private Single<HttpResponse<JsonObject>> rxLinkEntities(Buffer requestData, ApiKey apiKey) {
+
+        return Single.create(new SingleOnSubscribeAdapter<HttpResponse<JsonObject>>(fut -> {
+            final AtomicBoolean executed = new AtomicBoolean(false);
+            breaker.<HttpResponse<JsonObject>>execute(future -> {
+                executed.set(true);
+                request.copy()
+                        .putHeader("Ocp-Apim-Subscription-Key", apiKey.getKey())
+                        .sendBuffer(requestData, apiClient.track(baseUrl, port, response -> {
+                            if (response.failed()) {
+                                LOG.error(response.cause().getMessage(), response.cause());
+                                future.fail(response.cause());
+                                return;
+                            }
+
+                            HttpResponse<JsonObject> result = response.result();
+                            if (result.statusCode() != 200 && result.statusCode() != 429) {
+                                future.fail(result.body() == null ?
+                                        ServiceErrors.fromStatus(result.statusCode(), result.getHeader("Retry-After"), result.statusMessage()) :
+                                        ServiceErrors.fromResponse(result.statusCode(), result.getHeader("Retry-After"), result.body()));
+                            } else {
+                                future.complete(result);
+                            }
+                        }));
+            }).setHandler(result -> {
+                // A call rejected by the open breaker was never sent, so the caller is told when it may try again
+                if (result.failed() && !executed.get()) {
+                    final long retryAfter = breakerOpenedAt + BREAKER_RESET_TIMEOUT - System.currentTimeMillis();
+                    fut.handle(Future.failedFuture(ServiceErrors.unavailable(Math.max(1, retryAfter))));
+                }
+                else {
+                    fut.handle(result);
+                }
+            });
+        }));
     }
 
     /**
-     * Updates a supplied news article with the supplied entity linking response
+     * Updates a supplied news article with the supplied entity linking response. If the response does not contain any
+     * results (e.g. the API rate limit has been exceeded), a ServiceException describing the error is emitted.
      * @param article JsonObject which represents the news article to be updated with the linking results
-     * @param linkerResponse JsonObject which holds the entity linking results
+     * @param response HttpResponse which holds the entity linking results
      * @return Single which emits the news article which has been updated with the linking results
      */
-    private Single<JsonObject> rxAddNewEntities(JsonObject article, JsonObject linkerResponse) {
+    private Single<JsonObject> rxAddNewEntities(JsonObject article, HttpResponse<JsonObject> response) {
+        final JsonObject linkerResponse = response.body();
         JsonArray responseEntities = Optional.ofNullable(linkerResponse.getJsonArray("entities"))
-                .orElseThrow(() -> new RuntimeException(linkerResponse.containsKey("error") ?
-                        linkerResponse.encode() : new JsonObject().put("error", linkerResponse).encode()));
-
-        JsonArray articleEntities = article.getJsonArray("about", new JsonArray());
-
-        // Add any entities to articleEntities if they can only be found in responseEntities
-        responseEntities.stream()
-                .map(entity -> (JsonObject) entity)
-                .filter(entity -> articleEntities.stream()
-                        .map(articleEntity -> ((JsonObject) articleEntity).getString("name"))
-                        .noneMatch(name -> entity.getString("name").equalsIgnoreCase(name)))
-                .map(entity -> new JsonObject()
-                        .put("name", entity.getString("name"))
-                        .put("readLink", ""))
-                .forEach(articleEntities::add);
+                .orElseThrow(() -> ServiceErrors.fromResponse(response.statusCode(), response.getHeader("Retry-After"),
+                        linkerResponse.containsKey("error") ? linkerResponse : new JsonObject().put("error", linkerResponse)));
+
+        ArticleEntities.of(article).merge(responseEntities);
 
         return Single.just(article);
     }
@@ -146,35 +154,19 @@ public class NewsLinkerServiceImpl implements NewsLinkerService {
      * @return HTTP client request object
      */
     private HttpRequest<JsonObject> getHttpRequest() {
-        return webClient.post(port, baseUrl, urlPath)
+        return apiClient.getWebClient().post(port, baseUrl, urlPath)
+                .timeout(apiClient.getRequestTimeout())
                 .putHeader("Content-Type", "text/plain; charset=UTF-8")
-                .putHeader("Ocp-Apim-Subscription-Key", apiKey)
                 .as(BodyCodec.jsonObject());
     }
 
-    /**
-     * Creates and returns an HttpClientOptions object. Values for each option are retrieved from the config json object
-     * (this config json object is passed in to the verticle when it is deployed)
-     * @return HttpClientOptions object to configure this verticles HttpClient
-     */
-    private WebClientOptions getWebClientOptions() {
-        return new WebClientOptions()
-                .setPipelining(true)
-                .setPipeliningLimit(10)
-                .setIdleTimeout(0)
-                .setSsl(!baseUrl.equalsIgnoreCase("localhost"))
-                .setKeepAlive(true);
-    }
-
     @Override
     public void getTimeout(Handler<AsyncResult<Long>> timeoutHandler) {
-        final long delay = timeoutDelay.get() - (System.currentTimeMillis() - timeoutTimeStamp.get());
-        timeoutHandler.handle(Future.succeededFuture(delay));
+        timeoutHandler.handle(Future.succeededFuture(apiKeys.getRemaining()));
     }
 
     @Override
     public void setTimeout(Long delay) {
-        timeoutTimeStamp.set(System.currentTimeMillis());
-        timeoutDelay.set(delay);
+        apiKeys.throttle(delay);
     }
 }
@@ -1,7 +1,9 @@
 package com.gofish.sentiment.newslinker;
 
+import com.gofish.sentiment.common.discovery.LocalServices;
+import com.gofish.sentiment.common.discovery.LocalServices.ServiceRegistration;
+import com.gofish.sentiment.common.discovery.NodeRecords;
 import io.vertx.core.Future;
-import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
@@ -9,9 +11,7 @@ import io.vertx.rx.java.ObservableFuture;
 import io.vertx.rx.java.RxHelper;
 import io.vertx.rxjava.core.AbstractVerticle;
 import io.vertx.rxjava.servicediscovery.ServiceDiscovery;
-import io.vertx.rxjava.servicediscovery.types.EventBusService;
 import io.vertx.servicediscovery.Record;
-import io.vertx.serviceproxy.ProxyHelper;
 
 import java.util.Optional;
 
@@ -22,7 +22,7 @@ public class NewsLinkerVerticle extends AbstractVerticle {
 
     private static final Logger LOG = LoggerFactory.getLogger(NewsLinkerVerticle.class);
 
-    private MessageConsumer<JsonObject> messageConsumer;
+    private ServiceRegistration registration;
     private ServiceDiscovery serviceDiscovery;
     private Record record;
 
@@ -34,24 +34,25 @@ public class NewsLinkerVerticle extends AbstractVerticle {
                 .orElseThrow(() -> new RuntimeException("Could not load linker verticle configuration"));
 
         com.gofish.sentiment.newslinker.rxjava.NewsLinkerService newsLinkerService = com.gofish.sentiment.newslinker.rxjava.NewsLinkerService.create(vertx, config);
-        messageConsumer = ProxyHelper.registerService(NewsLinkerService.class, vertx.getDelegate(), newsLinkerService.getDelegate(), NewsLinkerService.ADDRESS);
+        registration = LocalServices.registerService(NewsLinkerService.class, vertx.getDelegate(), newsLinkerService.getDelegate(), NewsLinkerService.ADDRESS);
 
         serviceDiscovery = ServiceDiscovery.create(vertx, serviceDiscovery -> {
             LOG.info("Service Discovery intialised");
-            record = EventBusService.createRecord(NewsLinkerService.NAME, NewsLinkerService.ADDRESS, NewsLinkerService.class.getName());
+            record = LocalServices.createRecord(NewsLinkerService.NAME, NewsLinkerService.ADDRESS, NewsLinkerService.class.getName());
 
-            serviceDiscovery.rxPublish(record)
-                    .subscribe(r -> startFuture.complete(), startFuture::fail);
+            NodeRecords.publish(vertx.getDelegate(), serviceDiscovery.getDelegate(), record, startFuture.completer());
         });
     }
 
     @Override
     public void stop(Future<Void> stopFuture) throws Exception {
-        ObservableFuture<Void> messageConsumerObservable = new ObservableFuture<>();
-        serviceDiscovery.rxUnpublish(record.getRegistration())
-                .flatMapObservable(v -> {
-                    messageConsumer.unregister(messageConsumerObservable.toHandler());
-                    return messageConsumerObservable;
+        ObservableFuture<Void> unpublishObservable = new ObservableFuture<>();
+        ObservableFuture<Void> unregisterObservable = new ObservableFuture<>();
+        NodeRecords.unpublish(vertx.getDelegate(), serviceDiscovery.getDelegate(), record.getName(), unpublishObservable.toHandler());
+        unpublishObservable
+                .flatMap(v -> {
+                    registration.unregister(unregisterObservable.toHandler());
+                    return unregisterObservable;
                 })
                 .doOnNext(v -> serviceDiscovery.close())
                 .subscribe(RxHelper.toSubscriber(stopFuture));
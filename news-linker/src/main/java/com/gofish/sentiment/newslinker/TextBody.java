@@ -0,0 +1,108 @@
+package com.gofish.sentiment.newslinker;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Encodes plain text request bodies. The text is UTF-8 encoded straight into a buffer of exactly the required size,
+ * without first joining it into an intermediate String, and without the per call encoder and growing copies which
+ * Buffer.buffer(String) incurs. The encoder is stateless, so a single one serves every call.
+ *
+ * @author Luke Herron
+ */
+final class TextBody {
+
+    private static final byte REPLACEMENT = '?';
+
+    private TextBody() {}
+
+    /**
+     * Joins the parts with the delimiter (as String.join does) and encodes the result as UTF-8
+     * @param delimiter the delimiter which separates each part
+     * @param parts the parts to be joined
+     * @return Buffer holding the encoded text
+     */
+    static Buffer join(CharSequence delimiter, CharSequence... parts) {
+        int length = utf8Length(delimiter) * Math.max(0, parts.length - 1);
+        for (CharSequence part : parts) {
+            length += utf8Length(part);
+        }
+
+        final byte[] bytes = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                offset = encode(delimiter, bytes, offset);
+            }
+            offset = encode(parts[i], bytes, offset);
+        }
+
+        return Buffer.buffer(Unpooled.wrappedBuffer(bytes));
+    }
+
+    /**
+     * Computes the number of bytes needed to UTF-8 encode the text. Unpaired surrogates are counted as the single byte
+     * replacement ('?') which is written for them, as String.getBytes does.
+     * @param text the text to be measured
+     * @return the encoded length in bytes
+     */
+    static int utf8Length(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            }
+            else if (c < 0x800) {
+                length += 2;
+            }
+            else if (!Character.isSurrogate(c)) {
+                length += 3;
+            }
+            else if (isSurrogatePair(text, i)) {
+                length += 4;
+                i++;
+            }
+            else {
+                length++;
+            }
+        }
+
+        return length;
+    }
+
+    private static int encode(CharSequence text, byte[] bytes, int offset) {
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[offset++] = (byte) c;
+            }
+            else if (c < 0x800) {
+                bytes[offset++] = (byte) (0xC0 | (c >> 6));
+                bytes[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (!Character.isSurrogate(c)) {
+                bytes[offset++] = (byte) (0xE0 | (c >> 12));
+                bytes[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (isSurrogatePair(text, i)) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                bytes[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            else {
+                bytes[offset++] = REPLACEMENT;
+            }
+        }
+
+        return offset;
+    }
+
+    private static boolean isSurrogatePair(CharSequence text, int index) {
+        return Character.isHighSurrogate(text.charAt(index)) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1));
+    }
+}
@@ -0,0 +1,216 @@
+package com.gofish.sentiment.newslinker.gazetteer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton for finding every occurrence of a set of patterns in a text in a single pass. Matching is
+ * case-insensitive.
+ *
+ * The automaton is built once, then flattened into arrays: the transitions out of each state are held as a sorted run
+ * of characters (with their target states) in a pair of shared arrays, so a transition is found with a binary search
+ * over the state's run. This keeps the automaton compact (a few bytes per transition) and free of per-state objects.
+ *
+ * @author Luke Herron
+ */
+public class AhoCorasick {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    // Transitions: the edges out of state s are edgeChars/edgeTargets[edgeStart[s] .. edgeStart[s + 1])
+    private final int[] edgeStart;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] fail;
+
+    // The pattern which ends at each state (or NONE), and the nearest state along the fail chain which ends a pattern
+    private final int[] pattern;
+    private final int[] outputLink;
+    private final int[] patternLengths;
+
+    private AhoCorasick(int[] edgeStart, char[] edgeChars, int[] edgeTargets, int[] fail, int[] pattern,
+                        int[] outputLink, int[] patternLengths) {
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.pattern = pattern;
+        this.outputLink = outputLink;
+        this.patternLengths = patternLengths;
+    }
+
+    /**
+     * Builds an automaton for the supplied patterns. Where the same pattern appears more than once, matches are
+     * reported against its first index.
+     * @param patterns the patterns to match
+     * @return the AhoCorasick automaton
+     */
+    public static AhoCorasick build(List<String> patterns) {
+        // Build the trie using maps, which are then discarded once the automaton is flattened
+        final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        final List<Integer> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(NONE);
+
+        final int[] patternLengths = new int[patterns.size()];
+
+        for (int i = 0; i < patterns.size(); i++) {
+            final String patternText = patterns.get(i);
+            int state = ROOT;
+
+            for (int j = 0; j < patternText.length(); j++) {
+                final char c = Character.toLowerCase(patternText.charAt(j));
+                Integer next = trie.get(state).get(c);
+
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    terminal.add(NONE);
+                    trie.get(state).put(c, next);
+                }
+
+                state = next;
+            }
+
+            patternLengths[i] = patternText.length();
+            if (terminal.get(state) == NONE && !patternText.isEmpty()) {
+                terminal.set(state, i);
+            }
+        }
+
+        final int states = trie.size();
+        final int[] edgeStart = new int[states + 1];
+        final int edges = trie.stream().mapToInt(TreeMap::size).sum();
+        final char[] edgeChars = new char[edges];
+        final int[] edgeTargets = new int[edges];
+        final int[] pattern = new int[states];
+
+        int edge = 0;
+        for (int state = 0; state < states; state++) {
+            edgeStart[state] = edge;
+            pattern[state] = terminal.get(state);
+
+            for (Map.Entry<Character, Integer> entry : trie.get(state).entrySet()) {
+                edgeChars[edge] = entry.getKey();
+                edgeTargets[edge] = entry.getValue();
+                edge++;
+            }
+        }
+        edgeStart[states] = edge;
+
+        final AhoCorasick automaton = new AhoCorasick(edgeStart, edgeChars, edgeTargets, new int[states], pattern,
+                new int[states], patternLengths);
+        automaton.buildFailLinks();
+
+        return automaton;
+    }
+
+    /**
+     * Finds every occurrence of the patterns in the text
+     * @param text the text to search
+     * @param listener called for each occurrence found, in order of where the occurrence ends
+     */
+    public void search(CharSequence text, MatchListener listener) {
+        int state = ROOT;
+
+        for (int i = 0; i < text.length(); i++) {
+            final char c = Character.toLowerCase(text.charAt(i));
+
+            int next = transition(state, c);
+            while (next == NONE && state != ROOT) {
+                state = fail[state];
+                next = transition(state, c);
+            }
+            state = next == NONE ? ROOT : next;
+
+            int output = pattern[state] != NONE ? state : outputLink[state];
+            for (; output != NONE; output = outputLink[output]) {
+                final int patternIndex = pattern[output];
+                listener.onMatch(patternIndex, i - patternLengths[patternIndex] + 1, i + 1);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of states in the automaton
+     * @return the number of states
+     */
+    public int size() {
+        return fail.length;
+    }
+
+    private int transition(int state, char c) {
+        int low = edgeStart[state];
+        int high = edgeStart[state + 1] - 1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final char midChar = edgeChars[mid];
+
+            if (midChar < c) {
+                low = mid + 1;
+            }
+            else if (midChar > c) {
+                high = mid - 1;
+            }
+            else {
+                return edgeTargets[mid];
+            }
+        }
+
+        return NONE;
+    }
+
+    private void buildFailLinks() {
+        final Deque<Integer> queue = new ArrayDeque<>();
+        fail[ROOT] = ROOT;
+        outputLink[ROOT] = NONE;
+
+        for (int edge = edgeStart[ROOT]; edge < edgeStart[ROOT + 1]; edge++) {
+            fail[edgeTargets[edge]] = ROOT;
+            outputLink[edgeTargets[edge]] = NONE;
+            queue.add(edgeTargets[edge]);
+        }
+
+        // Breadth first, so that the fail link of every shallower state is known before it is needed
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+
+            for (int edge = edgeStart[state]; edge < edgeStart[state + 1]; edge++) {
+                final char c = edgeChars[edge];
+                final int target = edgeTargets[edge];
+
+                int fallback = fail[state];
+                int next = transition(fallback, c);
+                while (next == NONE && fallback != ROOT) {
+                    fallback = fail[fallback];
+                    next = transition(fallback, c);
+                }
+
+                fail[target] = next == NONE || next == target ? ROOT : next;
+                outputLink[target] = pattern[fail[target]] != NONE ? fail[target] : outputLink[fail[target]];
+                queue.add(target);
+            }
+        }
+    }
+
+    /**
+     * Receives the occurrences found by a search
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+
+        /**
+         * Called for each occurrence of a pattern
+         * @param patternIndex the index of the pattern which was found
+         * @param start the offset of the first character of the occurrence
+         * @param end the offset after the last character of the occurrence
+         */
+        void onMatch(int patternIndex, int start, int end);
+    }
+}
@@ -0,0 +1,201 @@
+package com.gofish.sentiment.newslinker.gazetteer;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entity gazetteer, used to link entities in text without calling the Entity Linking API. Each entity has a name, a
+ * wikipedia id and any number of aliases (the name itself is always an alias). Every alias is compiled into a single
+ * Aho-Corasick automaton when the gazetteer is loaded, so all of them are found in one pass over the text.
+ *
+ * The gazetteer file holds one entity per line, as tab separated values:
+ * <pre>
+ * name    wikipediaId    alias|alias|...
+ * </pre>
+ * Aliases are optional, and if the wikipedia id is omitted the name is used. Matching is case-insensitive, except for
+ * aliases written entirely in capitals (i.e. acronyms such as "WHO" or "US"), which would otherwise match common words.
+ *
+ * @author Luke Herron
+ */
+public class Gazetteer {
+
+    private static final String DEFAULT_GAZETTEER = "gazetteer/entities.tsv";
+
+    private static volatile Gazetteer defaultGazetteer;
+
+    private final String[] entityNames;
+    private final String[] wikipediaIds;
+    private final String[] aliases;
+    private final int[] aliasEntities;
+    private final boolean[] caseSensitive;
+    private final AhoCorasick automaton;
+
+    private Gazetteer(String[] entityNames, String[] wikipediaIds, String[] aliases, int[] aliasEntities) {
+        this.entityNames = entityNames;
+        this.wikipediaIds = wikipediaIds;
+        this.aliases = aliases;
+        this.aliasEntities = aliasEntities;
+        this.caseSensitive = new boolean[aliases.length];
+        this.automaton = AhoCorasick.build(Arrays.asList(aliases));
+
+        for (int i = 0; i < aliases.length; i++) {
+            caseSensitive[i] = aliases[i].equals(aliases[i].toUpperCase());
+        }
+    }
+
+    /**
+     * Retrieves the gazetteer bundled with the news linker. It is loaded on first use and then shared.
+     * @return the default Gazetteer
+     */
+    public static Gazetteer getDefault() {
+        if (defaultGazetteer == null) {
+            synchronized (Gazetteer.class) {
+                if (defaultGazetteer == null) {
+                    defaultGazetteer = load(Gazetteer.class.getClassLoader().getResourceAsStream(DEFAULT_GAZETTEER));
+                }
+            }
+        }
+
+        return defaultGazetteer;
+    }
+
+    /**
+     * Loads a gazetteer and compiles its automaton
+     * @param inputStream stream holding the gazetteer file, which is closed once read
+     * @return the compiled Gazetteer
+     */
+    public static Gazetteer load(InputStream inputStream) {
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Gazetteer not found");
+        }
+
+        final List<String> names = new ArrayList<>();
+        final List<String> ids = new ArrayList<>();
+        final List<String> aliases = new ArrayList<>();
+        final List<Integer> aliasEntities = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                final String[] fields = line.split("\t");
+                final String name = fields[0].trim();
+                final int entity = names.size();
+
+                names.add(name);
+                ids.add(fields.length > 1 && !fields[1].trim().isEmpty() ? fields[1].trim() : name);
+                aliases.add(name);
+                aliasEntities.add(entity);
+
+                if (fields.length > 2) {
+                    for (String alias : fields[2].split("\\|")) {
+                        if (!alias.trim().isEmpty()) {
+                            aliases.add(alias.trim());
+                            aliasEntities.add(entity);
+                        }
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new Gazetteer(names.toArray(new String[0]), ids.toArray(new String[0]), aliases.toArray(new String[0]),
+                aliasEntities.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Links the entities mentioned in the text. Only whole words are matched, and where matches overlap the longest
+     * is kept e.g. "Apple Inc." rather than "Apple".
+     * @param text the text to be linked
+     * @return JsonObject with the same shape as an Entity Linking API response i.e. an 'entities' array, in which each
+     * entity has its 'name', 'wikipediaId', 'score' and the 'matches' (text and offsets) where it was found
+     */
+    public JsonObject link(CharSequence text) {
+        final List<int[]> matches = new ArrayList<>();
+
+        automaton.search(text, (alias, start, end) -> {
+            if (isBoundary(text, start - 1) && isBoundary(text, end) && matchesCase(text, alias, start)) {
+                matches.add(new int[] { alias, start, end });
+            }
+        });
+
+        // Resolve overlapping matches, preferring the earliest and then the longest
+        matches.sort(Comparator.<int[]>comparingInt(match -> match[1]).thenComparingInt(match -> match[1] - match[2]));
+
+        final Map<Integer, Map<String, JsonArray>> entityMatches = new LinkedHashMap<>();
+        int lastEnd = 0;
+
+        for (int[] match : matches) {
+            if (match[1] < lastEnd) {
+                continue;
+            }
+
+            lastEnd = match[2];
+            entityMatches.computeIfAbsent(aliasEntities[match[0]], entity -> new LinkedHashMap<>())
+                    .computeIfAbsent(text.subSequence(match[1], match[2]).toString(), matchText -> new JsonArray())
+                    .add(new JsonObject().put("offset", match[1]));
+        }
+
+        final JsonArray entities = new JsonArray();
+        entityMatches.forEach((entity, entityMatch) -> {
+            final JsonArray matchArray = new JsonArray();
+            entityMatch.forEach((matchText, entries) -> matchArray.add(new JsonObject()
+                    .put("text", matchText)
+                    .put("entries", entries)));
+
+            entities.add(new JsonObject()
+                    .put("matches", matchArray)
+                    .put("name", entityNames[entity])
+                    .put("wikipediaId", wikipediaIds[entity])
+                    // A gazetteer match is exact, but we have no context with which to disambiguate it
+                    .put("score", 1.0));
+        });
+
+        return new JsonObject().put("entities", entities);
+    }
+
+    /**
+     * Retrieves the number of entities in the gazetteer
+     * @return the number of entities
+     */
+    public int size() {
+        return entityNames.length;
+    }
+
+    private boolean matchesCase(CharSequence text, int alias, int start) {
+        if (!caseSensitive[alias]) {
+            return true;
+        }
+
+        final String aliasText = aliases[alias];
+        for (int i = 0; i < aliasText.length(); i++) {
+            if (text.charAt(start + i) != aliasText.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+}
@@ -0,0 +1,57 @@
+package com.gofish.sentiment.newslinker;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class ArticleEntitiesTest {
+
+    @Test
+    public void testMergeAddsOnlyNewEntities() {
+        JsonObject existing = new JsonObject().put("name", "Apple Inc.").put("readLink", "link");
+        JsonObject article = new JsonObject().put("about", new JsonArray().add(existing));
+        JsonArray linkedEntities = new JsonArray()
+                .add(new JsonObject().put("name", "APPLE INC."))
+                .add(new JsonObject().put("name", "Tim Cook"))
+                .add(new JsonObject().put("name", "tim cook"));
+
+        ArticleEntities entities = ArticleEntities.of(article);
+
+        assertEquals(1, entities.merge(linkedEntities));
+        assertEquals(2, entities.size());
+        assertSame(existing, article.getJsonArray("about").getJsonObject(0));
+        assertEquals(new JsonObject().put("name", "Tim Cook").put("readLink", ""),
+                article.getJsonArray("about").getJsonObject(1));
+    }
+
+    @Test
+    public void testMergeAddsAboutArrayWhenMissing() {
+        JsonObject article = new JsonObject();
+
+        ArticleEntities.of(article).merge(new JsonArray().add(new JsonObject().put("name", "Apple Inc.")));
+
+        assertEquals(1, article.getJsonArray("about").size());
+    }
+
+    @Test
+    public void testEntitiesAreTyped() {
+        JsonObject article = new JsonObject().put("about", new JsonArray()
+                .add(new JsonObject().put("name", "Apple Inc.").put("readLink", "link")));
+        ArticleEntities entities = ArticleEntities.of(article);
+
+        assertTrue(entities.add("iPhone"));
+        assertFalse(entities.add("IPHONE"));
+        assertFalse(entities.add(null));
+        assertEquals("link", entities.getEntities().get(0).getReadLink());
+        assertEquals("iPhone", entities.getEntities().get(1).getName());
+        assertEquals("", entities.getEntities().get(1).getReadLink());
+    }
+}
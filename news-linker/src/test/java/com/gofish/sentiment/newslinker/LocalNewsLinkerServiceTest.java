@@ -0,0 +1,64 @@
+package com.gofish.sentiment.newslinker;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class LocalNewsLinkerServiceTest {
+
+    @Rule
+    public final RunTestOnContext vertxRule = new RunTestOnContext();
+
+    private NewsLinkerService newsLinkerService;
+
+    @Before
+    public void setUp() {
+        Vertx vertx = vertxRule.vertx();
+        newsLinkerService = NewsLinkerService.create(vertx, new JsonObject().put("linker.mode", "local"));
+    }
+
+    @Test
+    public void testLocalModeCreatesLocalService(TestContext context) {
+        context.assertTrue(newsLinkerService instanceof LocalNewsLinkerServiceImpl);
+    }
+
+    @Test
+    public void testNewsLinkerAddsNewEntities(TestContext context) {
+        JsonObject article = new JsonObject()
+                .put("name", "Apple unveils new iPhone")
+                .put("description", "Tim Cook took to the stage in Cupertino")
+                .put("about", new JsonArray().add(new JsonObject().put("name", "apple inc.").put("readLink", "link")));
+
+        newsLinkerService.linkEntities(article, context.asyncAssertSuccess(result -> {
+            JsonArray about = result.getJsonArray("about");
+            context.assertEquals("link", about.getJsonObject(0).getString("readLink"));
+            context.assertTrue(about.stream().map(entity -> ((JsonObject) entity).getString("name"))
+                    .filter("Apple Inc."::equalsIgnoreCase).count() == 1);
+            context.assertTrue(about.contains(new JsonObject().put("name", "iPhone").put("readLink", "")));
+            context.assertTrue(about.contains(new JsonObject().put("name", "Tim Cook").put("readLink", "")));
+        }));
+    }
+
+    @Test
+    public void testNewsLinkerFailsOnInvalidJsonObjectParameter(TestContext context) {
+        newsLinkerService.linkEntities(new JsonObject(), context.asyncAssertFailure(cause ->
+                context.assertEquals("Invalid Request", cause.getMessage())));
+    }
+
+    @Test
+    public void testTimeoutIsAlwaysZero(TestContext context) {
+        newsLinkerService.setTimeout(1000L);
+        newsLinkerService.getTimeout(context.asyncAssertSuccess(timeout -> context.assertEquals(0L, timeout)));
+    }
+}
@@ -0,0 +1,39 @@
+package com.gofish.sentiment.newslinker;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Luke Herron
+ */
+public class TextBodyTest {
+
+    @Test
+    public void testJoinMatchesStringJoin() {
+        assertJoinMatches("Apple shatters market records", "Shares rose 5% overnight");
+        assertJoinMatches("Apple\u2019s W1 chip", "Caf\u00e9 prices \u20ac3");
+        assertJoinMatches("Emoji \ud83d\ude00 headline", "");
+    }
+
+    @Test
+    public void testUnpairedSurrogatesAreReplaced() {
+        assertJoinMatches("Broken \ud83d headline", "and \ude00 lead");
+        assertJoinMatches("Trailing \ud83d", "\ud83d\ud83d");
+    }
+
+    @Test
+    public void testUtf8Length() {
+        assertEquals(0, TextBody.utf8Length(""));
+        assertEquals(6, TextBody.utf8Length("a\u00e9\u20ac"));
+        assertEquals(4, TextBody.utf8Length("\ud83d\ude00"));
+    }
+
+    private static void assertJoinMatches(String name, String description) {
+        byte[] expected = String.join(". ", name, description).getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(expected, TextBody.join(". ", name, description).getBytes());
+    }
+}
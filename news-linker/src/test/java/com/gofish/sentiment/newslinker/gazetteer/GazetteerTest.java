@@ -0,0 +1,77 @@
+package com.gofish.sentiment.newslinker.gazetteer;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class GazetteerTest {
+
+    private final Gazetteer gazetteer = Gazetteer.getDefault();
+
+    @Test
+    public void testAutomatonFindsOverlappingPatterns() {
+        AhoCorasick automaton = AhoCorasick.build(Arrays.asList("he", "she", "his", "hers"));
+        List<String> matches = new ArrayList<>();
+
+        automaton.search("USHERS", (pattern, start, end) -> matches.add(pattern + ":" + start + "-" + end));
+
+        assertEquals(Arrays.asList("1:1-4", "0:2-4", "3:2-6"), matches);
+    }
+
+    @Test
+    public void testLinkReturnsEntityLinkingResponse() {
+        JsonArray entities = gazetteer.link("Apple shatters market records").getJsonArray("entities");
+
+        assertEquals(1, entities.size());
+        JsonObject entity = entities.getJsonObject(0);
+        assertEquals("Apple Inc.", entity.getString("name"));
+        assertEquals("Apple Inc.", entity.getString("wikipediaId"));
+
+        JsonObject match = entity.getJsonArray("matches").getJsonObject(0);
+        assertEquals("Apple", match.getString("text"));
+        assertEquals(0, (int) match.getJsonArray("entries").getJsonObject(0).getInteger("offset"));
+    }
+
+    @Test
+    public void testLinkPrefersLongestMatch() {
+        JsonArray entities = gazetteer.link("The new Apple Watch goes on sale").getJsonArray("entities");
+
+        assertEquals(1, entities.size());
+        assertEquals("Apple Watch", entities.getJsonObject(0).getString("name"));
+    }
+
+    @Test
+    public void testLinkMatchesWholeWordsOnly() {
+        assertTrue(gazetteer.link("Pineapples are in season").getJsonArray("entities").isEmpty());
+    }
+
+    @Test
+    public void testAcronymsAreCaseSensitive() {
+        assertEquals(1, gazetteer.link("The CEO resigned").getJsonArray("entities").size());
+        assertTrue(gazetteer.link("Ceo resigned").getJsonArray("entities").isEmpty());
+    }
+
+    @Test
+    public void testLoadGroupsAliasMatchesUnderEntity() {
+        Gazetteer custom = Gazetteer.load(new ByteArrayInputStream(
+                "Foo Corp\tFoo Corporation\tFoo|FooCo\n".getBytes(StandardCharsets.UTF_8)));
+        JsonArray entities = custom.link("Foo and FooCo merge. foo shares rise").getJsonArray("entities");
+
+        assertEquals(1, custom.size());
+        assertEquals(1, entities.size());
+        assertEquals("Foo Corporation", entities.getJsonObject(0).getString("wikipediaId"));
+        assertEquals(3, entities.getJsonObject(0).getJsonArray("matches").size());
+    }
+}
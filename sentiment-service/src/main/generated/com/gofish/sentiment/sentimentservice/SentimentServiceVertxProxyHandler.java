@@ -39,11 +39,13 @@ import io.vertx.serviceproxy.ProxyHelper;
 import io.vertx.serviceproxy.ProxyHandler;
 import io.vertx.serviceproxy.ServiceException;
 import io.vertx.serviceproxy.ServiceExceptionMessageCodec;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import com.gofish.sentiment.sentimentservice.SentimentService;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
+import com.gofish.sentiment.storage.Granularity;
 
 /*
   Generated Proxy code - DO NOT EDIT
@@ -130,10 +132,26 @@ public class SentimentServiceVertxProxyHandler extends ProxyHandler {
           service.getSentiment((java.lang.String)json.getValue("query"), createHandler(msg));
           break;
         }
+        case "getArticles": {
+          service.getArticles((java.lang.String)json.getValue("query"), (io.vertx.core.json.JsonObject)json.getValue("filter"), (io.vertx.core.json.JsonObject)json.getValue("projection"), (java.lang.String)json.getValue("cursor"), json.getValue("limit") == null ? null : (json.getLong("limit").intValue()), createHandler(msg));
+          break;
+        }
+        case "getEntitySentiment": {
+          service.getEntitySentiment((java.lang.String)json.getValue("query"), json.getValue("from") == null ? null : (json.getLong("from").longValue()), json.getValue("to") == null ? null : (json.getLong("to").longValue()), json.getValue("limit") == null ? null : (json.getLong("limit").intValue()), createHandler(msg));
+          break;
+        }
+        case "getSentimentTimeSeries": {
+          service.getSentimentTimeSeries((java.lang.String)json.getValue("query"), json.getValue("from") == null ? null : (json.getLong("from").longValue()), json.getValue("to") == null ? null : (json.getLong("to").longValue()), json.getString("granularity") == null ? null : com.gofish.sentiment.storage.Granularity.valueOf(json.getString("granularity")), createHandler(msg));
+          break;
+        }
         case "analyseSentiment": {
           service.analyseSentiment((java.lang.String)json.getValue("query"), createHandler(msg));
           break;
         }
+        case "analyseArticles": {
+          service.analyseArticles((java.lang.String)json.getValue("query"), (io.vertx.core.json.JsonArray)json.getValue("articles"), createHandler(msg));
+          break;
+        }
         default: {
           throw new IllegalStateException("Invalid action: " + action);
         }
@@ -19,10 +19,12 @@ package com.gofish.sentiment.sentimentservice.rxjava;
 import java.util.Map;
 import rx.Observable;
 import rx.Single;
+import io.vertx.core.json.JsonArray;
 import io.vertx.rxjava.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
+import com.gofish.sentiment.storage.Granularity;
 
 /**
  *
@@ -112,6 +114,92 @@ public class SentimentService {
     }));
   }
 
+  /**
+   * Retrieves a page of the stored articles for the supplied query, most recently stored first
+   * @param query String representing the news query to retrieve the articles for
+   * @param filter JsonObject holding further conditions which the articles must match, or null
+   * @param projection JsonObject listing the fields of each article to retrieve, or null for the default fields
+   * @param cursor the cursor returned with the previous page, or null to retrieve the first page
+   * @param limit the maximum number of articles in the page
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return SentimentService so this method can be used fluently
+   */
+  public SentimentService getArticles(String query, JsonObject filter, JsonObject projection, String cursor, int limit, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.getArticles(query, filter, projection, cursor, limit, resultHandler);
+    return this;
+  }
+
+  /**
+   * Retrieves a page of the stored articles for the supplied query, most recently stored first
+   * @param query String representing the news query to retrieve the articles for
+   * @param filter JsonObject holding further conditions which the articles must match, or null
+   * @param projection JsonObject listing the fields of each article to retrieve, or null for the default fields
+   * @param cursor the cursor returned with the previous page, or null to retrieve the first page
+   * @param limit the maximum number of articles in the page
+   * @return 
+   */
+  public Single<JsonObject> rxGetArticles(String query, JsonObject filter, JsonObject projection, String cursor, int limit) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      getArticles(query, filter, projection, cursor, limit, fut);
+    }));
+  }
+
+  /**
+   * Retrieves the entities which the stored articles within a time range were most often about, and their sentiment
+   * @param query String representing the news query to retrieve the entities for, or null for all queries
+   * @param from the start of the time range (epoch ms), inclusive
+   * @param to the end of the time range (epoch ms), exclusive
+   * @param limit the maximum number of entities to retrieve
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return SentimentService so this method can be used fluently
+   */
+  public SentimentService getEntitySentiment(String query, long from, long to, int limit, Handler<AsyncResult<JsonArray>> resultHandler) { 
+    delegate.getEntitySentiment(query, from, to, limit, resultHandler);
+    return this;
+  }
+
+  /**
+   * Retrieves the entities which the stored articles within a time range were most often about, and their sentiment
+   * @param query String representing the news query to retrieve the entities for, or null for all queries
+   * @param from the start of the time range (epoch ms), inclusive
+   * @param to the end of the time range (epoch ms), exclusive
+   * @param limit the maximum number of entities to retrieve
+   * @return 
+   */
+  public Single<JsonArray> rxGetEntitySentiment(String query, long from, long to, int limit) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      getEntitySentiment(query, from, to, limit, fut);
+    }));
+  }
+
+  /**
+   * Retrieves the currently stored sentiment results for the supplied query as a time series
+   * @param query String representing the news query to retrieve the sentiment results for
+   * @param from the start of the time range (epoch ms), inclusive
+   * @param to the end of the time range (epoch ms), exclusive
+   * @param granularity the width of each bucket in the time series
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return SentimentService so this method can be used fluently
+   */
+  public SentimentService getSentimentTimeSeries(String query, long from, long to, Granularity granularity, Handler<AsyncResult<JsonArray>> resultHandler) { 
+    delegate.getSentimentTimeSeries(query, from, to, granularity, resultHandler);
+    return this;
+  }
+
+  /**
+   * Retrieves the currently stored sentiment results for the supplied query as a time series
+   * @param query String representing the news query to retrieve the sentiment results for
+   * @param from the start of the time range (epoch ms), inclusive
+   * @param to the end of the time range (epoch ms), exclusive
+   * @param granularity the width of each bucket in the time series
+   * @return 
+   */
+  public Single<JsonArray> rxGetSentimentTimeSeries(String query, long from, long to, Granularity granularity) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      getSentimentTimeSeries(query, from, to, granularity, fut);
+    }));
+  }
+
   /**
    * Crawls the news for the provided query keyword and analyses the sentiment of each news article that is found
    * @param query String representing the news query to crawl for and perform sentiment analysis on
@@ -134,6 +222,34 @@ public class SentimentService {
     }));
   }
 
+  /**
+   * Analyses the sentiment of, and links the entities in, the supplied articles (rather than crawling for them), and
+   * saves them under the query. Articles which are already stored are skipped, unless filtering is disabled. The result
+   * holds the number of articles "skipped", "inserted" and "matched" (i.e. already stored).
+   * @param query String representing the news query to save the articles under
+   * @param articles JsonArray of the articles to analyse, in the form returned by the news crawler
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return SentimentService so this method can be used fluently
+   */
+  public SentimentService analyseArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.analyseArticles(query, articles, resultHandler);
+    return this;
+  }
+
+  /**
+   * Analyses the sentiment of, and links the entities in, the supplied articles (rather than crawling for them), and
+   * saves them under the query. Articles which are already stored are skipped, unless filtering is disabled. The result
+   * holds the number of articles "skipped", "inserted" and "matched" (i.e. already stored).
+   * @param query String representing the news query to save the articles under
+   * @param articles JsonArray of the articles to analyse, in the form returned by the news crawler
+   * @return 
+   */
+  public Single<JsonObject> rxAnalyseArticles(String query, JsonArray articles) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      analyseArticles(query, articles, fut);
+    }));
+  }
+
 
   public static SentimentService newInstance(com.gofish.sentiment.sentimentservice.SentimentService arg) {
     return arg != null ? new SentimentService(arg) : null;
@@ -53,6 +53,82 @@ var SentimentService = function(j_val) {
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
+  /**
+   Retrieves a page of the stored articles for the supplied query, most recently stored first
+
+   @public
+   @param query {string} String representing the news query to retrieve the articles for 
+   @param filter {Object} JsonObject holding further conditions which the articles must match, or null 
+   @param projection {Object} JsonObject listing the fields of each article to retrieve, or null for the default fields 
+   @param cursor {string} the cursor returned with the previous page, or null to retrieve the first page 
+   @param limit {number} the maximum number of articles in the page 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {SentimentService} SentimentService so this method can be used fluently
+   */
+  this.getArticles = function(query, filter, projection, cursor, limit, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 6 && typeof __args[0] === 'string' && (typeof __args[1] === 'object' && __args[1] != null) && (typeof __args[2] === 'object' && __args[2] != null) && typeof __args[3] === 'string' && typeof __args[4] ==='number' && typeof __args[5] === 'function') {
+      j_sentimentService["getArticles(java.lang.String,io.vertx.core.json.JsonObject,io.vertx.core.json.JsonObject,java.lang.String,int,io.vertx.core.Handler)"](query, utils.convParamJsonObject(filter), utils.convParamJsonObject(projection), cursor, limit, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Retrieves the entities which the stored articles within a time range were most often about, and their sentiment
+
+   @public
+   @param query {string} String representing the news query to retrieve the entities for, or null for all queries 
+   @param from {number} the start of the time range (epoch ms), inclusive 
+   @param to {number} the end of the time range (epoch ms), exclusive 
+   @param limit {number} the maximum number of entities to retrieve 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {SentimentService} SentimentService so this method can be used fluently
+   */
+  this.getEntitySentiment = function(query, from, to, limit, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 5 && typeof __args[0] === 'string' && typeof __args[1] ==='number' && typeof __args[2] ==='number' && typeof __args[3] ==='number' && typeof __args[4] === 'function') {
+      j_sentimentService["getEntitySentiment(java.lang.String,long,long,int,io.vertx.core.Handler)"](query, from, to, limit, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Retrieves the currently stored sentiment results for the supplied query as a time series
+
+   @public
+   @param query {string} String representing the news query to retrieve the sentiment results for 
+   @param from {number} the start of the time range (epoch ms), inclusive 
+   @param to {number} the end of the time range (epoch ms), exclusive 
+   @param granularity {Object} the width of each bucket in the time series 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {SentimentService} SentimentService so this method can be used fluently
+   */
+  this.getSentimentTimeSeries = function(query, from, to, granularity, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 5 && typeof __args[0] === 'string' && typeof __args[1] ==='number' && typeof __args[2] ==='number' && typeof __args[3] === 'string' && typeof __args[4] === 'function') {
+      j_sentimentService["getSentimentTimeSeries(java.lang.String,long,long,com.gofish.sentiment.storage.Granularity,io.vertx.core.Handler)"](query, from, to, com.gofish.sentiment.storage.Granularity.valueOf(granularity), function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   /**
    Crawls the news for the provided query keyword and analyses the sentiment of each news article that is found
 
@@ -75,6 +151,31 @@ var SentimentService = function(j_val) {
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
+  /**
+   Analyses the sentiment of, and links the entities in, the supplied articles (rather than crawling for them), and
+   saves them under the query. Articles which are already stored are skipped, unless filtering is disabled. The result
+   holds the number of articles "skipped", "inserted" and "matched" (i.e. already stored).
+
+   @public
+   @param query {string} String representing the news query to save the articles under 
+   @param articles {todo} JsonArray of the articles to analyse, in the form returned by the news crawler 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {SentimentService} SentimentService so this method can be used fluently
+   */
+  this.analyseArticles = function(query, articles, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 3 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && __args[1] instanceof Array && typeof __args[2] === 'function') {
+      j_sentimentService["analyseArticles(java.lang.String,io.vertx.core.json.JsonArray,io.vertx.core.Handler)"](query, utils.convParamJsonArray(articles), function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   // A reference to the underlying Java delegate
   // NOTE! This is an internal API and must not be used in user code.
   // If you rely on this property your code is likely to break if we change it / remove it without warning.
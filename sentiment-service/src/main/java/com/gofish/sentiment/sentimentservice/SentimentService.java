@@ -1,5 +1,6 @@
 package com.gofish.sentiment.sentimentservice;
 
+import com.gofish.sentiment.storage.Granularity;
 import io.vertx.codegen.annotations.Fluent;
 import io.vertx.codegen.annotations.ProxyGen;
 import io.vertx.codegen.annotations.VertxGen;
@@ -7,6 +8,7 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.serviceproxy.ProxyHelper;
 
@@ -69,6 +71,43 @@ public interface SentimentService {
     @Fluent
     SentimentService getSentiment(String query, Handler<AsyncResult<JsonObject>> resultHandler);
 
+    /**
+     * Retrieves a page of the stored articles for the supplied query, most recently stored first
+     * @param query String representing the news query to retrieve the articles for
+     * @param filter JsonObject holding further conditions which the articles must match, or null
+     * @param projection JsonObject listing the fields of each article to retrieve, or null for the default fields
+     * @param cursor the cursor returned with the previous page, or null to retrieve the first page
+     * @param limit the maximum number of articles in the page
+     * @param resultHandler the result will be returned asynchronously in this handler
+     * @return SentimentService so this method can be used fluently
+     */
+    @Fluent
+    SentimentService getArticles(String query, JsonObject filter, JsonObject projection, String cursor, int limit, Handler<AsyncResult<JsonObject>> resultHandler);
+
+    /**
+     * Retrieves the entities which the stored articles within a time range were most often about, and their sentiment
+     * @param query String representing the news query to retrieve the entities for, or null for all queries
+     * @param from the start of the time range (epoch ms), inclusive
+     * @param to the end of the time range (epoch ms), exclusive
+     * @param limit the maximum number of entities to retrieve
+     * @param resultHandler the result will be returned asynchronously in this handler
+     * @return SentimentService so this method can be used fluently
+     */
+    @Fluent
+    SentimentService getEntitySentiment(String query, long from, long to, int limit, Handler<AsyncResult<JsonArray>> resultHandler);
+
+    /**
+     * Retrieves the currently stored sentiment results for the supplied query as a time series
+     * @param query String representing the news query to retrieve the sentiment results for
+     * @param from the start of the time range (epoch ms), inclusive
+     * @param to the end of the time range (epoch ms), exclusive
+     * @param granularity the width of each bucket in the time series
+     * @param resultHandler the result will be returned asynchronously in this handler
+     * @return SentimentService so this method can be used fluently
+     */
+    @Fluent
+    SentimentService getSentimentTimeSeries(String query, long from, long to, Granularity granularity, Handler<AsyncResult<JsonArray>> resultHandler);
+
     /**
      * Crawls the news for the provided query keyword and analyses the sentiment of each news article that is found
      * @param query String representing the news query to crawl for and perform sentiment analysis on
@@ -77,4 +116,16 @@ public interface SentimentService {
      */
     @Fluent
     SentimentService analyseSentiment(String query, Handler<AsyncResult<JsonObject>> resultHandler);
+
+    /**
+     * Analyses the sentiment of, and links the entities in, the supplied articles (rather than crawling for them), and
+     * saves them under the query. Articles which are already stored are skipped, unless filtering is disabled. The result
+     * holds the number of articles "skipped", "inserted" and "matched" (i.e. already stored).
+     * @param query String representing the news query to save the articles under
+     * @param articles JsonArray of the articles to analyse, in the form returned by the news crawler
+     * @param resultHandler the result will be returned asynchronously in this handler
+     * @return SentimentService so this method can be used fluently
+     */
+    @Fluent
+    SentimentService analyseArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler);
 }
@@ -1,15 +1,23 @@
 package com.gofish.sentiment.sentimentservice;
 
+import com.gofish.sentiment.common.discovery.LocalServices;
+import com.gofish.sentiment.common.error.ServiceErrors;
 import com.gofish.sentiment.newsanalyser.rxjava.NewsAnalyserService;
 import com.gofish.sentiment.newscrawler.rxjava.NewsCrawlerService;
 import com.gofish.sentiment.newslinker.rxjava.NewsLinkerService;
+import com.gofish.sentiment.sentimentservice.limit.AdaptiveLimiter;
+import com.gofish.sentiment.sentimentservice.retry.RetryPolicy;
+import com.gofish.sentiment.storage.Granularity;
 import com.gofish.sentiment.storage.rxjava.StorageService;
 import io.vertx.circuitbreaker.CircuitBreaker;
 import io.vertx.circuitbreaker.CircuitBreakerOptions;
+import io.vertx.circuitbreaker.CircuitBreakerState;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
@@ -17,12 +25,13 @@ import io.vertx.core.logging.LoggerFactory;
 import io.vertx.rx.java.RxHelper;
 import io.vertx.rx.java.SingleOnSubscribeAdapter;
 import io.vertx.servicediscovery.ServiceDiscovery;
-import io.vertx.servicediscovery.types.EventBusService;
 import rx.Observable;
 import rx.Single;
 
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * @author Luke Herron
@@ -37,6 +46,17 @@ public class SentimentServiceImpl implements SentimentService {
     private final CircuitBreaker newsAnalyserBreaker;
     private final CircuitBreaker newsCrawlerBreaker;
     private final CircuitBreaker newsLinkerBreaker;
+    private final long breakerResetTimeout;
+    private final AdaptiveLimiter newsAnalyserLimiter;
+    private final AdaptiveLimiter newsCrawlerLimiter;
+    private final AdaptiveLimiter newsLinkerLimiter;
+    private final AdaptiveLimiter storageLimiter;
+    private final AtomicLong newsAnalyserResumeAt = new AtomicLong(0);
+    private final AtomicLong newsCrawlerResumeAt = new AtomicLong(0);
+    private final AtomicLong newsLinkerResumeAt = new AtomicLong(0);
+    private final RetryPolicy retryPolicy;
+    private final long retryDeadline;
+    private final boolean filterExisting;
 
     public SentimentServiceImpl(Vertx vertx, JsonObject config) {
         this.vertx = vertx;
@@ -47,8 +67,25 @@ public class SentimentServiceImpl implements SentimentService {
         newsAnalyserBreaker = CircuitBreaker.create("news-analyser-breaker", vertx, breakerOptions);
         newsCrawlerBreaker = CircuitBreaker.create("news-crawler-breaker", vertx, breakerOptions);
         newsLinkerBreaker = CircuitBreaker.create("news-linker-breaker", vertx, breakerOptions);
+        breakerResetTimeout = breakerOptions.getResetTimeout();
 
         initBreakerOpenHandlers();
+
+        JsonObject limitsConfig = config.getJsonObject("limits", new JsonObject());
+        newsAnalyserLimiter = AdaptiveLimiter.create(NewsAnalyserService.name(),
+                limitsConfig.getJsonObject("news-analyser", new JsonObject()), SentimentServiceImpl::isOverloaded);
+        newsCrawlerLimiter = AdaptiveLimiter.create(NewsCrawlerService.name(),
+                limitsConfig.getJsonObject("news-crawler", new JsonObject()), SentimentServiceImpl::isOverloaded);
+        newsLinkerLimiter = AdaptiveLimiter.create(NewsLinkerService.name(),
+                limitsConfig.getJsonObject("news-linker", new JsonObject()), SentimentServiceImpl::isOverloaded);
+        storageLimiter = AdaptiveLimiter.create(StorageService.name(),
+                limitsConfig.getJsonObject("storage", new JsonObject()), SentimentServiceImpl::isOverloaded);
+
+        JsonObject retryConfig = config.getJsonObject("retry", new JsonObject());
+        retryPolicy = RetryPolicy.create(retryConfig);
+        retryDeadline = retryConfig.getLong("deadline", SENTIMENT_PROXY_TIMEOUT);
+
+        filterExisting = config.getBoolean("filter.existing", true);
     }
 
     /**
@@ -57,43 +94,61 @@ public class SentimentServiceImpl implements SentimentService {
      * a pre-determined delay which is retrieved from the related service.
      */
     private void initBreakerOpenHandlers() {
-        newsAnalyserBreaker.openHandler(handler -> {
-            rxGetService(NewsAnalyserService.name(), NewsAnalyserService.class)
-                    .flatMap(service -> service.rxGetTimeout().doOnEach(notification -> release(service))
-                            .flatMap(timeout -> Single.just(null).delay(timeout < 1 ? 1 : timeout, TimeUnit.MILLISECONDS)))
-                    .subscribe(
-                            v -> newsAnalyserBreaker.reset(),
-                            f -> LOG.error("NewsAnalyser Breaker open handler error", f));
-        });
-
-        newsCrawlerBreaker.openHandler(handler -> {
-            rxGetService(NewsCrawlerService.name(), NewsCrawlerService.class)
-                    .flatMap(service -> service.rxGetTimeout().doOnEach(notification -> release(service))
-                            .flatMap(timeout -> Single.just(null).delay(timeout < 1 ? 1 : timeout, TimeUnit.MILLISECONDS)))
-                    .subscribe(
-                            v -> newsCrawlerBreaker.reset(),
-                            f -> LOG.error("NewsCrawler Breaker open handler error", f));
-        });
-
+        initBreakerOpenHandler(newsAnalyserBreaker, newsAnalyserResumeAt, NewsAnalyserService.name(),
+                NewsAnalyserService.class, NewsAnalyserService::rxGetTimeout);
+        initBreakerOpenHandler(newsCrawlerBreaker, newsCrawlerResumeAt, NewsCrawlerService.name(),
+                NewsCrawlerService.class, NewsCrawlerService::rxGetTimeout);
+        initBreakerOpenHandler(newsLinkerBreaker, newsLinkerResumeAt, NewsLinkerService.name(),
+                NewsLinkerService.class, NewsLinkerService::rxGetTimeout);
+    }
 
-        newsLinkerBreaker.openHandler(handler -> {
-            rxGetService(NewsLinkerService.name(), NewsLinkerService.class)
-                    .flatMap(service -> service.rxGetTimeout().doOnEach(notification -> release(service))
-                            .flatMap(timeout -> Single.just(null).delay(timeout < 1 ? 1 : timeout, TimeUnit.MILLISECONDS)))
+    /**
+     * Sets the openHandler of a single Circuit Breaker. The time at which the breaker will be closed again is recorded
+     * in resumeAt, so that any calls rejected by the open breaker can be retried no sooner than that.
+     * @param breaker The CircuitBreaker to initialise
+     * @param resumeAt Holds the time (epoch ms) at which the breaker is expected to close
+     * @param recordName The name of the service guarded by the breaker
+     * @param clazz The client class of the service guarded by the breaker
+     * @param getTimeout Function which retrieves the current timeout from the service. Due to vert.x codegen reasons,
+     *                   the service interfaces don't derive from a common interface.
+     * @param <T> The type of the client class
+     */
+    private <T> void initBreakerOpenHandler(CircuitBreaker breaker, AtomicLong resumeAt, String recordName,
+                                            Class<T> clazz, Function<T, Single<Long>> getTimeout) {
+        breaker.openHandler(handler -> {
+            // Until we know how long the breaker will stay open, hold off any retries for as long as the breaker would
+            // take to half-open by itself
+            resumeAt.set(System.currentTimeMillis() + breakerResetTimeout);
+
+            rxGetService(recordName, clazz)
+                    .flatMap(service -> getTimeout.apply(service).doOnEach(notification -> release(service)))
+                    .map(timeout -> timeout < 1 ? 1 : timeout)
+                    .doOnSuccess(timeout -> resumeAt.set(System.currentTimeMillis() + timeout))
+                    .flatMap(timeout -> Single.just(null).delay(timeout, TimeUnit.MILLISECONDS))
                     .subscribe(
-                            v -> newsLinkerBreaker.reset(),
-                            f -> LOG.error("NewsLinker Breaker open handler error", f));
+                            v -> breaker.reset(),
+                            f -> {
+                                LOG.error("{0} Breaker open handler error", f, recordName);
+                                resumeAt.set(0);
+                            });
         });
-
     }
 
     @Override
     public SentimentService analyseSentiment(String query, Handler<AsyncResult<JsonObject>> resultHandler) {
+        // Retries of the analyser and linker calls stop once the caller would have given up waiting on the result
+        final long deadline = System.currentTimeMillis() + retryDeadline;
+
+        touchQuery(query, "lastCrawled");
+
         this.<JsonObject>rxExecuteCommand(newsCrawlerBreaker, command ->
                 rxGetService(NewsCrawlerService.name(), NewsCrawlerService.class)
-                        .flatMap(service -> service.rxCrawlQuery(query).doOnEach(n -> release(service)))
+                        .flatMap(service -> newsCrawlerLimiter.rxExecute(service.rxCrawlQuery(query))
+                                .doOnEach(n -> release(service)))
                         .subscribe(RxHelper.toSubscriber(command.completer())))
-                .flatMap(crawlResult -> rxFilterExistingArticles(query, crawlResult))
+                // Saves are idempotent, so filtering out stored articles only avoids analysing them again. When analysis
+                // is cheap (i.e. local), the round trips to storage can be skipped.
+                .flatMap(crawlResult -> filterExisting ? rxFilterExistingArticles(query, crawlResult) : Single.just(crawlResult))
                 .flatMapObservable(filteredResult -> {
                     JsonArray articles = filteredResult.getJsonArray("value");
                     // The original crawlResult has a 'totalEstimatedMatches' entry. Add a new entry which shows the
@@ -108,9 +163,9 @@ public class SentimentServiceImpl implements SentimentService {
                     return Observable.zip(observableArticles, interval, (observable, timer) -> observable)
                             .map(json -> (JsonObject) json)
                             .flatMapSingle(article ->
-                                    Single.zip(rxAnalyseSentiment(article), rxLinkEntities(article), (analysis, entities) ->
+                                    Single.zip(rxAnalyseSentiment(article, deadline), rxLinkEntities(article, deadline), (analysis, entities) ->
                                             article.mergeIn(new JsonObject().mergeIn(analysis).mergeIn(entities))))
-                            .flatMapSingle(article -> rxSaveAnalysedArticle(query, article))
+                            .flatMapSingle(article -> rxSaveAnalysedArticles(query, new JsonArray().add(article)))
                             .last()
                             .map(results -> filteredResult);
                 })
@@ -119,6 +174,32 @@ public class SentimentServiceImpl implements SentimentService {
         return this;
     }
 
+    @Override
+    public SentimentService analyseArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler) {
+        final long deadline = System.currentTimeMillis() + retryDeadline;
+        final JsonObject batch = new JsonObject().put("value", articles.copy());
+
+        (filterExisting ? rxFilterExistingArticles(query, batch) : Single.just(batch))
+                .flatMap(filteredBatch -> {
+                    final JsonArray filtered = filteredBatch.getJsonArray("value");
+
+                    return Observable.from(filtered)
+                            .map(json -> (JsonObject) json)
+                            .flatMapSingle(article ->
+                                    Single.zip(rxAnalyseSentiment(article, deadline), rxLinkEntities(article, deadline), (analysis, entities) ->
+                                            article.mergeIn(new JsonObject().mergeIn(analysis).mergeIn(entities))))
+                            .toList()
+                            .toSingle()
+                            .flatMap(analysed -> analysed.isEmpty() ?
+                                    Single.just(new JsonObject().put("inserted", 0).put("matched", 0)) :
+                                    rxSaveAnalysedArticles(query, new JsonArray(analysed)))
+                            .map(result -> result.put("skipped", articles.size() - filtered.size()));
+                })
+                .subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
     @Override
     public SentimentService getSentiment(String query, Handler<AsyncResult<JsonObject>> resultHandler) {
         rxGetService(StorageService.name(), StorageService.class)
@@ -128,19 +209,15 @@ public class SentimentServiceImpl implements SentimentService {
                     // If the result is empty it will be because the query has not been added and analysed. We
                     // perform both of these steps if empty, other we return the non-empty results.
                     if (sentimentResult.isEmpty()) {
-                        final JsonObject collectionIndex = new JsonObject()
-                                .put("name", 1)
-                                .put("description", 1);
-
                         return rxGetService(StorageService.name(), StorageService.class)
-                                .flatMap(service -> service.rxCreateCollection(query)
-                                        .flatMap(v -> service.rxCreateIndex(query, collectionIndex))
+                                .flatMap(service -> service.rxAddQuery(query)
                                         .doOnEach(notification -> release(service)))
                                 .flatMap(v -> Single.create(new SingleOnSubscribeAdapter<JsonObject>(fut ->
                                         this.analyseSentiment(query, fut)))
                                         .map(result -> new JsonObject().put("result", result)));
                     }
                     else {
+                        touchQuery(query, "lastRequested");
                         return Single.just(sentimentResult);
                     }
                 })
@@ -149,37 +226,77 @@ public class SentimentServiceImpl implements SentimentService {
         return this;
     }
 
+    @Override
+    public SentimentService getArticles(String query, JsonObject filter, JsonObject projection, String cursor, int limit, Handler<AsyncResult<JsonObject>> resultHandler) {
+        rxGetService(StorageService.name(), StorageService.class)
+                .flatMap(service -> service.rxGetArticles(query, filter, projection, cursor, limit)
+                        .doOnEach(notification -> release(service)))
+                .subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
+    @Override
+    public SentimentService getEntitySentiment(String query, long from, long to, int limit, Handler<AsyncResult<JsonArray>> resultHandler) {
+        rxGetService(StorageService.name(), StorageService.class)
+                .flatMap(service -> service.rxGetEntitySentiment(query, from, to, limit)
+                        .doOnEach(notification -> release(service)))
+                .subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
+    @Override
+    public SentimentService getSentimentTimeSeries(String query, long from, long to, Granularity granularity, Handler<AsyncResult<JsonArray>> resultHandler) {
+        rxGetService(StorageService.name(), StorageService.class)
+                .flatMap(service -> service.rxGetSentimentTimeSeries(query, from, to, granularity)
+                        .doOnEach(notification -> release(service)))
+                .subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
+    /**
+     * Records the current time against a query in the storage queries registry. The registry is updated in the
+     * background, and a failure is only logged, as it must not hold up or fail the request itself.
+     * @param query The query to update
+     * @param field The registry field to record the time in i.e. lastCrawled or lastRequested
+     */
+    private void touchQuery(String query, String field) {
+        final JsonObject metadata = new JsonObject().put(field, System.currentTimeMillis());
+
+        rxGetService(StorageService.name(), StorageService.class)
+                .flatMap(service -> service.rxUpdateQuery(query, metadata)
+                        .doOnEach(notification -> release(service)))
+                .subscribe(
+                        entry -> {},
+                        error -> LOG.warn("Failed to update ''{0}'' of query ''{1}''", error, field, query));
+    }
+
     /**
      * Performs sentiment analysis on each of the articles contained within the crawlResult.
      * @param crawlResult JsonObject which contains the articles to perform analysis on
+     * @param deadline The time (epoch ms) after which the analysis should no longer be retried
      * @return Single which emits the results of the sentiment analyisis
      */
-    private Single<JsonObject> rxAnalyseSentiment(JsonObject crawlResult) {
+    private Single<JsonObject> rxAnalyseSentiment(JsonObject crawlResult, long deadline) {
 
         return rxGetService(NewsAnalyserService.name(), NewsAnalyserService.class)
-                // We wrap the call inside a CircuitBreaker so that we can continually retry certain errors, knowing
-                // that the underlying service won't actual get called until the circuit breaker closes again. This is
-                // handy for 429 responses (API rate limits). We simply keep retrying knowing that the circuit breaker
-                // is preventing unnecessary network calls
+                // We wrap the call inside a CircuitBreaker so that retries made while the API rate limit is in effect
+                // are rejected locally, rather than resulting in unnecessary network calls. The retry policy waits at
+                // least until the breaker is due to close before trying again.
                 .flatMap(service -> this.<JsonObject>rxExecuteCommand(newsAnalyserBreaker, command ->
-                        service.rxAnalyseSentiment(crawlResult)
-                                .doOnError(error -> handlerError(error, service::setTimeout))
+                        newsAnalyserLimiter.rxExecute(service.rxAnalyseSentiment(crawlResult))
                                 .subscribe(RxHelper.toSubscriber(command.completer())))
-                        .retryWhen(errors -> errors.flatMap(error -> {
-                            // TODO: implement a more robust retry method
-                            if (error.getMessage().contains("429") || error.getMessage().contains("open circuit")) {
-                                return Observable.just(null).delay(200, TimeUnit.MILLISECONDS);
-                            }
-
-                            release(service);
-                            return Observable.error(error);
-                        })));
+                        .retryWhen(retryPolicy.retryWhen(deadline, error ->
+                                getRetryDelay(error, newsAnalyserBreaker, newsAnalyserResumeAt)))
+                        .doOnEach(notification -> release(service)));
     }
 
     /**
      * Checks the articles returned from the crawl result to see if they already exist in storage. We want to avoid
      * making unnecessary network/API calls if the results for those calls already exist.
-     * @param query The query which maps to the collection in storage that we want to check for duplicates
+     * @param query The query in storage that we want to check for duplicates
      * @param crawlResult JsonObject which contains the articles to be filtered
      * @return Single which emits the filtered crawlResult JsonObject
      */
@@ -192,7 +309,8 @@ public class SentimentServiceImpl implements SentimentService {
                             String articleName = article.getString("name");
                             String articleDescription = article.getString("description");
 
-                            return service.rxHasArticle(query, articleName, articleDescription);
+                            return storageLimiter.rxExecute(service.rxHasArticle(query, articleName, articleDescription))
+                                    .doOnEach(notification -> release(service));
                         })
                         .toObservable()
                         .filter(hasArticle -> !hasArticle)
@@ -212,60 +330,77 @@ public class SentimentServiceImpl implements SentimentService {
      * determine the context of a crawl e.g. if 'apple' appears in the crawl result, it helps determine if it refers to
      * the company headquartered in Cupertino, or the actual fruit.
      * @param crawlResult The JsonObject to be scanned for keywords
+     * @param deadline The time (epoch ms) after which the entity linking should no longer be retried
      * @return Single that emits the entity linking response
      */
-    private Single<JsonObject> rxLinkEntities(JsonObject crawlResult) {
+    private Single<JsonObject> rxLinkEntities(JsonObject crawlResult, long deadline) {
 
         return rxGetService(NewsLinkerService.name(), NewsLinkerService.class)
-                // We wrap the call inside a CircuitBreaker so that we can continually retry certain errors, knowing
-                // that the underlying service won't actual get called until the circuit breaker closes again. This is
-                // handy for 429 responses (API rate limits). We simply keep retrying knowing that the circuit breaker
-                // is preventing unnecessary network calls
+                // We wrap the call inside a CircuitBreaker so that retries made while the API rate limit is in effect
+                // are rejected locally, rather than resulting in unnecessary network calls. The retry policy waits at
+                // least until the breaker is due to close before trying again.
                 .flatMap(service -> this.<JsonObject>rxExecuteCommand(newsLinkerBreaker, command ->
-                        service.rxLinkEntities(crawlResult)
-                                .doOnError(error -> handlerError(error, service::setTimeout))
+                        newsLinkerLimiter.rxExecute(service.rxLinkEntities(crawlResult))
                                 .subscribe(RxHelper.toSubscriber(command.completer())))
-                        .retryWhen(errors -> errors.flatMap(error -> {
-                            // TODO: implement a more robust retry method
-                            if (error.getMessage().contains("429") || error.getMessage().contains("open circuit")) {
-                                return Observable.just(null).delay(200, TimeUnit.MILLISECONDS);
-                            }
-
-                            release(service);
-                            return Observable.error(error);
-                        })));
+                        .retryWhen(retryPolicy.retryWhen(deadline, error ->
+                                getRetryDelay(error, newsLinkerBreaker, newsLinkerResumeAt)))
+                        .doOnEach(notification -> release(service)));
     }
 
     /**
-     * Saves analysed articles to storage
-     * @param query The query which represents the collection to save the article in to
-     * @param article The JsonObject article to be saved
-     * @return Single which emits the results of saving the article to storage
+     * Saves analysed articles to storage in a single bulk write. An article which is already stored is updated rather
+     * than rejected, so the save can safely be repeated.
+     * @param query The query to save the articles under
+     * @param articles The JsonArray of articles to be saved
+     * @return Single which emits the results of saving the articles to storage
      */
-    private Single<JsonObject> rxSaveAnalysedArticle(String query, JsonObject article) {
+    private Single<JsonObject> rxSaveAnalysedArticles(String query, JsonArray articles) {
         return rxGetService(StorageService.name(), StorageService.class)
-                .flatMap(service -> service.rxSaveArticles(query, new JsonArray().add(article))
+                .flatMap(service -> storageLimiter.rxExecute(service.rxSaveOrUpdateArticles(query, articles))
                         .doOnEach(n -> release(service)));
     }
 
     /**
-     * Helper method to handle errors thrown from the various service interfaces.
-     * @param throwable Throwable representing the error to be handled
-     * @param delayConsumer Consumer which wraps the service method call to set a timeout on retry attenmpts if requred.
-     *                      Due to vert.x codegen reasons, these interfaces don't derive from a common interface, which
-     *                      is why you don't simply see a common interface passed in in place of the consumer.
+     * Determines the minimum delay before a failed call to one of the downstream services may be retried.
+     * @param throwable Throwable representing the error returned by the call
+     * @param breaker The CircuitBreaker guarding the service
+     * @param resumeAt Holds the time (epoch ms) at which the breaker is expected to close
+     * @return the minimum delay in ms, or RetryPolicy.NOT_RETRYABLE if the call should not be retried
+     */
+    private long getRetryDelay(Throwable throwable, CircuitBreaker breaker, AtomicLong resumeAt) {
+        long minimumDelay;
+        if (throwable instanceof BreakerRejectedException) {
+            minimumDelay = 1;
+        }
+        else if (ServiceErrors.isRateLimited(throwable) || ServiceErrors.isUnavailable(throwable)) {
+            // The service's own breaker may be open, in which case it reports when it will let calls through again
+            minimumDelay = Math.max(1, ServiceErrors.getRetryAfter(throwable));
+        }
+        else {
+            return RetryPolicy.NOT_RETRYABLE;
+        }
+
+        if (breaker.state() == CircuitBreakerState.OPEN) {
+            // Either this call opened the breaker, or it was rejected by it. Either way there is no point retrying
+            // until the breaker closes again.
+            minimumDelay = Math.max(minimumDelay, resumeAt.get() - System.currentTimeMillis());
+        }
+
+        return minimumDelay;
+    }
+
+    /**
+     * Determines if an error returned from one of the downstream services indicates that the service (or the API
+     * behind it) is overloaded, in which case the concurrency limit for that service should be reduced.
+     * @param throwable Throwable representing the error returned by the service
+     * @return true if the error was caused by overload i.e. an API rate limit, or a timed out request
      */
-    private void handlerError(Throwable throwable, Consumer<Long> delayConsumer) {
-        if (throwable.getMessage().contains("error")) {
-            JsonObject error = new JsonObject(throwable.getMessage()).getJsonObject("error");
-            Integer errorCode = error.getInteger("statusCode");
-
-            if (errorCode.equals(429)) {
-                String errorMessage = error.getString("message");
-                final long delay = Integer.parseInt(errorMessage.replaceAll("[^\\d]", "")) * 1000;
-                delayConsumer.accept(delay);
-            }
+    private static boolean isOverloaded(Throwable throwable) {
+        if (throwable instanceof ReplyException && ((ReplyException) throwable).failureType() == ReplyFailure.TIMEOUT) {
+            return true;
         }
+
+        return ServiceErrors.isRateLimited(throwable);
     }
 
     /**
@@ -279,7 +414,8 @@ public class SentimentServiceImpl implements SentimentService {
 
     /**
      * Helper method which wraps the result of a CircuitBreaker#executeCommand future object in a Single so that it can
-     * be easily utilised in an rx chain.
+     * be easily utilised in an rx chain. If the breaker rejects the call without running the command, the Single fails
+     * with a BreakerRejectedException.
      * @param breaker The CircuitBreaker to execute the command on.
      * @param command The operation to execute on the CircuitBreaker.
      * @param <T> The type of the expected future result. This also determines the type of the Single emission.
@@ -287,8 +423,20 @@ public class SentimentServiceImpl implements SentimentService {
      */
     private <T> Single<T> rxExecuteCommand(CircuitBreaker breaker, Handler<Future<T>> command) {
 
-        return Single.create(new SingleOnSubscribeAdapter<T>(fut ->
-                breaker.executeCommand(command, fut)));
+        return Single.create(new SingleOnSubscribeAdapter<T>(fut -> {
+            final AtomicBoolean executed = new AtomicBoolean(false);
+            breaker.<T>executeCommand(future -> {
+                executed.set(true);
+                command.handle(future);
+            }, result -> {
+                if (result.failed() && !executed.get()) {
+                    fut.handle(Future.failedFuture(new BreakerRejectedException(result.cause())));
+                }
+                else {
+                    fut.handle(result);
+                }
+            });
+        }));
     }
 
     /**
@@ -302,7 +450,18 @@ public class SentimentServiceImpl implements SentimentService {
     private <T> Single<T> rxGetService(String recordName, Class<T> clazz) {
 
         return Single.create(new SingleOnSubscribeAdapter<>(fut ->
-                EventBusService.getServiceProxy(serviceDiscovery, record -> record.getName().equals(recordName), clazz, fut)));
+                LocalServices.getServiceProxy(serviceDiscovery, recordName, clazz, fut)));
     }
 
+    /**
+     * Error returned for a call which was rejected by an open CircuitBreaker, rather than failed by the service itself
+     */
+    private static final class BreakerRejectedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private BreakerRejectedException(Throwable cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
 }
@@ -1,11 +1,12 @@
 package com.gofish.sentiment.sentimentservice;
 
+import com.gofish.sentiment.common.discovery.LocalServices;
+import com.gofish.sentiment.common.discovery.LocalServices.ServiceRegistration;
 import com.gofish.sentiment.newsanalyser.rxjava.NewsAnalyserService;
 import com.gofish.sentiment.newscrawler.rxjava.NewsCrawlerService;
 import com.gofish.sentiment.newslinker.NewsLinkerService;
 import com.gofish.sentiment.storage.rxjava.StorageService;
 import io.vertx.core.Future;
-import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
@@ -15,12 +16,12 @@ import io.vertx.rx.java.RxHelper;
 import io.vertx.rx.java.SingleOnSubscribeAdapter;
 import io.vertx.rxjava.core.AbstractVerticle;
 import io.vertx.rxjava.servicediscovery.ServiceDiscovery;
-import io.vertx.rxjava.servicediscovery.types.EventBusService;
 import io.vertx.servicediscovery.Record;
-import io.vertx.serviceproxy.ProxyHelper;
 import rx.Observable;
 import rx.Single;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -31,11 +32,12 @@ import java.util.stream.Collectors;
 public class SentimentServiceVerticle extends AbstractVerticle {
 
     private static final int DEFAULT_TIMER_DELAY = 3600000;
+    private static final int DEFAULT_SCHEDULE_INTERVAL = 60000;
     private static final Logger LOG = LoggerFactory.getLogger(SentimentServiceVerticle.class);
 
     private JsonObject config;
     private com.gofish.sentiment.sentimentservice.rxjava.SentimentService sentimentService;
-    private MessageConsumer<JsonObject> messageConsumer;
+    private ServiceRegistration registration;
     private ServiceDiscovery serviceDiscovery;
     private Record record;
 
@@ -47,7 +49,7 @@ public class SentimentServiceVerticle extends AbstractVerticle {
                 .orElseThrow(() -> new RuntimeException("Could not load sentiment service configuration"));
 
         sentimentService = com.gofish.sentiment.sentimentservice.rxjava.SentimentService.create(vertx, config);
-        messageConsumer = ProxyHelper.registerService(SentimentService.class, vertx.getDelegate(), sentimentService.getDelegate(), SentimentService.ADDRESS);
+        registration = LocalServices.registerService(SentimentService.class, vertx.getDelegate(), sentimentService.getDelegate(), SentimentService.ADDRESS);
 
         // List the service dependencies that are required for this service to perform its operations successfully
         // TODO: move this into the vertx configuration i.e. add it to external configuration which is loaded with the verticle
@@ -59,7 +61,7 @@ public class SentimentServiceVerticle extends AbstractVerticle {
 
         serviceDiscovery = ServiceDiscovery.create(vertx, serviceDiscovery -> {
             LOG.info("Service Discovery initialised");
-            record = EventBusService.createRecord(SentimentService.NAME, SentimentService.ADDRESS, SentimentService.class.getName());
+            record = LocalServices.createRecord(SentimentService.NAME, SentimentService.ADDRESS, SentimentService.class.getName());
 
             // Publish the service
             serviceDiscovery.rxPublish(record).subscribe(LOG::info, LOG::error);
@@ -77,43 +79,75 @@ public class SentimentServiceVerticle extends AbstractVerticle {
 
     @Override
     public void stop(Future<Void> stopFuture) throws Exception {
-        ObservableFuture<Void> messageConsumerObservable = new ObservableFuture<>();
+        ObservableFuture<Void> unregisterObservable = new ObservableFuture<>();
         serviceDiscovery.rxUnpublish(record.getRegistration())
                 .flatMapObservable(v -> {
-                    messageConsumer.unregister(messageConsumerObservable.toHandler());
-                    return messageConsumerObservable;
+                    registration.unregister(unregisterObservable.toHandler());
+                    return unregisterObservable;
                 })
                 .doOnNext(v -> serviceDiscovery.close())
                 .subscribe(RxHelper.toSubscriber(stopFuture));
     }
 
     /**
-     * Starts the news crawler and analysis, which continually repeats at the set interval
+     * Starts the news crawler and analysis. The queries registry is checked every "schedule.interval" ms, and each
+     * query which is due to be crawled is analysed, highest priority first. Queries registered without a crawl interval
+     * are crawled every "timer.delay" ms. A query whose crawl fails is crawled again once it is next due.
      */
     private void startPeriodicCrawl() {
-        vertx.periodicStream(config.getInteger("timer.delay", DEFAULT_TIMER_DELAY))
+        final long defaultInterval = config.getInteger("timer.delay", DEFAULT_TIMER_DELAY);
+
+        vertx.periodicStream(config.getInteger("schedule.interval", DEFAULT_SCHEDULE_INTERVAL))
                 .toObservable()
-                .flatMapSingle(id -> rxGetCrawlData())
-                .flatMap(Observable::from).cast(String.class)
-                .flatMapSingle(query -> sentimentService.rxAnalyseSentiment(query))
-                .onErrorResumeNext(error -> {
-                    error.printStackTrace();
-                    return Observable.just(new JsonObject());
-                })
+                // Errors are handled for each check and each query, as an error reaching the stream would end it, and
+                // nothing would be crawled again
+                .flatMap(id -> rxGetCrawlData()
+                        .toObservable()
+                        .onErrorResumeNext(error -> {
+                            LOG.error("Failed to check the queries registry for due queries", error);
+                            return Observable.empty();
+                        }))
+                .map(queries -> getDueQueries(queries, System.currentTimeMillis(), defaultInterval))
+                .flatMap(Observable::from)
+                .flatMap(query -> sentimentService.rxAnalyseSentiment(query)
+                        .toObservable()
+                        .onErrorResumeNext(error -> {
+                            LOG.error("Failed to crawl query ''{0}''", error, query);
+                            return Observable.empty();
+                        }))
                 .subscribe(LOG::info, LOG::error, () -> LOG.info("Periodic crawl complete"));
     }
 
     /**
-     * Retrieves each collection from storage, each collection name represents the news search query i.e. the crawl data
-     * @return Single that emits the list of collections in storage
+     * Retrieves each query from the storage queries registry i.e. the crawl data
+     * @return Single that emits the registry entry of each query in storage
      */
     private Single<JsonArray> rxGetCrawlData() {
 
         return rxGetService(StorageService.name(), StorageService.class)
-                .flatMap(service -> service.rxGetCollections()
+                .flatMap(service -> service.rxGetQueries()
                         .doOnEach(notifications -> release(service)));
     }
 
+    /**
+     * Selects the queries which are due to be crawled i.e. those which have never been crawled, or whose crawl interval
+     * has passed since they were last crawled
+     * @param queries the registry entry of each query
+     * @param now the current time (epoch ms)
+     * @param defaultInterval the crawl interval of queries which were registered without one
+     * @return the names of the due queries, ordered by priority (highest first)
+     */
+    static List<String> getDueQueries(JsonArray queries, long now, long defaultInterval) {
+
+        return queries.stream()
+                .map(query -> (JsonObject) query)
+                .filter(query -> !query.containsKey("lastCrawled") ||
+                        query.getLong("lastCrawled") + query.getLong("interval", defaultInterval) <= now)
+                .sorted(Comparator.comparing((JsonObject query) -> query.getInteger("priority", 0)).reversed())
+                .map(query -> query.getString("name"))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Helper method for retrieving a service from service discovery, wrapped in a Single so that it can be easily
      * utilised in an rx chain.
@@ -125,7 +159,7 @@ public class SentimentServiceVerticle extends AbstractVerticle {
     private <T> Single<T> rxGetService(String recordName, Class<T> clazz) {
 
         return Single.create(new SingleOnSubscribeAdapter<T>(fut ->
-                EventBusService.getServiceProxy(serviceDiscovery, record -> record.getName().equals(recordName), clazz, fut)
+                LocalServices.getServiceProxy(serviceDiscovery.getDelegate(), recordName, clazz, fut)
         ));
     }
 
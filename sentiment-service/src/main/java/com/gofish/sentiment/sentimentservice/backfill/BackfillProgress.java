@@ -0,0 +1,75 @@
+package com.gofish.sentiment.sentimentservice.backfill;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Tracks the progress of a backfill through its input file. The file is read in batches, several of which can be in
+ * flight at once and complete in any order. A batch is identified by the offset (in bytes) at which it ends, and the
+ * backfill can only safely resume from the end of a batch once that batch, and every batch before it, has completed.
+ * That offset is the checkpoint.
+ *
+ * @author Luke Herron
+ */
+class BackfillProgress {
+
+    private final Deque<Batch> batches = new ArrayDeque<>();
+    private long checkpoint;
+
+    /**
+     * @param checkpoint the offset from which the file is being read
+     */
+    BackfillProgress(long checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Records that a batch ending at the supplied offset has been sent for processing. Batches must be started in the
+     * order in which they appear in the file.
+     * @param endOffset the offset at which the batch ends
+     */
+    void start(long endOffset) {
+        batches.addLast(new Batch(endOffset));
+    }
+
+    /**
+     * Records that the batch ending at the supplied offset has completed
+     * @param endOffset the offset at which the batch ends
+     * @return true if the checkpoint moved forward as a result
+     */
+    boolean complete(long endOffset) {
+        batches.stream().filter(batch -> batch.endOffset == endOffset).findFirst().ifPresent(batch -> batch.completed = true);
+
+        boolean advanced = false;
+        while (!batches.isEmpty() && batches.peekFirst().completed) {
+            checkpoint = batches.removeFirst().endOffset;
+            advanced = true;
+        }
+
+        return advanced;
+    }
+
+    /**
+     * @return the offset up to which every batch has completed
+     */
+    long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @return true if no batch is still being processed
+     */
+    boolean isIdle() {
+        return batches.isEmpty();
+    }
+
+    private static class Batch {
+
+        private final long endOffset;
+        private boolean completed;
+
+        private Batch(long endOffset) {
+            this.endOffset = endOffset;
+        }
+    }
+}
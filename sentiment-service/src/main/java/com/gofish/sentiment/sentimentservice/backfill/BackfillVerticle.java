@@ -0,0 +1,319 @@
+package com.gofish.sentiment.sentimentservice.backfill;
+
+import com.gofish.sentiment.sentimentservice.rxjava.SentimentService;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.parsetools.RecordParser;
+import io.vertx.rxjava.core.AbstractVerticle;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+
+/**
+ * Backfills storage with historical articles, which are read from a file rather than crawled. The file holds one
+ * article per line as json (i.e. NDJSON), in the form returned by the news crawler. Lines which are not json, or whose
+ * article has no name or description, are counted as invalid and skipped. The file is streamed, and its articles are
+ * sent in batches for analysis and linking, after which each batch is saved to storage in a single bulk write. At most
+ * "parallelism" batches are in flight at once, and reading is paused while that many batches are waiting, so the
+ * backfill runs in constant memory however large the file is.
+ *
+ * Once every batch up to a point in the file has been saved, that point is written to a checkpoint file. A batch which
+ * fails, or whose save reports write errors, stops the backfill without moving the checkpoint past it. If the backfill
+ * is stopped or fails, running it again resumes from the checkpoint. As saves are idempotent, articles after the
+ * checkpoint which were already saved are simply matched again. Once the whole file has been read and saved, vertx is
+ * closed.
+ *
+ * The verticle takes the sentiment service configuration, along with a "backfill" section: "path" (the file to read),
+ * "query" (the query to store the articles under), "batch.size", "parallelism" and "checkpoint" (the checkpoint file,
+ * which defaults to the path with ".checkpoint" appended).
+ *
+ * @author Luke Herron
+ */
+public class BackfillVerticle extends AbstractVerticle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BackfillVerticle.class);
+    private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private Context context;
+    private SentimentService sentimentService;
+    private AsyncFile file;
+    private String query;
+    private String checkpointPath;
+    private int batchSize;
+    private int parallelism;
+
+    private BackfillProgress progress;
+    private final Deque<Batch> ready = new ArrayDeque<>();
+    private JsonArray current = new JsonArray();
+    private long offset;
+    private long readOffset;
+    private int inFlight = 0;
+    private boolean ended = false;
+    private boolean failed = false;
+    private boolean writingCheckpoint = false;
+    private boolean checkpointDirty = false;
+    private long inserted = 0;
+    private long matched = 0;
+    private long skipped = 0;
+    private long invalid = 0;
+
+    @Override
+    public void start(Future<Void> startFuture) throws Exception {
+        JsonObject config = Optional.ofNullable(config()).orElseThrow(() -> new RuntimeException("Could not load sentiment service configuration"));
+        JsonObject backfillConfig = config.getJsonObject("backfill", new JsonObject());
+        String path = Optional.ofNullable(backfillConfig.getString("path")).orElseThrow(() -> new RuntimeException("No backfill path configured"));
+        query = Optional.ofNullable(backfillConfig.getString("query")).orElseThrow(() -> new RuntimeException("No backfill query configured")).toLowerCase();
+        checkpointPath = backfillConfig.getString("checkpoint", path + ".checkpoint");
+        batchSize = backfillConfig.getInteger("batch.size", DEFAULT_BATCH_SIZE);
+        parallelism = backfillConfig.getInteger("parallelism", DEFAULT_PARALLELISM);
+
+        context = vertx.getOrCreateContext().getDelegate();
+        sentimentService = createSentimentService(config);
+
+        offset = readCheckpoint();
+        readOffset = offset;
+        progress = new BackfillProgress(offset);
+        LOG.info("Backfilling ''{0}'' under query ''{1}'', starting at offset {2}", path, query, offset);
+
+        vertx.getDelegate().fileSystem().open(path, new OpenOptions().setRead(true).setWrite(false), opened -> {
+            if (opened.failed()) {
+                startFuture.fail(opened.cause());
+                return;
+            }
+
+            file = opened.result();
+            final RecordParser parser = RecordParser.newDelimited("\n", this::handleRecord);
+            file.setReadPos(offset)
+                    .exceptionHandler(error -> {
+                        LOG.error("Failed to read the backfill file", error);
+                        fail();
+                    })
+                    .endHandler(v -> {
+                        // The parser only emits a record once it sees the delimiter after it, so flush the last line
+                        parser.handle(Buffer.buffer("\n"));
+                        ended = true;
+                        if (current.size() > 0) {
+                            enqueue();
+                        }
+                        dispatch();
+                    })
+                    .handler(buffer -> {
+                        readOffset += buffer.length();
+                        parser.handle(buffer);
+                    });
+
+            startFuture.complete();
+        });
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * Creates the service which analyses and saves each batch
+     */
+    SentimentService createSentimentService(JsonObject config) {
+        return SentimentService.create(vertx, config);
+    }
+
+    /**
+     * Called once the backfill has completed or failed, and the last checkpoint has been written
+     */
+    void finish() {
+        vertx.close();
+    }
+
+    /**
+     * Reads the offset to resume from, or 0 if there is no checkpoint
+     */
+    private long readCheckpoint() {
+        if (!vertx.getDelegate().fileSystem().existsBlocking(checkpointPath)) {
+            return 0;
+        }
+
+        return vertx.getDelegate().fileSystem().readFileBlocking(checkpointPath).toJsonObject().getLong("offset", 0L);
+    }
+
+    /**
+     * Adds an article (one line of the file) to the current batch
+     */
+    private void handleRecord(Buffer record) {
+        // The delimiter is not part of the record, but is part of the file. The last line is flushed with a delimiter
+        // which is not part of the file, so the offset is kept within what has been read.
+        offset = Math.min(offset + record.length() + 1, readOffset);
+
+        final String line = record.toString().trim();
+        if (!line.isEmpty()) {
+            try {
+                final JsonObject article = new JsonObject(line);
+                if (isAnalysable(article)) {
+                    current.add(article);
+                }
+                else {
+                    // The analyser and linker reject such an article, which would fail its batch on every run
+                    invalid++;
+                    LOG.error("Skipping article without a name and description ending at offset {0}", offset);
+                }
+            }
+            catch (DecodeException e) {
+                invalid++;
+                LOG.error("Skipping invalid article ending at offset {0}: {1}", offset, e.getMessage());
+            }
+        }
+
+        if (current.size() >= batchSize) {
+            enqueue();
+            dispatch();
+        }
+    }
+
+    /**
+     * Checks that an article has the fields which analysis and linking require i.e. its name and description
+     */
+    private static boolean isAnalysable(JsonObject article) {
+        return article.getValue("name") instanceof String && article.getValue("description") instanceof String;
+    }
+
+    /**
+     * Queues the current batch to be sent, and pauses reading if enough batches are already queued
+     */
+    private void enqueue() {
+        ready.addLast(new Batch(current, offset));
+        current = new JsonArray();
+
+        if (ready.size() >= parallelism) {
+            file.pause();
+        }
+    }
+
+    /**
+     * Sends queued batches while there is room for them, resuming reading once the queue has drained
+     */
+    private void dispatch() {
+        while (!failed && inFlight < parallelism && !ready.isEmpty()) {
+            final Batch batch = ready.removeFirst();
+            inFlight++;
+            progress.start(batch.endOffset);
+
+            sentimentService.rxAnalyseArticles(query, batch.articles).subscribe(
+                    result -> context.runOnContext(v -> {
+                        inserted += result.getLong("inserted", 0L);
+                        matched += result.getLong("matched", 0L);
+                        skipped += result.getLong("skipped", 0L);
+
+                        final JsonArray writeErrors = result.getJsonArray("writeErrors", new JsonArray());
+                        if (writeErrors.isEmpty()) {
+                            complete(batch);
+                        }
+                        else {
+                            LOG.error("Failed to save {0} articles of the batch ending at offset {1}: {2}",
+                                    writeErrors.size(), batch.endOffset, writeErrors.encode());
+                            fail();
+                        }
+                    }),
+                    error -> context.runOnContext(v -> {
+                        LOG.error("Failed to backfill the batch ending at offset {0}", error, batch.endOffset);
+                        fail();
+                    }));
+        }
+
+        if (failed) {
+            return;
+        }
+
+        if (!ended && ready.size() < parallelism) {
+            file.resume();
+        }
+
+        if (ended && ready.isEmpty() && progress.isIdle()) {
+            LOG.info("Backfill complete: {0} inserted, {1} matched, {2} skipped, {3} invalid", inserted, matched, skipped, invalid);
+            writeCheckpoint();
+        }
+    }
+
+    private void complete(Batch batch) {
+        inFlight--;
+        if (failed) {
+            return;
+        }
+
+        if (progress.complete(batch.endOffset)) {
+            LOG.info("Backfilled up to offset {0} ({1} inserted, {2} matched)", progress.getCheckpoint(), inserted, matched);
+            writeCheckpoint();
+        }
+
+        dispatch();
+    }
+
+    /**
+     * Stops reading and sending batches. Batches which are already in flight are left to complete, but no longer move
+     * the checkpoint.
+     */
+    private void fail() {
+        if (failed) {
+            return;
+        }
+
+        failed = true;
+        file.pause();
+        LOG.error("Backfill failed, it will resume from offset {0} when run again", progress.getCheckpoint());
+
+        if (!writingCheckpoint) {
+            finish();
+        }
+    }
+
+    /**
+     * Writes the checkpoint file. Writes are never overlapped, and if the checkpoint moves while a write is in progress,
+     * it is written again once that write completes. Once the backfill is complete (or has failed) and the last
+     * checkpoint is written, the backfill is finished.
+     */
+    private void writeCheckpoint() {
+        if (writingCheckpoint) {
+            checkpointDirty = true;
+            return;
+        }
+
+        writingCheckpoint = true;
+        final Buffer checkpoint = Buffer.buffer(new JsonObject().put("offset", progress.getCheckpoint()).encode());
+        vertx.getDelegate().fileSystem().writeFile(checkpointPath, checkpoint, written -> {
+            writingCheckpoint = false;
+            if (written.failed()) {
+                LOG.error("Failed to write the backfill checkpoint", written.cause());
+            }
+
+            if (checkpointDirty) {
+                checkpointDirty = false;
+                writeCheckpoint();
+            }
+            else if (failed || (ended && ready.isEmpty() && progress.isIdle())) {
+                finish();
+            }
+        });
+    }
+
+    private static class Batch {
+
+        private final JsonArray articles;
+        private final long endOffset;
+
+        private Batch(JsonArray articles, long endOffset) {
+            this.articles = articles;
+            this.endOffset = endOffset;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.gofish.sentiment.sentimentservice.limit;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import rx.Single;
+import rx.SingleSubscriber;
+import rx.subscriptions.Subscriptions;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Adaptive concurrency limiter for calls made to a downstream service. The limiter bounds the number of calls which can
+ * be in flight at once, queueing any calls over the limit until a slot frees up. The queue is itself bounded, and a call
+ * made while it is full fails straight away with a QueueFullException. A queued call which is unsubscribed from is
+ * dropped from the queue without being run. The limit itself is tuned using an
+ * additive-increase/multiplicative-decrease (AIMD) policy:
+ * <ul>
+ *     <li>each call which completes within the latency threshold, while the limiter is being well utilised, increases
+ *     the limit by one</li>
+ *     <li>each call which is rejected for overload (e.g. a 429 response) or which exceeds the latency threshold
+ *     multiplies the limit by the backoff ratio</li>
+ * </ul>
+ * This keeps latency bounded when a provider slows down, while letting throughput grow again once it recovers.
+ *
+ * @author Luke Herron
+ */
+public class AdaptiveLimiter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveLimiter.class);
+
+    private static final int DEFAULT_INITIAL_LIMIT = 10;
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 100;
+    private static final long DEFAULT_LATENCY_THRESHOLD = 5000;
+    private static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    private static final int DEFAULT_MAX_PENDING = 1000;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThreshold;
+    private final double backoffRatio;
+    private final Predicate<Throwable> isOverload;
+    private final int maxPending;
+    private final Deque<Runnable> pending = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight = 0;
+
+    AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, long latencyThreshold,
+                    double backoffRatio, Predicate<Throwable> isOverload) {
+        this(name, initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, isOverload, DEFAULT_MAX_PENDING);
+    }
+
+    AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, long latencyThreshold,
+                    double backoffRatio, Predicate<Throwable> isOverload, int maxPending) {
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThreshold = latencyThreshold;
+        this.backoffRatio = backoffRatio;
+        this.isOverload = isOverload;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Factory method for creating an AdaptiveLimiter. The following values are read from the config json object, with
+     * defaults used for any which are missing: "initial", "min", "max", "latency.threshold" (ms), "backoff.ratio" and
+     * "queue.max" (the number of calls which may wait for a slot).
+     * @param name the name of the downstream service this limiter guards, used for logging
+     * @param config JsonObject for configuring the limiter
+     * @param isOverload Predicate which determines if a failed call was caused by the downstream service being
+     *                   overloaded (in which case the limit is reduced) rather than by some other error
+     * @return AdaptiveLimiter object
+     */
+    public static AdaptiveLimiter create(String name, JsonObject config, Predicate<Throwable> isOverload) {
+        return new AdaptiveLimiter(name,
+                config.getInteger("initial", DEFAULT_INITIAL_LIMIT),
+                config.getInteger("min", DEFAULT_MIN_LIMIT),
+                config.getInteger("max", DEFAULT_MAX_LIMIT),
+                config.getLong("latency.threshold", DEFAULT_LATENCY_THRESHOLD),
+                config.getDouble("backoff.ratio", DEFAULT_BACKOFF_RATIO),
+                isOverload,
+                config.getInteger("queue.max", DEFAULT_MAX_PENDING));
+    }
+
+    /**
+     * Wraps the supplied operation so that it only executes once the limiter has a free slot for it. The operation's
+     * latency and outcome are fed back to the limiter so that the limit can be tuned.
+     * @param operation Single which performs the call to the downstream service. This is subscribed to lazily.
+     * @param <T> The type emitted by the operation
+     * @return Single which emits the result of the operation once it has been permitted to execute, or fails with a
+     * QueueFullException if too many calls are already waiting
+     */
+    public <T> Single<T> rxExecute(Single<T> operation) {
+
+        return Single.create(subscriber -> {
+            final Runnable call = () -> {
+                if (subscriber.isUnsubscribed()) {
+                    // Nobody is waiting on the result any more, so hand the slot straight on
+                    free();
+                    return;
+                }
+
+                final long start = System.nanoTime();
+
+                operation.subscribe(new SingleSubscriber<T>() {
+                    @Override
+                    public void onSuccess(T value) {
+                        release(start, false);
+                        subscriber.onSuccess(value);
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        release(start, isOverload.test(error));
+                        subscriber.onError(error);
+                    }
+                });
+            };
+
+            subscriber.add(Subscriptions.create(() -> cancel(call)));
+
+            if (!acquire(call)) {
+                subscriber.onError(new QueueFullException(name, maxPending));
+            }
+        });
+    }
+
+    /**
+     * Retrieves the current concurrency limit
+     * @return the number of calls which are currently permitted to be in flight at once
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Retrieves the number of calls which are currently in flight
+     * @return the number of in flight calls
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Retrieves the number of calls which are queued waiting for a free slot
+     * @return the number of queued calls
+     */
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Runs the call if there is a free slot, otherwise queues it
+     * @return false if the call was neither run nor queued, as the queue is full
+     */
+    private boolean acquire(Runnable call) {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                if (pending.size() >= maxPending) {
+                    return false;
+                }
+
+                pending.add(call);
+                return true;
+            }
+
+            inFlight++;
+        }
+
+        call.run();
+        return true;
+    }
+
+    private synchronized void cancel(Runnable call) {
+        pending.remove(call);
+    }
+
+    private void release(long start, boolean overloaded) {
+        final long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        synchronized (this) {
+            final int previousLimit = (int) limit;
+
+            if (overloaded || latency > latencyThreshold) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            }
+            else if (inFlight * 2 >= limit) {
+                // Only grow the limit when it is actually being utilised, otherwise a quiet period would let it grow
+                // without bound
+                limit = Math.min(maxLimit, limit + 1);
+            }
+
+            if ((int) limit != previousLimit) {
+                LOG.debug("Concurrency limit for {0} changed from {1} to {2} (latency {3}ms, overloaded {4})",
+                        name, previousLimit, (int) limit, latency, overloaded);
+            }
+        }
+
+        free();
+    }
+
+    /**
+     * Frees the slot of a call, and runs as many of the queued calls as the limit allows
+     */
+    private void free() {
+        final Deque<Runnable> ready = new ArrayDeque<>();
+
+        synchronized (this) {
+            inFlight--;
+
+            while (!pending.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                ready.add(pending.poll());
+            }
+        }
+
+        // Run the next calls outside of the lock, as they may complete synchronously and re-enter the limiter
+        ready.forEach(Runnable::run);
+    }
+
+    /**
+     * Error returned for a call which was not made because too many calls were already waiting for a slot
+     */
+    public static final class QueueFullException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private QueueFullException(String name, int maxPending) {
+            super("Too many calls (" + maxPending + ") are waiting on " + name);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.gofish.sentiment.sentimentservice.retry;
+
+import io.vertx.core.json.JsonObject;
+import rx.Observable;
+import rx.functions.Func1;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Retry policy for calls made to the downstream services. Failed calls are retried with an exponentially increasing,
+ * jittered delay, until either the maximum number of attempts has been made or the next attempt would fall after the
+ * caller's deadline. Where the failure itself states how long to wait (e.g. the Retry-After of a 429 response), the
+ * retry is delayed by at least that long.
+ *
+ * @author Luke Herron
+ */
+public class RetryPolicy {
+
+    public static final long NOT_RETRYABLE = -1;
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 10;
+    private static final long DEFAULT_INITIAL_DELAY = 200;
+    private static final long DEFAULT_MAX_DELAY = 30000;
+    private static final double DEFAULT_MULTIPLIER = 2.0;
+    private static final double DEFAULT_JITTER = 0.5;
+
+    private final int maxAttempts;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final double multiplier;
+    private final double jitter;
+
+    RetryPolicy(int maxAttempts, long initialDelay, long maxDelay, double multiplier, double jitter) {
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Factory method for creating a RetryPolicy. The following values are read from the config json object, with
+     * defaults used for any which are missing: "max.attempts", "initial.delay" (ms), "max.delay" (ms), "multiplier" and
+     * "jitter" (the fraction of each delay which is randomised, between 0 and 1).
+     * @param config JsonObject for configuring the RetryPolicy
+     * @return RetryPolicy object
+     */
+    public static RetryPolicy create(JsonObject config) {
+        return new RetryPolicy(
+                config.getInteger("max.attempts", DEFAULT_MAX_ATTEMPTS),
+                config.getLong("initial.delay", DEFAULT_INITIAL_DELAY),
+                config.getLong("max.delay", DEFAULT_MAX_DELAY),
+                config.getDouble("multiplier", DEFAULT_MULTIPLIER),
+                Math.max(0, Math.min(1, config.getDouble("jitter", DEFAULT_JITTER))));
+    }
+
+    /**
+     * Creates a handler for use with retryWhen, which resubscribes to the failed source according to this policy.
+     * @param deadline the time (epoch ms) after which no further attempts should be made
+     * @param minimumDelay Function which, for a given error, returns the minimum delay (ms) before the next attempt, or
+     *                     NOT_RETRYABLE if the error should not be retried at all
+     * @return Function to be passed to retryWhen
+     */
+    public Func1<Observable<? extends Throwable>, Observable<?>> retryWhen(long deadline, ToLongFunction<Throwable> minimumDelay) {
+
+        return errors -> {
+            final AtomicInteger attempts = new AtomicInteger(0);
+
+            return errors.flatMap(error -> {
+                final long minimum = minimumDelay.applyAsLong(error);
+                final int attempt = attempts.incrementAndGet();
+
+                if (minimum == NOT_RETRYABLE || attempt >= maxAttempts) {
+                    return Observable.error(error);
+                }
+
+                // Compare against the time remaining, rather than adding the delay to now, so that a very long delay
+                // can't overflow past the deadline
+                final long delay = computeDelay(attempt, minimum);
+                if (delay > deadline - System.currentTimeMillis()) {
+                    return Observable.error(error);
+                }
+
+                return Observable.timer(delay, TimeUnit.MILLISECONDS);
+            });
+        };
+    }
+
+    /**
+     * Computes the delay before the given attempt. The minimum delay is also jittered (upwards), so that callers which
+     * were all told to wait for the same Retry-After don't all retry at the same instant.
+     * @param attempt the number of attempts which have failed so far (starting at 1)
+     * @param minimumDelay the minimum delay (ms) required by the failure
+     * @return the delay in ms
+     */
+    long computeDelay(int attempt, long minimumDelay) {
+        final double spread = jitter * ThreadLocalRandom.current().nextDouble();
+        final double backoff = Math.min(maxDelay, initialDelay * Math.pow(multiplier, attempt - 1));
+
+        final long minimumSpread = (long) (initialDelay * spread);
+        final long minimum = minimumDelay <= 0 ? 0 :
+                minimumDelay > Long.MAX_VALUE - minimumSpread ? Long.MAX_VALUE : minimumDelay + minimumSpread;
+
+        return Math.max(minimum, (long) (backoff - backoff * spread));
+    }
+}
@@ -0,0 +1,50 @@
+package com.gofish.sentiment.sentimentservice;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Luke Herron
+ */
+public class SentimentServiceVerticleTest {
+
+    @Test
+    public void testQueryIsDueIfNeverCrawled() {
+        JsonArray queries = new JsonArray().add(new JsonObject().put("name", "new").put("interval", 1000L));
+
+        assertEquals(Collections.singletonList("new"), SentimentServiceVerticle.getDueQueries(queries, 0, 5000));
+    }
+
+    @Test
+    public void testQueryIsDueOnceIntervalHasPassed() {
+        JsonArray queries = new JsonArray()
+                .add(new JsonObject().put("name", "due").put("lastCrawled", 1000L).put("interval", 1000L))
+                .add(new JsonObject().put("name", "waiting").put("lastCrawled", 1500L).put("interval", 1000L));
+
+        assertEquals(Collections.singletonList("due"), SentimentServiceVerticle.getDueQueries(queries, 2000, 5000));
+    }
+
+    @Test
+    public void testDefaultIntervalIsUsedIfQueryHasNone() {
+        JsonArray queries = new JsonArray().add(new JsonObject().put("name", "migrated").put("lastCrawled", 1000L));
+
+        assertEquals(Collections.emptyList(), SentimentServiceVerticle.getDueQueries(queries, 2000, 5000));
+        assertEquals(Collections.singletonList("migrated"), SentimentServiceVerticle.getDueQueries(queries, 6000, 5000));
+    }
+
+    @Test
+    public void testDueQueriesAreOrderedByPriority() {
+        JsonArray queries = new JsonArray()
+                .add(new JsonObject().put("name", "low").put("priority", -1))
+                .add(new JsonObject().put("name", "default"))
+                .add(new JsonObject().put("name", "high").put("priority", 10));
+
+        assertEquals(Arrays.asList("high", "default", "low"), SentimentServiceVerticle.getDueQueries(queries, 0, 5000));
+    }
+}
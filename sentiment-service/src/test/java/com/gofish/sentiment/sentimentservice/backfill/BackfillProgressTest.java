@@ -0,0 +1,40 @@
+package com.gofish.sentiment.sentimentservice.backfill;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class BackfillProgressTest {
+
+    @Test
+    public void testCheckpointStartsAtResumeOffset() {
+        BackfillProgress progress = new BackfillProgress(100);
+
+        assertEquals(100, progress.getCheckpoint());
+        assertTrue(progress.isIdle());
+    }
+
+    @Test
+    public void testCheckpointWaitsForEarlierBatches() {
+        BackfillProgress progress = new BackfillProgress(0);
+        progress.start(10);
+        progress.start(20);
+        progress.start(30);
+
+        assertFalse(progress.complete(20));
+        assertEquals(0, progress.getCheckpoint());
+
+        assertTrue(progress.complete(10));
+        assertEquals(20, progress.getCheckpoint());
+        assertFalse(progress.isIdle());
+
+        assertTrue(progress.complete(30));
+        assertEquals(30, progress.getCheckpoint());
+        assertTrue(progress.isIdle());
+    }
+}
@@ -0,0 +1,166 @@
+package com.gofish.sentiment.sentimentservice.backfill;
+
+import com.gofish.sentiment.sentimentservice.rxjava.SentimentService;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @author Luke Herron
+ */
+@RunWith(VertxUnitRunner.class)
+public class BackfillVerticleTest {
+
+    private static final String FIRST = "{\"name\":\"a\",\"description\":\"first\"}";
+    private static final String SECOND = "{\"name\":\"b\",\"description\":\"second\"}";
+    private static final String THIRD = "{\"name\":\"c\",\"description\":\"third\"}";
+
+    @Rule
+    public final RunTestOnContext vertxRule = new RunTestOnContext();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Vertx vertx;
+    private List<JsonArray> batches;
+
+    @Before
+    public void setUp() {
+        vertx = vertxRule.vertx();
+        batches = new ArrayList<>();
+    }
+
+    @Test
+    public void testCheckpointIsEndOfFileOnceComplete(TestContext context) throws IOException {
+        final File file = write(FIRST + "\n" + SECOND + "\n" + THIRD + "\n");
+
+        backfill(context, file, 2, batch -> new JsonObject().put("inserted", batch.size()), () -> {
+            context.assertEquals(2, batches.size());
+            context.assertEquals(2, batches.get(0).size());
+            context.assertEquals("c", batches.get(1).getJsonObject(0).getString("name"));
+            // The newline flushed at the end of the file is not part of the file
+            context.assertEquals(file.length(), readCheckpoint(file));
+        });
+    }
+
+    @Test
+    public void testBackfillResumesFromCheckpoint(TestContext context) throws IOException {
+        // The last line has no newline, so is only read once the parser is flushed at the end of the file
+        final File file = write(FIRST + "\n" + SECOND + "\n" + THIRD);
+        Files.write(checkpoint(file).toPath(), new JsonObject().put("offset", FIRST.length() + 1).encode()
+                .getBytes(StandardCharsets.UTF_8));
+
+        backfill(context, file, 2, batch -> new JsonObject().put("inserted", batch.size()), () -> {
+            context.assertEquals(1, batches.size());
+            context.assertEquals(new JsonArray().add(new JsonObject(SECOND)).add(new JsonObject(THIRD)), batches.get(0));
+            context.assertEquals(file.length(), readCheckpoint(file));
+        });
+    }
+
+    @Test
+    public void testWriteErrorsStopCheckpointAtFailedBatch(TestContext context) throws IOException {
+        final File file = write(FIRST + "\n" + SECOND + "\n" + THIRD + "\n");
+        final JsonArray writeErrors = new JsonArray().add(new JsonObject().put("index", 0).put("code", 11000));
+
+        backfill(context, file, 1, batch -> batches.size() == 2 ?
+                new JsonObject().put("inserted", 0).put("writeErrors", writeErrors) :
+                new JsonObject().put("inserted", batch.size()), () -> {
+            context.assertEquals(2, batches.size());
+            context.assertEquals((long) FIRST.length() + 1, readCheckpoint(file));
+        });
+    }
+
+    @Test
+    public void testInvalidArticlesAreSkipped(TestContext context) throws IOException {
+        final File file = write(FIRST + "\n{\"name\":\"no description\"}\nnot json\n" + THIRD + "\n");
+
+        backfill(context, file, 2, batch -> new JsonObject().put("inserted", batch.size()), () -> {
+            context.assertEquals(1, batches.size());
+            context.assertEquals(new JsonArray().add(new JsonObject(FIRST)).add(new JsonObject(THIRD)), batches.get(0));
+            context.assertEquals(file.length(), readCheckpoint(file));
+        });
+    }
+
+    /**
+     * Runs a backfill of the file (with a single batch in flight at a time), checking the results once it finishes
+     */
+    private void backfill(TestContext context, File file, int batchSize, Function<JsonArray, JsonObject> results,
+                          Runnable verify) {
+        final Async finished = context.async();
+        final JsonObject config = new JsonObject().put("backfill", new JsonObject()
+                .put("path", file.getPath())
+                .put("query", "apple")
+                .put("batch.size", batchSize)
+                .put("parallelism", 1));
+
+        final BackfillVerticle verticle = new BackfillVerticle() {
+            @Override
+            SentimentService createSentimentService(JsonObject config) {
+                return new SentimentService(analyseWith(results));
+            }
+
+            @Override
+            void finish() {
+                verify.run();
+                finished.complete();
+            }
+        };
+
+        vertx.deployVerticle(verticle, new DeploymentOptions().setConfig(config), context.asyncAssertSuccess());
+    }
+
+    /**
+     * Creates a sentiment service which records each batch it is asked to analyse, and returns the supplied result
+     */
+    @SuppressWarnings("unchecked")
+    private com.gofish.sentiment.sentimentservice.SentimentService analyseWith(Function<JsonArray, JsonObject> results) {
+        return (com.gofish.sentiment.sentimentservice.SentimentService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { com.gofish.sentiment.sentimentservice.SentimentService.class },
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("analyseArticles")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+
+                    final JsonArray batch = (JsonArray) args[1];
+                    batches.add(batch);
+                    ((Handler<AsyncResult<JsonObject>>) args[2]).handle(Future.succeededFuture(results.apply(batch)));
+                    return proxy;
+                });
+    }
+
+    private File write(String contents) throws IOException {
+        final File file = folder.newFile("articles.ndjson");
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static File checkpoint(File file) {
+        return new File(file.getPath() + ".checkpoint");
+    }
+
+    private long readCheckpoint(File file) {
+        return vertx.fileSystem().readFileBlocking(checkpoint(file).getPath()).toJsonObject().getLong("offset");
+    }
+}
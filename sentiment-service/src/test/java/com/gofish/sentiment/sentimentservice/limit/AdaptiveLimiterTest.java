@@ -0,0 +1,116 @@
+package com.gofish.sentiment.sentimentservice.limit;
+
+import org.junit.Test;
+import rx.Single;
+import rx.Subscription;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class AdaptiveLimiterTest {
+
+    @Test
+    public void testCallsOverLimitAreQueuedUntilASlotFrees() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 2, 1, 10, 60000, 0.5, error -> true);
+        List<PublishSubject<String>> calls = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            PublishSubject<String> call = PublishSubject.create();
+            calls.add(call);
+            limiter.rxExecute(call.toSingle()).subscribe(results::add);
+        }
+
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getPending());
+
+        calls.get(0).onNext("first");
+        calls.get(0).onCompleted();
+
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(0, limiter.getPending());
+        assertEquals(1, results.size());
+    }
+
+    @Test
+    public void testLimitIncreasesOnSuccessWhileUtilised() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 2, 1, 10, 60000, 0.5, error -> true);
+
+        limiter.rxExecute(Single.just("result")).subscribe();
+
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitDecreasesOnOverload() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 8, 1, 10, 60000, 0.5, error -> true);
+
+        limiter.rxExecute(Single.error(new RuntimeException("429"))).subscribe(result -> {}, error -> {});
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitIsUnchangedOnNonOverloadError() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 8, 1, 10, 60000, 0.5, error -> false);
+
+        limiter.rxExecute(Single.error(new RuntimeException("Invalid Request"))).subscribe(result -> {}, error -> {});
+
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testLimitNeverFallsBelowMinimum() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 2, 1, 10, 60000, 0.1, error -> true);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.rxExecute(Single.error(new RuntimeException("429"))).subscribe(result -> {}, error -> {});
+        }
+
+        assertTrue(limiter.getLimit() >= 1);
+    }
+
+    @Test
+    public void testCallFailsWhenQueueIsFull() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 10, 60000, 0.5, error -> true, 1);
+        List<Throwable> errors = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            limiter.rxExecute(PublishSubject.<String>create().toSingle()).subscribe(result -> {}, errors::add);
+        }
+
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getPending());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof AdaptiveLimiter.QueueFullException);
+    }
+
+    @Test
+    public void testUnsubscribedCallIsDroppedFromQueue() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 10, 60000, 0.5, error -> true);
+        PublishSubject<String> first = PublishSubject.create();
+        PublishSubject<String> second = PublishSubject.create();
+
+        limiter.rxExecute(first.toSingle()).subscribe();
+        Subscription queued = limiter.rxExecute(second.toSingle()).subscribe();
+        assertEquals(1, limiter.getPending());
+
+        queued.unsubscribe();
+        assertEquals(0, limiter.getPending());
+
+        first.onNext("first");
+        first.onCompleted();
+
+        assertEquals(0, limiter.getInFlight());
+        assertFalse(second.hasObservers());
+    }
+}
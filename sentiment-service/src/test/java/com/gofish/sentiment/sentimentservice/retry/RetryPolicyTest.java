@@ -0,0 +1,127 @@
+package com.gofish.sentiment.sentimentservice.retry;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class RetryPolicyTest {
+
+    @Test
+    public void testDelayGrowsExponentiallyUpToMaxDelay() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 2.0, 0);
+
+        assertEquals(100, policy.computeDelay(1, 0));
+        assertEquals(200, policy.computeDelay(2, 0));
+        assertEquals(400, policy.computeDelay(3, 0));
+        assertEquals(1000, policy.computeDelay(5, 0));
+    }
+
+    @Test
+    public void testDelayIsNeverLessThanMinimumDelay() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 2.0, 0.5);
+
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.computeDelay(1, 5000);
+            assertTrue(delay >= 5000 && delay <= 5050);
+        }
+    }
+
+    @Test
+    public void testJitterOnlyReducesBackoff() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 2.0, 0.5);
+
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.computeDelay(2, 0);
+            assertTrue(delay >= 100 && delay <= 200);
+        }
+    }
+
+    @Test
+    public void testRetriesUntilMaxAttempts() {
+        RetryPolicy policy = new RetryPolicy(3, 1, 1, 1.0, 0);
+        AtomicInteger subscriptions = new AtomicInteger(0);
+        TestSubscriber<Object> subscriber = new TestSubscriber<>();
+
+        Observable.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Observable.error(new RuntimeException("failed"));
+        })
+                .retryWhen(policy.retryWhen(Long.MAX_VALUE, error -> 0))
+                .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(RuntimeException.class);
+        assertEquals(3, subscriptions.get());
+    }
+
+    @Test
+    public void testNonRetryableErrorFailsImmediately() {
+        RetryPolicy policy = new RetryPolicy(3, 1, 1, 1.0, 0);
+        AtomicInteger subscriptions = new AtomicInteger(0);
+        TestSubscriber<Object> subscriber = new TestSubscriber<>();
+
+        Observable.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Observable.error(new RuntimeException("failed"));
+        })
+                .retryWhen(policy.retryWhen(Long.MAX_VALUE, error -> RetryPolicy.NOT_RETRYABLE))
+                .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(RuntimeException.class);
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    public void testDoesNotRetryPastDeadline() {
+        RetryPolicy policy = new RetryPolicy(10, 1, 1, 1.0, 0);
+        AtomicInteger subscriptions = new AtomicInteger(0);
+        TestSubscriber<Object> subscriber = new TestSubscriber<>();
+
+        Observable.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Observable.error(new RuntimeException("failed"));
+        })
+                .retryWhen(policy.retryWhen(System.currentTimeMillis() + 1000, error -> 60000))
+                .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(RuntimeException.class);
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    public void testHugeMinimumDelayDoesNotOverflow() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 2.0, 0.5);
+
+        assertEquals(Long.MAX_VALUE, policy.computeDelay(1, Long.MAX_VALUE));
+        assertTrue(policy.computeDelay(1, Long.MAX_VALUE - 1) > 0);
+    }
+
+    @Test
+    public void testDoesNotRetryPastDeadlineWithHugeMinimumDelay() {
+        RetryPolicy policy = new RetryPolicy(10, 1, 1, 1.0, 0);
+        AtomicInteger subscriptions = new AtomicInteger(0);
+        TestSubscriber<Object> subscriber = new TestSubscriber<>();
+
+        Observable.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Observable.error(new RuntimeException("failed"));
+        })
+                .retryWhen(policy.retryWhen(System.currentTimeMillis() + 1000, error -> Long.MAX_VALUE - System.currentTimeMillis()))
+                .subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(RuntimeException.class);
+        assertEquals(1, subscriptions.get());
+    }
+}
@@ -45,6 +45,7 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import com.gofish.sentiment.storage.StorageService;
+import com.gofish.sentiment.storage.Granularity;
 
 /*
   Generated Proxy code - DO NOT EDIT
@@ -127,6 +128,10 @@ public class StorageServiceVertxProxyHandler extends ProxyHandler {
 
 
 
+        case "addQuery": {
+          service.addQuery((java.lang.String)json.getValue("query"), createHandler(msg));
+          break;
+        }
         case "createCollection": {
           service.createCollection((java.lang.String)json.getValue("collectionName"), createHandler(msg));
           break;
@@ -135,16 +140,32 @@ public class StorageServiceVertxProxyHandler extends ProxyHandler {
           service.createIndex((java.lang.String)json.getValue("collectionName"), (io.vertx.core.json.JsonObject)json.getValue("collectionIndex"), createHandler(msg));
           break;
         }
+        case "getArticles": {
+          service.getArticles((java.lang.String)json.getValue("query"), (io.vertx.core.json.JsonObject)json.getValue("filter"), (io.vertx.core.json.JsonObject)json.getValue("projection"), (java.lang.String)json.getValue("cursor"), json.getValue("limit") == null ? null : (json.getLong("limit").intValue()), createHandler(msg));
+          break;
+        }
         case "getCollections": {
           service.getCollections(createHandler(msg));
           break;
         }
+        case "getQueries": {
+          service.getQueries(createHandler(msg));
+          break;
+        }
         case "getSentimentResults": {
-          service.getSentimentResults((java.lang.String)json.getValue("collectionName"), createHandler(msg));
+          service.getSentimentResults((java.lang.String)json.getValue("query"), createHandler(msg));
+          break;
+        }
+        case "getEntitySentiment": {
+          service.getEntitySentiment((java.lang.String)json.getValue("query"), json.getValue("from") == null ? null : (json.getLong("from").longValue()), json.getValue("to") == null ? null : (json.getLong("to").longValue()), json.getValue("limit") == null ? null : (json.getLong("limit").intValue()), createHandler(msg));
+          break;
+        }
+        case "getSentimentTimeSeries": {
+          service.getSentimentTimeSeries((java.lang.String)json.getValue("query"), json.getValue("from") == null ? null : (json.getLong("from").longValue()), json.getValue("to") == null ? null : (json.getLong("to").longValue()), json.getString("granularity") == null ? null : com.gofish.sentiment.storage.Granularity.valueOf(json.getString("granularity")), createHandler(msg));
           break;
         }
         case "hasArticle": {
-          service.hasArticle((java.lang.String)json.getValue("collectionName"), (java.lang.String)json.getValue("articleName"), (java.lang.String)json.getValue("articleDescription"), createHandler(msg));
+          service.hasArticle((java.lang.String)json.getValue("query"), (java.lang.String)json.getValue("articleName"), (java.lang.String)json.getValue("articleDescription"), createHandler(msg));
           break;
         }
         case "hasCollection": {
@@ -156,7 +177,15 @@ public class StorageServiceVertxProxyHandler extends ProxyHandler {
           break;
         }
         case "saveArticles": {
-          service.saveArticles((java.lang.String)json.getValue("collectionName"), (io.vertx.core.json.JsonArray)json.getValue("articles"), createHandler(msg));
+          service.saveArticles((java.lang.String)json.getValue("query"), (io.vertx.core.json.JsonArray)json.getValue("articles"), createHandler(msg));
+          break;
+        }
+        case "saveOrUpdateArticles": {
+          service.saveOrUpdateArticles((java.lang.String)json.getValue("query"), (io.vertx.core.json.JsonArray)json.getValue("articles"), createHandler(msg));
+          break;
+        }
+        case "updateQuery": {
+          service.updateQuery((java.lang.String)json.getValue("query"), (io.vertx.core.json.JsonObject)json.getValue("metadata"), createHandler(msg));
           break;
         }
         default: {
@@ -24,8 +24,12 @@ import io.vertx.rxjava.core.Vertx;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
+import com.gofish.sentiment.storage.Granularity;
 
 /**
+ * Storage of news articles and their sentiment results. The articles of every query are kept in a single articles
+ * collection, and each query which has been searched for is recorded in a queries registry. The collection and index
+ * operations are general purpose, and are not needed to store articles.
  *
  * <p/>
  * NOTE: This class has been automatically generated from the {@link com.gofish.sentiment.storage.StorageService original} non RX-ified interface using Vert.x codegen.
@@ -69,6 +73,30 @@ public class StorageService {
     return ret;
   }
 
+  /**
+   * Adds a query to the queries registry, so that it will be included in future crawls. Adding a query which is
+   * already registered has no effect.
+   * @param query the query to add
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return 
+   */
+  public StorageService addQuery(String query, Handler<AsyncResult<Void>> resultHandler) { 
+    delegate.addQuery(query, resultHandler);
+    return this;
+  }
+
+  /**
+   * Adds a query to the queries registry, so that it will be included in future crawls. Adding a query which is
+   * already registered has no effect.
+   * @param query the query to add
+   * @return 
+   */
+  public Single<Void> rxAddQuery(String query) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      addQuery(query, fut);
+    }));
+  }
+
   /**
    * Create a mongo collection using the specified collection name.
    * @param collectionName the name of the collection to create
@@ -117,6 +145,40 @@ public class StorageService {
     }));
   }
 
+  /**
+   * Retrieves a page of the articles stored under a query, most recently stored first. The result holds the page's
+   * "articles" and, if there may be further articles, a "cursor" which is passed in to retrieve the next page. Pages
+   * are read from an index on the query and article id, so retrieving a later page does not scan the earlier ones.
+   * @param query the query that the articles were stored under
+   * @param filter json object holding further conditions (in mongo query syntax) which the articles must match, or null
+   * @param projection json object listing the fields of each article to retrieve, or null to retrieve the name, description, url, datePublished and sentiment
+   * @param cursor the cursor returned with the previous page, or null to retrieve the first page
+   * @param limit the maximum number of articles in the page
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return 
+   */
+  public StorageService getArticles(String query, JsonObject filter, JsonObject projection, String cursor, int limit, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.getArticles(query, filter, projection, cursor, limit, resultHandler);
+    return this;
+  }
+
+  /**
+   * Retrieves a page of the articles stored under a query, most recently stored first. The result holds the page's
+   * "articles" and, if there may be further articles, a "cursor" which is passed in to retrieve the next page. Pages
+   * are read from an index on the query and article id, so retrieving a later page does not scan the earlier ones.
+   * @param query the query that the articles were stored under
+   * @param filter json object holding further conditions (in mongo query syntax) which the articles must match, or null
+   * @param projection json object listing the fields of each article to retrieve, or null to retrieve the name, description, url, datePublished and sentiment
+   * @param cursor the cursor returned with the previous page, or null to retrieve the first page
+   * @param limit the maximum number of articles in the page
+   * @return 
+   */
+  public Single<JsonObject> rxGetArticles(String query, JsonObject filter, JsonObject projection, String cursor, int limit) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      getArticles(query, filter, projection, cursor, limit, fut);
+    }));
+  }
+
   /**
    * Retrieves a list of all current collections in mongo storage
    * @param resultHandler the result will be returned asynchronously in this handler
@@ -138,52 +200,140 @@ public class StorageService {
   }
 
   /**
-   * Retrieves the sentiment results for a specific collection name. A collection name maps to an API query, so any
-   * returned sentiment value will be relevant to the query that is being searched.
-   * @param collectionName the name of the collection that sentiment results will be retrieved from
+   * Retrieves every query in the queries registry. Each query is described by its name, createdAt, lastCrawled,
+   * lastRequested (all epoch ms), interval (ms between crawls) and priority. A query which has never been crawled has
+   * no lastCrawled. The registry is served from memory, so this does not query mongo.
    * @param resultHandler the result will be returned asynchronously in this handler
    * @return 
    */
-  public StorageService getSentimentResults(String collectionName, Handler<AsyncResult<JsonObject>> resultHandler) { 
-    delegate.getSentimentResults(collectionName, resultHandler);
+  public StorageService getQueries(Handler<AsyncResult<JsonArray>> resultHandler) { 
+    delegate.getQueries(resultHandler);
     return this;
   }
 
   /**
-   * Retrieves the sentiment results for a specific collection name. A collection name maps to an API query, so any
-   * returned sentiment value will be relevant to the query that is being searched.
-   * @param collectionName the name of the collection that sentiment results will be retrieved from
+   * Retrieves every query in the queries registry. Each query is described by its name, createdAt, lastCrawled,
+   * lastRequested (all epoch ms), interval (ms between crawls) and priority. A query which has never been crawled has
+   * no lastCrawled. The registry is served from memory, so this does not query mongo.
+   * @return 
+   */
+  public Single<JsonArray> rxGetQueries() { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      getQueries(fut);
+    }));
+  }
+
+  /**
+   * Retrieves the sentiment results for a specific query. If no articles have been stored for the query, the result
+   * is empty.
+   * @param query the query that sentiment results will be retrieved for
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return 
+   */
+  public StorageService getSentimentResults(String query, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.getSentimentResults(query, resultHandler);
+    return this;
+  }
+
+  /**
+   * Retrieves the sentiment results for a specific query. If no articles have been stored for the query, the result
+   * is empty.
+   * @param query the query that sentiment results will be retrieved for
+   * @return 
+   */
+  public Single<JsonObject> rxGetSentimentResults(String query) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      getSentimentResults(query, fut);
+    }));
+  }
+
+  /**
+   * Retrieves the entities which articles published within a time range were most often about, along with the
+   * sentiment of those articles. Each entity holds its name, count (the number of articles about it), mean, stddev,
+   * min and max. Entities are summarised by day, so the range is widened to the start of the day containing from.
+   * @param query the query that entities will be retrieved for, or null to retrieve them across all queries
+   * @param from the start of the time range (epoch ms), inclusive
+   * @param to the end of the time range (epoch ms), exclusive
+   * @param limit the maximum number of entities to retrieve
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return 
+   */
+  public StorageService getEntitySentiment(String query, long from, long to, int limit, Handler<AsyncResult<JsonArray>> resultHandler) { 
+    delegate.getEntitySentiment(query, from, to, limit, resultHandler);
+    return this;
+  }
+
+  /**
+   * Retrieves the entities which articles published within a time range were most often about, along with the
+   * sentiment of those articles. Each entity holds its name, count (the number of articles about it), mean, stddev,
+   * min and max. Entities are summarised by day, so the range is widened to the start of the day containing from.
+   * @param query the query that entities will be retrieved for, or null to retrieve them across all queries
+   * @param from the start of the time range (epoch ms), inclusive
+   * @param to the end of the time range (epoch ms), exclusive
+   * @param limit the maximum number of entities to retrieve
+   * @return 
+   */
+  public Single<JsonArray> rxGetEntitySentiment(String query, long from, long to, int limit) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      getEntitySentiment(query, from, to, limit, fut);
+    }));
+  }
+
+  /**
+   * Retrieves the sentiment results for a query as a time series. Each point of the series summarises the articles
+   * published within one bucket of the requested granularity, and holds the bucket's start (epoch ms), count, mean,
+   * stddev, min and max. Buckets without any articles are omitted.
+   * @param query the query that sentiment results will be retrieved for
+   * @param from the start of the time range (epoch ms), inclusive
+   * @param to the end of the time range (epoch ms), exclusive
+   * @param granularity the width of each bucket in the time series
+   * @param resultHandler the result will be returned asynchronously in this handler
    * @return 
    */
-  public Single<JsonObject> rxGetSentimentResults(String collectionName) { 
+  public StorageService getSentimentTimeSeries(String query, long from, long to, Granularity granularity, Handler<AsyncResult<JsonArray>> resultHandler) { 
+    delegate.getSentimentTimeSeries(query, from, to, granularity, resultHandler);
+    return this;
+  }
+
+  /**
+   * Retrieves the sentiment results for a query as a time series. Each point of the series summarises the articles
+   * published within one bucket of the requested granularity, and holds the bucket's start (epoch ms), count, mean,
+   * stddev, min and max. Buckets without any articles are omitted.
+   * @param query the query that sentiment results will be retrieved for
+   * @param from the start of the time range (epoch ms), inclusive
+   * @param to the end of the time range (epoch ms), exclusive
+   * @param granularity the width of each bucket in the time series
+   * @return 
+   */
+  public Single<JsonArray> rxGetSentimentTimeSeries(String query, long from, long to, Granularity granularity) { 
     return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
-      getSentimentResults(collectionName, fut);
+      getSentimentTimeSeries(query, from, to, granularity, fut);
     }));
   }
 
   /**
-   * Checks if an article with a specific name and description is currently contained in mongo storage
-   * @param collectionName the name of the collection that the article search will be conducted within
+   * Checks if an article with a specific name and description is currently stored for a query
+   * @param query the query that the article search will be conducted within
    * @param articleName the name of the article which we are searching for
    * @param articleDescription the description of the article which we are searching for
    * @param resultHandler the result will be returned asynchronously in this handler
    * @return 
    */
-  public StorageService hasArticle(String collectionName, String articleName, String articleDescription, Handler<AsyncResult<Boolean>> resultHandler) { 
-    delegate.hasArticle(collectionName, articleName, articleDescription, resultHandler);
+  public StorageService hasArticle(String query, String articleName, String articleDescription, Handler<AsyncResult<Boolean>> resultHandler) { 
+    delegate.hasArticle(query, articleName, articleDescription, resultHandler);
     return this;
   }
 
   /**
-   * Checks if an article with a specific name and description is currently contained in mongo storage
-   * @param collectionName the name of the collection that the article search will be conducted within
+   * Checks if an article with a specific name and description is currently stored for a query
+   * @param query the query that the article search will be conducted within
    * @param articleName the name of the article which we are searching for
    * @param articleDescription the description of the article which we are searching for
    * @return 
    */
-  public Single<Boolean> rxHasArticle(String collectionName, String articleName, String articleDescription) { 
+  public Single<Boolean> rxHasArticle(String query, String articleName, String articleDescription) { 
     return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
-      hasArticle(collectionName, articleName, articleDescription, fut);
+      hasArticle(query, articleName, articleDescription, fut);
     }));
   }
 
@@ -234,26 +384,84 @@ public class StorageService {
   }
 
   /**
-   * Stores the provided articles in the specified collection name.
-   * @param collectionName the name of the collection to store the articles in
+   * Stores the provided articles under the specified query. Articles which are already stored for the query are
+   * rejected, and reported as write errors in the result.
+   * @param query the query to store the articles under
    * @param articles json object containing a list of articles to store
    * @param resultHandler the result will be returned asynchronously in this handler
    * @return 
    */
-  public StorageService saveArticles(String collectionName, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler) { 
-    delegate.saveArticles(collectionName, articles, resultHandler);
+  public StorageService saveArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.saveArticles(query, articles, resultHandler);
     return this;
   }
 
   /**
-   * Stores the provided articles in the specified collection name.
-   * @param collectionName the name of the collection to store the articles in
+   * Stores the provided articles under the specified query. Articles which are already stored for the query are
+   * rejected, and reported as write errors in the result.
+   * @param query the query to store the articles under
    * @param articles json object containing a list of articles to store
    * @return 
    */
-  public Single<JsonObject> rxSaveArticles(String collectionName, JsonArray articles) { 
+  public Single<JsonObject> rxSaveArticles(String query, JsonArray articles) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      saveArticles(query, articles, fut);
+    }));
+  }
+
+  /**
+   * Stores the provided articles under the specified query, keyed by each article's fingerprint. Articles which are
+   * not yet stored for the query are inserted, and those which are already stored are replaced by the new copy, so
+   * saving the same articles again (e.g. on a retry) is safe. Only inserted articles are added to the query's time
+   * series and entity buckets. The result holds the number of articles "inserted" and "matched" (i.e. already stored).
+   * @param query the query to store the articles under
+   * @param articles json object containing a list of articles to store
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return 
+   */
+  public StorageService saveOrUpdateArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.saveOrUpdateArticles(query, articles, resultHandler);
+    return this;
+  }
+
+  /**
+   * Stores the provided articles under the specified query, keyed by each article's fingerprint. Articles which are
+   * not yet stored for the query are inserted, and those which are already stored are replaced by the new copy, so
+   * saving the same articles again (e.g. on a retry) is safe. Only inserted articles are added to the query's time
+   * series and entity buckets. The result holds the number of articles "inserted" and "matched" (i.e. already stored).
+   * @param query the query to store the articles under
+   * @param articles json object containing a list of articles to store
+   * @return 
+   */
+  public Single<JsonObject> rxSaveOrUpdateArticles(String query, JsonArray articles) { 
+    return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
+      saveOrUpdateArticles(query, articles, fut);
+    }));
+  }
+
+  /**
+   * Updates the metadata of a query in the queries registry. Only lastCrawled, lastRequested, interval and priority
+   * may be updated, and the update fails if the query is not registered.
+   * @param query the query to update
+   * @param metadata json object holding the fields to update
+   * @param resultHandler the result will be returned asynchronously in this handler
+   * @return 
+   */
+  public StorageService updateQuery(String query, JsonObject metadata, Handler<AsyncResult<JsonObject>> resultHandler) { 
+    delegate.updateQuery(query, metadata, resultHandler);
+    return this;
+  }
+
+  /**
+   * Updates the metadata of a query in the queries registry. Only lastCrawled, lastRequested, interval and priority
+   * may be updated, and the update fails if the query is not registered.
+   * @param query the query to update
+   * @param metadata json object holding the fields to update
+   * @return 
+   */
+  public Single<JsonObject> rxUpdateQuery(String query, JsonObject metadata) { 
     return Single.create(new io.vertx.rx.java.SingleOnSubscribeAdapter<>(fut -> {
-      saveArticles(collectionName, articles, fut);
+      updateQuery(query, metadata, fut);
     }));
   }
 
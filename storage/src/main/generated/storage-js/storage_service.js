@@ -23,6 +23,9 @@ var JsonObject = io.vertx.core.json.JsonObject;
 var JStorageService = Java.type('com.gofish.sentiment.storage.StorageService');
 
 /**
+ Storage of news articles and their sentiment results. The articles of every query are kept in a single articles
+ collection, and each query which has been searched for is recorded in a queries registry. The collection and index
+ operations are general purpose, and are not needed to store articles.
 
  @class
 */
@@ -31,6 +34,29 @@ var StorageService = function(j_val) {
   var j_storageService = j_val;
   var that = this;
 
+  /**
+   Adds a query to the queries registry, so that it will be included in future crawls. Adding a query which is
+   already registered has no effect.
+
+   @public
+   @param query {string} the query to add 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {StorageService}
+   */
+  this.addQuery = function(query, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
+      j_storageService["addQuery(java.lang.String,io.vertx.core.Handler)"](query, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(null, null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   /**
    Create a mongo collection using the specified collection name.
 
@@ -77,6 +103,34 @@ var StorageService = function(j_val) {
     } else throw new TypeError('function invoked with invalid arguments');
   };
 
+  /**
+   Retrieves a page of the articles stored under a query, most recently stored first. The result holds the page's
+   "articles" and, if there may be further articles, a "cursor" which is passed in to retrieve the next page. Pages
+   are read from an index on the query and article id, so retrieving a later page does not scan the earlier ones.
+
+   @public
+   @param query {string} the query that the articles were stored under 
+   @param filter {Object} json object holding further conditions (in mongo query syntax) which the articles must match, or null 
+   @param projection {Object} json object listing the fields of each article to retrieve, or null to retrieve the name, description, url, datePublished and sentiment 
+   @param cursor {string} the cursor returned with the previous page, or null to retrieve the first page 
+   @param limit {number} the maximum number of articles in the page 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {StorageService}
+   */
+  this.getArticles = function(query, filter, projection, cursor, limit, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 6 && typeof __args[0] === 'string' && (typeof __args[1] === 'object' && __args[1] != null) && (typeof __args[2] === 'object' && __args[2] != null) && typeof __args[3] === 'string' && typeof __args[4] ==='number' && typeof __args[5] === 'function') {
+      j_storageService["getArticles(java.lang.String,io.vertx.core.json.JsonObject,io.vertx.core.json.JsonObject,java.lang.String,int,io.vertx.core.Handler)"](query, utils.convParamJsonObject(filter), utils.convParamJsonObject(projection), cursor, limit, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
   /**
    Retrieves a list of all current collections in mongo storage
 
@@ -99,18 +153,41 @@ var StorageService = function(j_val) {
   };
 
   /**
-   Retrieves the sentiment results for a specific collection name. A collection name maps to an API query, so any
-   returned sentiment value will be relevant to the query that is being searched.
+   Retrieves every query in the queries registry. Each query is described by its name, createdAt, lastCrawled,
+   lastRequested (all epoch ms), interval (ms between crawls) and priority. A query which has never been crawled has
+   no lastCrawled. The registry is served from memory, so this does not query mongo.
 
    @public
-   @param collectionName {string} the name of the collection that sentiment results will be retrieved from 
    @param resultHandler {function} the result will be returned asynchronously in this handler 
    @return {StorageService}
    */
-  this.getSentimentResults = function(collectionName, resultHandler) {
+  this.getQueries = function(resultHandler) {
+    var __args = arguments;
+    if (__args.length === 1 && typeof __args[0] === 'function') {
+      j_storageService["getQueries(io.vertx.core.Handler)"](function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Retrieves the sentiment results for a specific query. If no articles have been stored for the query, the result
+   is empty.
+
+   @public
+   @param query {string} the query that sentiment results will be retrieved for 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {StorageService}
+   */
+  this.getSentimentResults = function(query, resultHandler) {
     var __args = arguments;
     if (__args.length === 2 && typeof __args[0] === 'string' && typeof __args[1] === 'function') {
-      j_storageService["getSentimentResults(java.lang.String,io.vertx.core.Handler)"](collectionName, function(ar) {
+      j_storageService["getSentimentResults(java.lang.String,io.vertx.core.Handler)"](query, function(ar) {
       if (ar.succeeded()) {
         resultHandler(utils.convReturnJson(ar.result()), null);
       } else {
@@ -122,19 +199,73 @@ var StorageService = function(j_val) {
   };
 
   /**
-   Checks if an article with a specific name and description is currently contained in mongo storage
+   Retrieves the entities which articles published within a time range were most often about, along with the
+   sentiment of those articles. Each entity holds its name, count (the number of articles about it), mean, stddev,
+   min and max. Entities are summarised by day, so the range is widened to the start of the day containing from.
 
    @public
-   @param collectionName {string} the name of the collection that the article search will be conducted within 
+   @param query {string} the query that entities will be retrieved for, or null to retrieve them across all queries 
+   @param from {number} the start of the time range (epoch ms), inclusive 
+   @param to {number} the end of the time range (epoch ms), exclusive 
+   @param limit {number} the maximum number of entities to retrieve 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {StorageService}
+   */
+  this.getEntitySentiment = function(query, from, to, limit, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 5 && typeof __args[0] === 'string' && typeof __args[1] ==='number' && typeof __args[2] ==='number' && typeof __args[3] ==='number' && typeof __args[4] === 'function') {
+      j_storageService["getEntitySentiment(java.lang.String,long,long,int,io.vertx.core.Handler)"](query, from, to, limit, function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Retrieves the sentiment results for a query as a time series. Each point of the series summarises the articles
+   published within one bucket of the requested granularity, and holds the bucket's start (epoch ms), count, mean,
+   stddev, min and max. Buckets without any articles are omitted.
+
+   @public
+   @param query {string} the query that sentiment results will be retrieved for 
+   @param from {number} the start of the time range (epoch ms), inclusive 
+   @param to {number} the end of the time range (epoch ms), exclusive 
+   @param granularity {Object} the width of each bucket in the time series 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {StorageService}
+   */
+  this.getSentimentTimeSeries = function(query, from, to, granularity, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 5 && typeof __args[0] === 'string' && typeof __args[1] ==='number' && typeof __args[2] ==='number' && typeof __args[3] === 'string' && typeof __args[4] === 'function') {
+      j_storageService["getSentimentTimeSeries(java.lang.String,long,long,com.gofish.sentiment.storage.Granularity,io.vertx.core.Handler)"](query, from, to, com.gofish.sentiment.storage.Granularity.valueOf(granularity), function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Checks if an article with a specific name and description is currently stored for a query
+
+   @public
+   @param query {string} the query that the article search will be conducted within 
    @param articleName {string} the name of the article which we are searching for 
    @param articleDescription {string} the description of the article which we are searching for 
    @param resultHandler {function} the result will be returned asynchronously in this handler 
    @return {StorageService}
    */
-  this.hasArticle = function(collectionName, articleName, articleDescription, resultHandler) {
+  this.hasArticle = function(query, articleName, articleDescription, resultHandler) {
     var __args = arguments;
     if (__args.length === 4 && typeof __args[0] === 'string' && typeof __args[1] === 'string' && typeof __args[2] === 'string' && typeof __args[3] === 'function') {
-      j_storageService["hasArticle(java.lang.String,java.lang.String,java.lang.String,io.vertx.core.Handler)"](collectionName, articleName, articleDescription, function(ar) {
+      j_storageService["hasArticle(java.lang.String,java.lang.String,java.lang.String,io.vertx.core.Handler)"](query, articleName, articleDescription, function(ar) {
       if (ar.succeeded()) {
         resultHandler(ar.result(), null);
       } else {
@@ -191,18 +322,69 @@ var StorageService = function(j_val) {
   };
 
   /**
-   Stores the provided articles in the specified collection name.
+   Stores the provided articles under the specified query. Articles which are already stored for the query are
+   rejected, and reported as write errors in the result.
+
+   @public
+   @param query {string} the query to store the articles under 
+   @param articles {todo} json object containing a list of articles to store 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {StorageService}
+   */
+  this.saveArticles = function(query, articles, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 3 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && __args[1] instanceof Array && typeof __args[2] === 'function') {
+      j_storageService["saveArticles(java.lang.String,io.vertx.core.json.JsonArray,io.vertx.core.Handler)"](query, utils.convParamJsonArray(articles), function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Stores the provided articles under the specified query, keyed by each article's fingerprint. Articles which are
+   not yet stored for the query are inserted, and those which are already stored are replaced by the new copy, so
+   saving the same articles again (e.g. on a retry) is safe. Only inserted articles are added to the query's time
+   series and entity buckets. The result holds the number of articles "inserted" and "matched" (i.e. already stored).
 
    @public
-   @param collectionName {string} the name of the collection to store the articles in 
+   @param query {string} the query to store the articles under 
    @param articles {todo} json object containing a list of articles to store 
    @param resultHandler {function} the result will be returned asynchronously in this handler 
    @return {StorageService}
    */
-  this.saveArticles = function(collectionName, articles, resultHandler) {
+  this.saveOrUpdateArticles = function(query, articles, resultHandler) {
     var __args = arguments;
     if (__args.length === 3 && typeof __args[0] === 'string' && typeof __args[1] === 'object' && __args[1] instanceof Array && typeof __args[2] === 'function') {
-      j_storageService["saveArticles(java.lang.String,io.vertx.core.json.JsonArray,io.vertx.core.Handler)"](collectionName, utils.convParamJsonArray(articles), function(ar) {
+      j_storageService["saveOrUpdateArticles(java.lang.String,io.vertx.core.json.JsonArray,io.vertx.core.Handler)"](query, utils.convParamJsonArray(articles), function(ar) {
+      if (ar.succeeded()) {
+        resultHandler(utils.convReturnJson(ar.result()), null);
+      } else {
+        resultHandler(null, ar.cause());
+      }
+    });
+      return that;
+    } else throw new TypeError('function invoked with invalid arguments');
+  };
+
+  /**
+   Updates the metadata of a query in the queries registry. Only lastCrawled, lastRequested, interval and priority
+   may be updated, and the update fails if the query is not registered.
+
+   @public
+   @param query {string} the query to update 
+   @param metadata {Object} json object holding the fields to update 
+   @param resultHandler {function} the result will be returned asynchronously in this handler 
+   @return {StorageService}
+   */
+  this.updateQuery = function(query, metadata, resultHandler) {
+    var __args = arguments;
+    if (__args.length === 3 && typeof __args[0] === 'string' && (typeof __args[1] === 'object' && __args[1] != null) && typeof __args[2] === 'function') {
+      j_storageService["updateQuery(java.lang.String,io.vertx.core.json.JsonObject,io.vertx.core.Handler)"](query, utils.convParamJsonObject(metadata), function(ar) {
       if (ar.succeeded()) {
         resultHandler(utils.convReturnJson(ar.result()), null);
       } else {
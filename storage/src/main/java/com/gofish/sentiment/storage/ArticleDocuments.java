@@ -0,0 +1,226 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Layout of the articles in mongo storage. The articles of every query are stored in a single collection, in which
+ * each article is identified by the query it was stored under and its fingerprint (a hash of its name and description).
+ * The unique index on (query, fingerprint) keeps duplicate articles out of storage, and can also serve as the shard key
+ * of the collection. Queries themselves are kept in a separate registry collection, keyed by the query. Each article
+ * also records when it was first stored ("storedAt"), which a TTL index can expire the article by.
+ *
+ * @author Luke Herron
+ */
+final class ArticleDocuments {
+
+    static final String COLLECTION = "articles";
+    static final String QUERIES_COLLECTION = "queries";
+
+    /**
+     * The fields of an article which are read when no projection is given. The entities, images and clustered articles
+     * which the crawler and linker attach to an article are left out, as they make up the bulk of each document.
+     */
+    static final JsonObject DEFAULT_PROJECTION = new JsonObject()
+            .put("name", 1)
+            .put("description", 1)
+            .put("url", 1)
+            .put("datePublished", 1)
+            .put("sentiment", 1);
+
+    /**
+     * The fields of an article which its sentiment buckets are built from. These are only written when the article is
+     * first stored, as the buckets only count each article once, when it is first stored.
+     */
+    static final List<String> ROLLUP_FIELDS = Arrays.asList("sentiment", "datePublished", "about");
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ArticleDocuments() {}
+
+    /**
+     * Computes the fingerprint of an article, which identifies the article within a query
+     * @param name the name (headline) of the article
+     * @param description the description (lead paragraph) of the article
+     * @return hex encoded SHA-1 hash of the name and description
+     */
+    static String fingerprint(String name, String description) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported", e);
+        }
+
+        // The separator keeps e.g. ("ab", "c") and ("a", "bc") apart
+        digest.update(String.valueOf(name).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(String.valueOf(description).getBytes(StandardCharsets.UTF_8));
+
+        final byte[] hash = digest.digest();
+        final char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+
+        return new String(hex);
+    }
+
+    /**
+     * Creates the document under which an article is stored
+     * @param query the query which the article was found by
+     * @param article the article
+     * @return copy of the article, with its query and fingerprint added
+     */
+    static JsonObject toDocument(String query, JsonObject article) {
+        return article.copy()
+                .put("query", query)
+                .put("fingerprint", fingerprint(article.getString("name"), article.getString("description")));
+    }
+
+    /**
+     * Creates the find query which matches an article stored under a query
+     * @param query the query which the article was stored under
+     * @param name the name (headline) of the article
+     * @param description the description (lead paragraph) of the article
+     * @return JsonObject describing the find query
+     */
+    static JsonObject articleQuery(String query, String name, String description) {
+        return new JsonObject().put("query", query).put("fingerprint", fingerprint(name, description));
+    }
+
+    /**
+     * Creates the documents under which a batch of articles is stored. An article which appears more than once in the
+     * batch (i.e. with the same fingerprint) is only stored once, as its first appearance.
+     * @param query the query which the articles were found by
+     * @param articles the articles
+     * @return the documents, in the order the articles first appear in the batch
+     */
+    static List<JsonObject> toDocuments(String query, JsonArray articles) {
+        final Map<String, JsonObject> documents = new LinkedHashMap<>();
+        articles.forEach(article -> {
+            final JsonObject document = toDocument(query, (JsonObject) article);
+            documents.putIfAbsent(document.getString("fingerprint"), document);
+        });
+
+        return new ArrayList<>(documents.values());
+    }
+
+    /**
+     * Builds the mongo update command which stores each document, keyed by its query and fingerprint. A document which
+     * is not yet stored is inserted, while one which is already stored is overwritten with the new copy. The time at which
+     * it was first stored, and the ROLLUP_FIELDS its sentiment buckets were built from, are kept from the first copy so
+     * that the stored article continues to match the buckets. A "storedAt" held by the document itself (e.g. by an
+     * exported article being backfilled) is ignored. Running the same command more than once therefore leaves storage
+     * unchanged.
+     * @param documents the documents to store, which must have distinct fingerprints
+     * @return JsonObject describing the update command
+     */
+    static JsonObject upsertCommand(List<JsonObject> documents) {
+        final JsonObject storedAt = SentimentBuckets.toDate(System.currentTimeMillis());
+        final JsonArray updates = new JsonArray();
+        documents.forEach(document -> {
+            final JsonObject set = document.copy();
+            set.remove("storedAt");
+            final JsonObject setOnInsert = new JsonObject().put("storedAt", storedAt);
+            ROLLUP_FIELDS.stream()
+                    .filter(set::containsKey)
+                    .forEach(field -> setOnInsert.put(field, set.remove(field)));
+
+            updates.add(new JsonObject()
+                    .put("q", articleKey(document))
+                    .put("u", new JsonObject().put("$set", set).put("$setOnInsert", setOnInsert))
+                    .put("upsert", true));
+        });
+
+        return new JsonObject()
+                .put("update", COLLECTION)
+                .put("updates", updates)
+                .put("ordered", false);
+    }
+
+    /**
+     * Builds the mongo query which finds a page of the articles stored under a query. Pages are ordered from the most
+     * recently stored article, by id. Rather than skipping the articles of earlier pages, each page starts after the
+     * last article of the previous page (its cursor), so reading a page costs the same however deep it is.
+     * @param query the query which the articles were stored under
+     * @param filter additional conditions which the articles must match, or null
+     * @param cursor the cursor of the previous page, or null for the first page
+     * @return JsonObject describing the find query
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    static JsonObject pageQuery(String query, JsonObject filter, String cursor) {
+        final JsonObject findQuery = filter == null ? new JsonObject() : filter.copy();
+        findQuery.put("query", query);
+
+        if (cursor != null) {
+            if (!cursor.matches("[0-9a-f]{24}")) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+
+            findQuery.put("_id", new JsonObject().put("$lt", new JsonObject().put("$oid", cursor)));
+        }
+
+        return findQuery;
+    }
+
+    /**
+     * Builds the projection used to read a page of articles. The id is always read, as it forms the page's cursor.
+     * @param projection the fields to read, or null to read the fields in DEFAULT_PROJECTION
+     * @return JsonObject describing the projection
+     * @throws IllegalArgumentException if a field of the projection is an operator (i.e. starts with '$')
+     */
+    static JsonObject pageProjection(JsonObject projection) {
+        final JsonObject fields = projection == null ? new JsonObject() : projection.copy();
+        fields.remove("_id");
+
+        fields.fieldNames().stream()
+                .filter(field -> field.startsWith("$"))
+                .findFirst()
+                .ifPresent(field -> {
+                    throw new IllegalArgumentException("Invalid projection field: " + field);
+                });
+
+        // A projection of only the id would otherwise read every field
+        return fields.isEmpty() ? DEFAULT_PROJECTION.copy() : fields;
+    }
+
+    /**
+     * Converts the documents read for a page in to the page returned to callers. The page holds its "articles" and,
+     * if there may be more articles, the "cursor" from which the next page is read.
+     * @param documents the documents of the page, in order
+     * @param limit the maximum number of articles in the page
+     * @return JsonObject describing the page
+     */
+    static JsonObject toPage(List<JsonObject> documents, int limit) {
+        final JsonArray articles = new JsonArray();
+        documents.forEach(document -> {
+            final JsonObject article = document.copy();
+            article.remove("_id");
+            articles.add(article);
+        });
+
+        final JsonObject page = new JsonObject().put("articles", articles);
+        if (documents.size() == limit) {
+            final Object id = documents.get(documents.size() - 1).getValue("_id");
+            page.put("cursor", id instanceof JsonObject ? ((JsonObject) id).getString("$oid") : String.valueOf(id));
+        }
+
+        return page;
+    }
+
+    private static JsonObject articleKey(JsonObject document) {
+        return new JsonObject().put("query", document.getString("query")).put("fingerprint", document.getString("fingerprint"));
+    }
+}
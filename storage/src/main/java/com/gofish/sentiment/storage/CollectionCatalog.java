@@ -0,0 +1,172 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.mongo.MongoClient;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog of the collections in mongo storage, and of the indexes of each collection. The catalog is held in memory and
+ * shared by every instance of the storage service on a node, so that checking whether a collection or index exists is
+ * a set lookup rather than a round trip to mongo. The collections are loaded when first needed, and the indexes of a
+ * collection when they are first checked. Collections and indexes created through the storage service are added as
+ * they are created. Changes made elsewhere (e.g. by another node) are picked up when the catalog is refreshed, which
+ * happens in the background when it is used after the refresh interval has passed, and whenever a create fails because
+ * the catalog was out of date.
+ *
+ * @author Luke Herron
+ */
+class CollectionCatalog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CollectionCatalog.class);
+    private static final String SHARED_CATALOG = "sentiment.storage.catalog";
+    private static final long DEFAULT_REFRESH_INTERVAL = 60000;
+
+    private final MongoClient mongo;
+    private final Set<String> collections = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<String>> indexes = new ConcurrentHashMap<>();
+    private final LazyLoad lazyLoad;
+
+    CollectionCatalog(MongoClient mongo, long refreshInterval) {
+        this.mongo = mongo;
+        this.lazyLoad = new LazyLoad(this::load, refreshInterval,
+                error -> LOG.error("Failed to refresh the collection catalog", error));
+    }
+
+    /**
+     * Retrieves the node's collection catalog, creating it if it does not yet exist. The age (ms) after which the catalog
+     * is refreshed is read from "refresh.interval" of the "catalog" object of the storage config json object.
+     * @param vertx the vertx instance
+     * @param config JsonObject holding the storage configuration
+     * @return CollectionCatalog object
+     */
+    static CollectionCatalog createShared(Vertx vertx, JsonObject config) {
+        final LocalMap<String, Holder> catalogs = vertx.sharedData().getLocalMap(SHARED_CATALOG);
+
+        synchronized (CollectionCatalog.class) {
+            Holder holder = catalogs.get(SHARED_CATALOG);
+            if (holder == null) {
+                final JsonObject catalogConfig = config.getJsonObject("catalog", new JsonObject());
+                final CollectionCatalog catalog = new CollectionCatalog(MongoClient.createShared(vertx, config),
+                        catalogConfig.getLong("refresh.interval", DEFAULT_REFRESH_INTERVAL));
+
+                holder = new Holder(catalog);
+                catalogs.put(SHARED_CATALOG, holder);
+            }
+
+            return holder.catalog;
+        }
+    }
+
+    /**
+     * Checks if a collection exists
+     * @param collectionName the name of the collection
+     * @param resultHandler handler which receives true if the collection exists
+     */
+    void hasCollection(String collectionName, Handler<AsyncResult<Boolean>> resultHandler) {
+        lazyLoad.whenLoaded(resultHandler, () ->
+                resultHandler.handle(Future.succeededFuture(collectionName != null && collections.contains(collectionName))));
+    }
+
+    /**
+     * Checks if an index exists within a collection. The collection's indexes are fetched from mongo the first time
+     * they are checked. A collection which does not exist has no indexes, so is never fetched.
+     * @param indexName the name of the index
+     * @param collectionName the name of the collection
+     * @param resultHandler handler which receives true if the index exists
+     */
+    void hasIndex(String indexName, String collectionName, Handler<AsyncResult<Boolean>> resultHandler) {
+        hasCollection(collectionName, hasCollection -> {
+            if (hasCollection.failed() || !hasCollection.result()) {
+                resultHandler.handle(hasCollection);
+                return;
+            }
+
+            getIndexes(collectionName, indexNames -> resultHandler.handle(indexNames.map(names -> names.contains(indexName))));
+        });
+    }
+
+    /**
+     * Records that a collection has been created
+     * @param collectionName the name of the collection
+     */
+    void addCollection(String collectionName) {
+        collections.add(collectionName);
+    }
+
+    /**
+     * Records that an index has been created. Creating an index also creates its collection, if it did not yet exist.
+     * @param indexName the name of the index
+     * @param collectionName the name of the collection the index was created for
+     */
+    void addIndex(String indexName, String collectionName) {
+        collections.add(collectionName);
+
+        final Set<String> indexNames = indexes.get(collectionName);
+        if (indexNames != null) {
+            indexNames.add(indexName);
+        }
+    }
+
+    /**
+     * Reloads the collections from mongo, and forgets the indexes so that they are fetched again when next checked
+     */
+    void refresh() {
+        lazyLoad.refresh();
+    }
+
+    private void getIndexes(String collectionName, Handler<AsyncResult<Set<String>>> resultHandler) {
+        final Set<String> cached = indexes.get(collectionName);
+        if (cached != null) {
+            resultHandler.handle(Future.succeededFuture(cached));
+            return;
+        }
+
+        mongo.listIndexes(collectionName, listed -> {
+            if (listed.succeeded()) {
+                final Set<String> indexNames = ConcurrentHashMap.newKeySet();
+                listed.result().forEach(index -> indexNames.add(((JsonObject) index).getString("name")));
+                resultHandler.handle(Future.succeededFuture(indexes.merge(collectionName, indexNames, (current, loaded) -> {
+                    current.addAll(loaded);
+                    return current;
+                })));
+            }
+            else {
+                resultHandler.handle(Future.failedFuture(listed.cause()));
+            }
+        });
+    }
+
+    private void load(Handler<AsyncResult<Void>> completionHandler) {
+        mongo.getCollections(found -> {
+            if (found.succeeded()) {
+                collections.retainAll(found.result());
+                collections.addAll(found.result());
+                indexes.clear();
+                completionHandler.handle(Future.succeededFuture());
+            }
+            else {
+                completionHandler.handle(Future.failedFuture(found.cause()));
+            }
+        });
+    }
+
+    private static class Holder implements Shareable {
+
+        private final CollectionCatalog catalog;
+
+        private Holder(CollectionCatalog catalog) {
+            this.catalog = catalog;
+        }
+    }
+}
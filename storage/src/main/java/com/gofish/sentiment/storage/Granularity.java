@@ -0,0 +1,14 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.codegen.annotations.VertxGen;
+
+/**
+ * The width of the time buckets which sentiment results are rolled up into
+ *
+ * @author Luke Herron
+ */
+@VertxGen
+public enum Granularity {
+    HOUR,
+    DAY
+}
@@ -0,0 +1,131 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Loads a cache the first time it is used. Callers which arrive while the load is in progress wait for it to complete,
+ * rather than starting a load of their own. If the load fails, every waiting caller is failed, and the next caller
+ * tries again.
+ *
+ * Once loaded, the cache can be reloaded in the background whenever it is used after the refresh interval has passed.
+ * Callers keep using the cache as it is while it is being reloaded. As reloads are driven by use rather than by a
+ * timer, the cache does not depend on the lifecycle of any one verticle.
+ *
+ * @author Luke Herron
+ */
+final class LazyLoad {
+
+    private final Consumer<Handler<AsyncResult<Void>>> loader;
+    private final long refreshInterval;
+    private final Handler<Throwable> refreshFailureHandler;
+    private boolean loaded;
+    private long loadedAt;
+    private boolean refreshing;
+    private List<Handler<AsyncResult<Void>>> waiting;
+
+    /**
+     * Creates a LazyLoad which only loads the cache once
+     * @param loader performs the load, and completes the supplied handler once the cache has been loaded
+     */
+    LazyLoad(Consumer<Handler<AsyncResult<Void>>> loader) {
+        this(loader, 0, error -> {});
+    }
+
+    /**
+     * @param loader performs the load, and completes the supplied handler once the cache has been loaded
+     * @param refreshInterval the age (ms) after which the cache is reloaded when next used, or 0 to never reload it
+     * @param refreshFailureHandler handler called with the cause of a failed reload. A failed reload is tried again
+     *                              after another interval.
+     */
+    LazyLoad(Consumer<Handler<AsyncResult<Void>>> loader, long refreshInterval, Handler<Throwable> refreshFailureHandler) {
+        this.loader = loader;
+        this.refreshInterval = refreshInterval;
+        this.refreshFailureHandler = refreshFailureHandler;
+    }
+
+    /**
+     * Runs the action once the cache has been loaded, or fails the handler if it could not be loaded
+     * @param resultHandler handler which is failed if the cache could not be loaded
+     * @param action the action to run against the loaded cache
+     * @param <T> the result type of the handler
+     */
+    <T> void whenLoaded(Handler<AsyncResult<T>> resultHandler, Runnable action) {
+        final boolean startRefresh;
+        synchronized (this) {
+            if (!loaded) {
+                final boolean startLoad = waiting == null;
+                if (startLoad) {
+                    waiting = new ArrayList<>();
+                }
+
+                waiting.add(result -> {
+                    if (result.failed()) {
+                        resultHandler.handle(Future.failedFuture(result.cause()));
+                    }
+                    else {
+                        action.run();
+                    }
+                });
+
+                if (startLoad) {
+                    loader.accept(this::complete);
+                }
+
+                return;
+            }
+
+            startRefresh = refreshInterval > 0 && !refreshing && System.currentTimeMillis() - loadedAt >= refreshInterval;
+            refreshing |= startRefresh;
+        }
+
+        if (startRefresh) {
+            loader.accept(this::refreshed);
+        }
+
+        action.run();
+    }
+
+    /**
+     * Reloads the cache in the background, unless it has not been loaded yet or is already being reloaded
+     */
+    void refresh() {
+        synchronized (this) {
+            if (!loaded || refreshing) {
+                return;
+            }
+
+            refreshing = true;
+        }
+
+        loader.accept(this::refreshed);
+    }
+
+    private void refreshed(AsyncResult<Void> result) {
+        synchronized (this) {
+            refreshing = false;
+            loadedAt = System.currentTimeMillis();
+        }
+
+        if (result.failed()) {
+            refreshFailureHandler.handle(result.cause());
+        }
+    }
+
+    private void complete(AsyncResult<Void> result) {
+        final List<Handler<AsyncResult<Void>>> handlers;
+        synchronized (this) {
+            loaded = result.succeeded();
+            loadedAt = System.currentTimeMillis();
+            handlers = waiting;
+            waiting = null;
+        }
+
+        handlers.forEach(handler -> handler.handle(result));
+    }
+}
@@ -0,0 +1,206 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.ext.mongo.UpdateOptions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of the queries which are tracked, along with their metadata: "name", "createdAt", "lastCrawled",
+ * "lastRequested" (all times in epoch ms), "interval" (ms between crawls) and "priority". The registry is held in memory
+ * and shared by every instance of the storage service on a node, so that reads never touch mongo. Writes go through to
+ * the queries collection before the cache is updated. The cache is loaded when first used, and reloaded when it is
+ * used after the refresh interval has passed, so that queries registered by other nodes are picked up.
+ *
+ * @author Luke Herron
+ */
+class QueryRegistry {
+
+    static final List<String> UPDATABLE_FIELDS = Arrays.asList("lastCrawled", "lastRequested", "interval", "priority");
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryRegistry.class);
+    private static final String SHARED_REGISTRY = "sentiment.storage.queries";
+    private static final long DEFAULT_INTERVAL = 3600000;
+    private static final int DEFAULT_PRIORITY = 0;
+    private static final long DEFAULT_REFRESH_INTERVAL = 60000;
+
+    private final MongoClient mongo;
+    private final long defaultInterval;
+    private final int defaultPriority;
+    private final Map<String, JsonObject> queries = new ConcurrentHashMap<>();
+    private final LazyLoad lazyLoad;
+
+    QueryRegistry(MongoClient mongo, long defaultInterval, int defaultPriority, long refreshInterval) {
+        this.mongo = mongo;
+        this.defaultInterval = defaultInterval;
+        this.defaultPriority = defaultPriority;
+        this.lazyLoad = new LazyLoad(this::load, refreshInterval,
+                error -> LOG.error("Failed to reload the query registry", error));
+    }
+
+    /**
+     * Retrieves the node's query registry, creating it if it does not yet exist. The following values are read from the
+     * "queries" object of the storage config json object: "interval" and "priority" (given to newly added queries) and
+     * "refresh.interval" (ms between reloads of the registry from mongo).
+     * @param vertx the vertx instance
+     * @param config JsonObject holding the storage configuration
+     * @return QueryRegistry object
+     */
+    static QueryRegistry createShared(Vertx vertx, JsonObject config) {
+        final LocalMap<String, Holder> registries = vertx.sharedData().getLocalMap(SHARED_REGISTRY);
+
+        synchronized (QueryRegistry.class) {
+            Holder holder = registries.get(SHARED_REGISTRY);
+            if (holder == null) {
+                final JsonObject queriesConfig = config.getJsonObject("queries", new JsonObject());
+                final QueryRegistry registry = new QueryRegistry(MongoClient.createShared(vertx, config),
+                        queriesConfig.getLong("interval", DEFAULT_INTERVAL),
+                        queriesConfig.getInteger("priority", DEFAULT_PRIORITY),
+                        queriesConfig.getLong("refresh.interval", DEFAULT_REFRESH_INTERVAL));
+
+                holder = new Holder(registry);
+                registries.put(SHARED_REGISTRY, holder);
+            }
+
+            return holder.registry;
+        }
+    }
+
+    /**
+     * Adds a query to the registry, unless it is already registered
+     * @param query the query to add
+     * @param resultHandler handler which receives the query's entry
+     */
+    void add(String query, Handler<AsyncResult<JsonObject>> resultHandler) {
+        lazyLoad.whenLoaded(resultHandler, () -> {
+            final JsonObject existing = queries.get(query);
+            if (existing != null) {
+                resultHandler.handle(Future.succeededFuture(existing.copy()));
+                return;
+            }
+
+            final long now = System.currentTimeMillis();
+            final JsonObject entry = new JsonObject()
+                    .put("name", query)
+                    .put("createdAt", now)
+                    .put("lastRequested", now)
+                    .put("interval", defaultInterval)
+                    .put("priority", defaultPriority);
+
+            final JsonObject findQuery = new JsonObject().put("_id", query);
+            mongo.updateCollectionWithOptions(ArticleDocuments.QUERIES_COLLECTION, findQuery, new JsonObject().put("$setOnInsert", entry),
+                    new UpdateOptions().setUpsert(true), updated -> {
+                        if (updated.failed()) {
+                            resultHandler.handle(Future.failedFuture(updated.cause()));
+                            return;
+                        }
+
+                        // Another node may have registered the query first, in which case its entry is kept
+                        mongo.findOne(ArticleDocuments.QUERIES_COLLECTION, findQuery, null, found -> {
+                            if (found.failed()) {
+                                resultHandler.handle(Future.failedFuture(found.cause()));
+                            }
+                            else {
+                                final JsonObject stored = Optional.ofNullable(found.result()).map(QueryRegistry::toEntry).orElse(entry);
+                                queries.put(query, stored);
+                                resultHandler.handle(Future.succeededFuture(stored.copy()));
+                            }
+                        });
+                    });
+        });
+    }
+
+    /**
+     * Retrieves the entries of every registered query
+     * @param resultHandler handler which receives the entries
+     */
+    void getAll(Handler<AsyncResult<List<JsonObject>>> resultHandler) {
+        lazyLoad.whenLoaded(resultHandler, () -> resultHandler.handle(Future.succeededFuture(
+                queries.values().stream().map(JsonObject::copy).collect(Collectors.toList()))));
+    }
+
+    /**
+     * Updates the metadata of a registered query. Only the fields in UPDATABLE_FIELDS may be updated, and their values
+     * must be numbers.
+     * @param query the query to update
+     * @param metadata JsonObject holding the fields to update
+     * @param resultHandler handler which receives the query's updated entry
+     */
+    void update(String query, JsonObject metadata, Handler<AsyncResult<JsonObject>> resultHandler) {
+        final List<String> invalid = metadata.fieldNames().stream()
+                .filter(field -> !UPDATABLE_FIELDS.contains(field) || !(metadata.getValue(field) instanceof Number))
+                .collect(Collectors.toList());
+        if (!invalid.isEmpty()) {
+            resultHandler.handle(Future.failedFuture("Invalid query metadata: " + String.join(", ", invalid)));
+            return;
+        }
+
+        lazyLoad.whenLoaded(resultHandler, () -> {
+            if (!queries.containsKey(query)) {
+                resultHandler.handle(Future.failedFuture("Unknown query: " + query));
+                return;
+            }
+
+            mongo.updateCollection(ArticleDocuments.QUERIES_COLLECTION, new JsonObject().put("_id", query),
+                    new JsonObject().put("$set", metadata), updated -> {
+                        if (updated.failed()) {
+                            resultHandler.handle(Future.failedFuture(updated.cause()));
+                        }
+                        else {
+                            final JsonObject entry = queries.computeIfPresent(query, (name, current) -> current.copy().mergeIn(metadata));
+                            resultHandler.handle(Future.succeededFuture(entry == null ? null : entry.copy()));
+                        }
+                    });
+        });
+    }
+
+    private void load(Handler<AsyncResult<Void>> completionHandler) {
+        mongo.find(ArticleDocuments.QUERIES_COLLECTION, new JsonObject(), found -> {
+            if (found.succeeded()) {
+                final Map<String, JsonObject> stored = found.result().stream()
+                        .map(QueryRegistry::toEntry)
+                        .collect(Collectors.toMap(entry -> entry.getString("name"), entry -> entry));
+                queries.keySet().retainAll(stored.keySet());
+                queries.putAll(stored);
+                completionHandler.handle(Future.succeededFuture());
+            }
+            else {
+                completionHandler.handle(Future.failedFuture(found.cause()));
+            }
+        });
+    }
+
+    /**
+     * Converts a document of the queries collection in to a registry entry. The name is taken from the document's id,
+     * since queries registered before the registry held metadata have no other fields.
+     */
+    private static JsonObject toEntry(JsonObject document) {
+        final JsonObject entry = document.copy();
+        entry.put("name", (String) entry.remove("_id"));
+
+        return entry;
+    }
+
+    private static class Holder implements Shareable {
+
+        private final QueryRegistry registry;
+
+        private Holder(QueryRegistry registry) {
+            this.registry = registry;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-aggregated sentiment results. For each query, the sentiment scores of stored articles are rolled up into hourly
+ * and daily buckets, each of which holds the count, sum, sum of squares, minimum and maximum of the scores which fall
+ * within it. The scores are also rolled up into daily buckets per entity which the articles are about, across all
+ * queries. Entity buckets are keyed by the case folded name of the entity, so that differently cased spellings of a
+ * name (e.g. "Apple Inc." and "apple inc.") share their buckets, and the first spelling stored is kept for display.
+ * Trends can then be read from a handful of bucket documents, rather than by scanning every article. As the
+ * buckets hold everything needed to summarise the articles, they outlive the articles themselves, so that raw articles
+ * can be expired without losing their contribution. Each bucket also records its start as a date ("startDate"), which
+ * a TTL index can expire the hourly buckets by.
+ *
+ * @author Luke Herron
+ */
+final class SentimentBuckets {
+
+    static final String COLLECTION = "sentiment_timeseries";
+    static final String ENTITY_COLLECTION = "entity_sentiment";
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private SentimentBuckets() {}
+
+    /**
+     * Builds the mongo update command which adds the scores of the supplied articles to their buckets. Articles which
+     * share a bucket are combined in to a single upsert.
+     * @param query the query which the articles were stored under
+     * @param articles the stored articles
+     * @return JsonObject describing the update command, or an empty JsonObject if none of the articles have a score
+     */
+    static JsonObject updateCommand(String query, List<JsonObject> articles) {
+        final Map<JsonObject, Aggregate> buckets = new LinkedHashMap<>();
+
+        articles.forEach(article -> getScore(article).ifPresent(score -> {
+            final long time = getTimestamp(article);
+            for (Granularity granularity : Granularity.values()) {
+                final long start = bucketStart(time, granularity);
+                buckets.computeIfAbsent(bucketKey(query, granularity, start),
+                        key -> new Aggregate(new JsonObject().put("startDate", toDate(start)))).add(score);
+            }
+        }));
+
+        return toUpdateCommand(COLLECTION, buckets);
+    }
+
+    /**
+     * Builds the mongo update command which adds the scores of the supplied articles to the daily buckets of each
+     * entity they are about. An entity is counted once per article, however many times it is listed.
+     * @param query the query which the articles were stored under
+     * @param articles the stored articles
+     * @return JsonObject describing the update command, or an empty JsonObject if none of the articles have both a
+     * score and an entity
+     */
+    static JsonObject entityUpdateCommand(String query, List<JsonObject> articles) {
+        final Map<JsonObject, Aggregate> buckets = new LinkedHashMap<>();
+
+        articles.forEach(article -> getScore(article).ifPresent(score -> {
+            final long start = bucketStart(getTimestamp(article), Granularity.DAY);
+            getEntityNames(article).forEach((entity, name) ->
+                    buckets.computeIfAbsent(entityBucketKey(entity, query, start),
+                            key -> new Aggregate(new JsonObject().put("name", name))).add(score));
+        }));
+
+        return toUpdateCommand(ENTITY_COLLECTION, buckets);
+    }
+
+    /**
+     * Builds the mongo update command which retries the updates of a bucket update command that failed with a duplicate
+     * key error. These are upserts which raced another save to create the same bucket, and lost. Once retried, they
+     * match the bucket the other save created, and add to it.
+     * @param command the bucket update command
+     * @param writeErrors the write errors reported for the command
+     * @return JsonObject describing the update command, or an empty JsonObject if any of the updates failed for some
+     * other reason (in which case retrying would not help)
+     */
+    static JsonObject retryCommand(JsonObject command, JsonArray writeErrors) {
+        final JsonArray updates = command.getJsonArray("updates");
+        final JsonArray retries = new JsonArray();
+
+        for (Object error : writeErrors) {
+            final JsonObject writeError = (JsonObject) error;
+            if (writeError.getInteger("code", 0) != DUPLICATE_KEY) {
+                return new JsonObject();
+            }
+
+            retries.add(updates.getJsonObject(writeError.getInteger("index")));
+        }
+
+        return retries.isEmpty() ? new JsonObject() : command.copy().put("updates", retries);
+    }
+
+    /**
+     * Builds the mongo query which finds the buckets covering the supplied time range
+     * @param query the query to find buckets for
+     * @param from the start of the range (epoch ms), inclusive. The bucket containing this time is included.
+     * @param to the end of the range (epoch ms), exclusive
+     * @param granularity the width of the buckets
+     * @return JsonObject describing the find query
+     */
+    static JsonObject rangeQuery(String query, long from, long to, Granularity granularity) {
+        return new JsonObject()
+                .put("query", query)
+                .put("granularity", granularity.name().toLowerCase())
+                .put("start", new JsonObject()
+                        .put("$gte", bucketStart(from, granularity))
+                        .put("$lt", to));
+    }
+
+    /**
+     * Builds the mongo aggregate command which summarises every article stored under a query, by combining the query's
+     * daily buckets. Articles are counted in the buckets when they are stored, so the summary still includes articles
+     * which have since expired.
+     * @param query the query to summarise
+     * @return JsonObject describing the aggregate command, which emits the mean score of the articles
+     */
+    static JsonObject overallQuery(String query) {
+        return new JsonObject()
+                .put("aggregate", COLLECTION)
+                .put("pipeline", new JsonArray()
+                        .add(new JsonObject().put("$match", new JsonObject()
+                                .put("query", query)
+                                .put("granularity", Granularity.DAY.name().toLowerCase())))
+                        .add(new JsonObject().put("$group", new JsonObject()
+                                .put("_id", "")
+                                .put("count", new JsonObject().put("$sum", "$count"))
+                                .put("sum", new JsonObject().put("$sum", "$sum"))))
+                        .add(new JsonObject().put("$project", new JsonObject()
+                                .put("_id", 0)
+                                .put("score", new JsonObject().put("$divide", new JsonArray().add("$sum").add("$count"))))));
+    }
+
+    /**
+     * Creates a mongo date from a time
+     * @param time the time (epoch ms)
+     * @return JsonObject which mongo stores as a date
+     */
+    static JsonObject toDate(long time) {
+        return new JsonObject().put("$date", Instant.ofEpochMilli(time).toString());
+    }
+
+    /**
+     * Builds the mongo aggregate command which ranks entities by the number of articles about them within the supplied
+     * time range, combining each entity's daily buckets. Buckets stored before entities were case folded are folded
+     * when they are combined, and are displayed by their stored name.
+     * @param query the query to rank entities for, or null to rank them across all queries
+     * @param from the start of the range (epoch ms), inclusive. The day containing this time is included.
+     * @param to the end of the range (epoch ms), exclusive
+     * @param limit the maximum number of entities to return
+     * @return JsonObject describing the aggregate command
+     */
+    static JsonObject entityQuery(String query, long from, long to, int limit) {
+        final JsonObject match = new JsonObject().put("start", new JsonObject()
+                .put("$gte", bucketStart(from, Granularity.DAY))
+                .put("$lt", to));
+        if (query != null) {
+            match.put("query", query);
+        }
+
+        return new JsonObject()
+                .put("aggregate", ENTITY_COLLECTION)
+                .put("pipeline", new JsonArray()
+                        .add(new JsonObject().put("$match", match))
+                        .add(new JsonObject().put("$group", new JsonObject()
+                                .put("_id", new JsonObject().put("$toLower", "$entity"))
+                                .put("name", new JsonObject().put("$first",
+                                        new JsonObject().put("$ifNull", new JsonArray().add("$name").add("$entity"))))
+                                .put("count", new JsonObject().put("$sum", "$count"))
+                                .put("sum", new JsonObject().put("$sum", "$sum"))
+                                .put("sumSq", new JsonObject().put("$sum", "$sumSq"))
+                                .put("min", new JsonObject().put("$min", "$min"))
+                                .put("max", new JsonObject().put("$max", "$max"))))
+                        .add(new JsonObject().put("$sort", new JsonObject().put("count", -1).put("_id", 1)))
+                        .add(new JsonObject().put("$limit", limit)));
+    }
+
+    /**
+     * Converts an entity's combined buckets in to its sentiment summary
+     * @param group the group emitted by the entity aggregate command
+     * @return JsonObject holding the entity's name, count, mean, stddev, min and max
+     */
+    static JsonObject toEntity(JsonObject group) {
+        return new JsonObject().put("entity", group.getString("name", group.getString("_id"))).mergeIn(summarise(group));
+    }
+
+    /**
+     * Converts a stored bucket in to a point of the time series, deriving the mean and standard deviation of its scores
+     * @param bucket the stored bucket document
+     * @return JsonObject holding the bucket's start (epoch ms), count, mean, stddev, min and max
+     */
+    static JsonObject toPoint(JsonObject bucket) {
+        return new JsonObject().put("start", bucket.getLong("start")).mergeIn(summarise(bucket));
+    }
+
+    private static JsonObject summarise(JsonObject bucket) {
+        final long count = bucket.getLong("count", 0L);
+        final double mean = count == 0 ? 0 : bucket.getDouble("sum", 0.0) / count;
+        final double variance = count == 0 ? 0 : bucket.getDouble("sumSq", 0.0) / count - mean * mean;
+
+        return new JsonObject()
+                .put("count", count)
+                .put("mean", mean)
+                .put("stddev", Math.sqrt(Math.max(0, variance)))
+                .put("min", bucket.getDouble("min"))
+                .put("max", bucket.getDouble("max"));
+    }
+
+    /**
+     * Determines the start of the bucket which contains the supplied time. Buckets are aligned to UTC.
+     * @param time the time (epoch ms)
+     * @param granularity the width of the bucket
+     * @return the start of the bucket (epoch ms)
+     */
+    static long bucketStart(long time, Granularity granularity) {
+        final long width = granularity == Granularity.HOUR ? TimeUnit.HOURS.toMillis(1) : TimeUnit.DAYS.toMillis(1);
+
+        return time - Math.floorMod(time, width);
+    }
+
+    private static JsonObject bucketKey(String query, Granularity granularity, long start) {
+        return new JsonObject()
+                .put("query", query)
+                .put("granularity", granularity.name().toLowerCase())
+                .put("start", start);
+    }
+
+    private static JsonObject entityBucketKey(String entity, String query, long start) {
+        return new JsonObject()
+                .put("entity", entity)
+                .put("query", query)
+                .put("start", start);
+    }
+
+    private static JsonObject toUpdateCommand(String collection, Map<JsonObject, Aggregate> buckets) {
+        if (buckets.isEmpty()) {
+            return new JsonObject();
+        }
+
+        final JsonArray updates = new JsonArray();
+        buckets.forEach((key, aggregate) -> {
+            final JsonObject update = new JsonObject()
+                    .put("$inc", new JsonObject()
+                            .put("count", aggregate.count)
+                            .put("sum", aggregate.sum)
+                            .put("sumSq", aggregate.sumSq))
+                    .put("$min", new JsonObject().put("min", aggregate.min))
+                    .put("$max", new JsonObject().put("max", aggregate.max))
+                    .put("$setOnInsert", aggregate.onInsert);
+
+            updates.add(new JsonObject().put("q", key).put("u", update).put("upsert", true));
+        });
+
+        return new JsonObject()
+                .put("update", collection)
+                .put("updates", updates)
+                .put("ordered", false);
+    }
+
+    private static Optional<Double> getScore(JsonObject article) {
+        final Object score = article.getJsonObject("sentiment", new JsonObject()).getValue("score");
+
+        return score instanceof Number ? Optional.of(((Number) score).doubleValue()) : Optional.empty();
+    }
+
+    /**
+     * Retrieves the names of the entities which an article is about, keyed by their case folded name so that each
+     * entity is only listed once. The first spelling of each name is kept.
+     */
+    private static Map<String, String> getEntityNames(JsonObject article) {
+        final Map<String, String> names = new LinkedHashMap<>();
+        article.getJsonArray("about", new JsonArray()).forEach(entity -> {
+            final Object name = entity instanceof JsonObject ? ((JsonObject) entity).getValue("name") : null;
+            if (name instanceof String && !((String) name).isEmpty()) {
+                names.putIfAbsent(foldName((String) name), (String) name);
+            }
+        });
+
+        return names;
+    }
+
+    /**
+     * Case folds an entity name, giving the key its buckets are stored under
+     * @param name the entity name
+     * @return the folded name
+     */
+    static String foldName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Determines when an article was published, falling back to the current time where the article doesn't state it
+     */
+    private static long getTimestamp(JsonObject article) {
+        final String datePublished = article.getString("datePublished");
+        if (datePublished != null) {
+            try {
+                return Instant.parse(datePublished.endsWith("Z") ? datePublished : datePublished + "Z").toEpochMilli();
+            }
+            catch (DateTimeParseException e) {
+                // Fall through to the current time
+            }
+        }
+
+        return System.currentTimeMillis();
+    }
+
+    private static class Aggregate {
+        private final JsonObject onInsert;
+        private long count;
+        private double sum;
+        private double sumSq;
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+
+        /**
+         * @param onInsert the fields to set only when the bucket is first created
+         */
+        private Aggregate(JsonObject onInsert) {
+            this.onInsert = onInsert;
+        }
+
+        private void add(double score) {
+            count++;
+            sum += score;
+            sumSq += score * score;
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+        }
+    }
+}
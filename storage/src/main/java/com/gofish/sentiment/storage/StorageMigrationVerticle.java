@@ -0,0 +1,177 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.ext.mongo.FindOptions;
+import io.vertx.ext.mongo.MongoClient;
+import io.vertx.rx.java.RxHelper;
+import io.vertx.rx.java.SingleOnSubscribeAdapter;
+import io.vertx.rxjava.core.AbstractVerticle;
+import rx.Observable;
+import rx.Single;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Migrates articles from the collection per query layout, in which the articles of each query were stored in a
+ * collection named after the query, in to the single articles collection. Each collection is read in batches ordered by
+ * id, and each batch is saved through the StorageService, so the query's time series and entity buckets are built as
+ * the articles are migrated. Articles which have already been migrated are matched rather than inserted again, so an
+ * interrupted migration can simply be run again. A collection whose articles could not all be saved is left in place
+ * (even if "drop" is set), and the migration moves on to the next collection. Once every collection has been migrated,
+ * vertx is closed.
+ *
+ * The verticle takes the storage module's configuration, along with an optional "migration" section:
+ * "batch.size" (the number of articles read and saved at a time) and "drop" (whether to drop each collection once it
+ * has been migrated, false by default).
+ *
+ * @author Luke Herron
+ */
+public class StorageMigrationVerticle extends AbstractVerticle {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StorageMigrationVerticle.class);
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final List<String> RESERVED_COLLECTIONS = Arrays.asList(
+            ArticleDocuments.COLLECTION,
+            ArticleDocuments.QUERIES_COLLECTION,
+            SentimentBuckets.COLLECTION,
+            SentimentBuckets.ENTITY_COLLECTION);
+
+    private MongoClient mongo;
+    private StorageService storageService;
+    private int batchSize;
+    private boolean drop;
+    private final List<String> failed = new ArrayList<>();
+
+    @Override
+    public void start(Future<Void> startFuture) throws Exception {
+        JsonObject config = Optional.ofNullable(config()).orElseThrow(() -> new RuntimeException("Could not load storage service configuration"));
+        JsonObject migrationConfig = config.getJsonObject("migration", new JsonObject());
+        batchSize = migrationConfig.getInteger("batch.size", DEFAULT_BATCH_SIZE);
+        drop = migrationConfig.getBoolean("drop", false);
+
+        mongo = MongoClient.createShared(vertx.getDelegate(), config);
+        storageService = StorageService.create(vertx.getDelegate(), config);
+
+        startFuture.complete();
+
+        Single.create(new SingleOnSubscribeAdapter<List<String>>(mongo::getCollections))
+                .flatMapObservable(Observable::from)
+                .filter(StorageMigrationVerticle::isQueryCollection)
+                .concatMap(collectionName -> rxMigrateCollection(collectionName)
+                        .toObservable()
+                        .onErrorResumeNext(error -> {
+                            LOG.error("Failed to migrate collection ''{0}'', it has been left in place", error, collectionName);
+                            failed.add(collectionName);
+                            return Observable.just(0L);
+                        }))
+                .reduce(0L, Long::sum)
+                .subscribe(
+                        migrated -> {
+                            if (failed.isEmpty()) {
+                                LOG.info("Migration complete, {0} articles migrated", migrated);
+                            }
+                            else {
+                                LOG.error("Migration incomplete, {0} articles migrated but collections {1} failed and should be migrated again",
+                                        migrated, failed);
+                            }
+                        },
+                        error -> {
+                            LOG.error("Migration failed", error);
+                            vertx.close();
+                        },
+                        () -> vertx.close());
+    }
+
+    @Override
+    public void stop() throws Exception {
+        mongo.close();
+    }
+
+    /**
+     * Migrates every article in a collection, registers the collection's query, and drops the collection if configured
+     * @param collectionName the name of the collection, which is also the query its articles were found by
+     * @return Single which emits the number of articles which were migrated (i.e. not already migrated)
+     */
+    private Single<Long> rxMigrateCollection(String collectionName) {
+        LOG.info("Migrating collection ''{0}''", collectionName);
+
+        return rxMigrateBatches(collectionName, null, 0)
+                .flatMap(migrated -> rxAddQuery(collectionName).map(v -> migrated))
+                .flatMap(migrated -> drop ? rxDropCollection(collectionName).map(v -> migrated) : Single.just(migrated))
+                .doOnSuccess(migrated -> LOG.info("Migrated {0} articles from collection ''{1}''", migrated, collectionName));
+    }
+
+    /**
+     * Migrates the articles of a collection one batch at a time, starting after the supplied id
+     * @param collectionName the name of the collection to migrate
+     * @param lastId the id of the last article which was migrated, or null to start from the first article
+     * @param migrated the number of articles migrated from the collection so far
+     * @return Single which emits the total number of articles migrated from the collection
+     */
+    private Single<Long> rxMigrateBatches(String collectionName, Object lastId, long migrated) {
+        final JsonObject findQuery = lastId == null ? new JsonObject() :
+                new JsonObject().put("_id", new JsonObject().put("$gt", lastId));
+        final FindOptions findOptions = new FindOptions().setSort(new JsonObject().put("_id", 1)).setLimit(batchSize);
+
+        return Single.create(new SingleOnSubscribeAdapter<List<JsonObject>>(fut ->
+                mongo.findWithOptions(collectionName, findQuery, findOptions, fut)))
+                .flatMap(batch -> {
+                    if (batch.isEmpty()) {
+                        return Single.just(migrated);
+                    }
+
+                    final Object batchLastId = batch.get(batch.size() - 1).getValue("_id");
+                    final JsonArray articles = new JsonArray();
+                    batch.forEach(article -> {
+                        article.remove("_id");
+                        articles.add(article);
+                    });
+
+                    return rxSaveArticles(collectionName, articles)
+                            .flatMap(inserted -> batch.size() < batchSize ?
+                                    Single.just(migrated + inserted) :
+                                    rxMigrateBatches(collectionName, batchLastId, migrated + inserted));
+                });
+    }
+
+    /**
+     * Saves a batch of articles under their query
+     * @param query the query which the articles were found by
+     * @param articles the articles to save
+     * @return Single which emits the number of articles which were inserted, or fails if any article could not be saved
+     */
+    private Single<Long> rxSaveArticles(String query, JsonArray articles) {
+
+        return Single.create(new SingleOnSubscribeAdapter<JsonObject>(fut -> storageService.saveOrUpdateArticles(query, articles, fut)))
+                .flatMap(result -> {
+                    final JsonArray writeErrors = result.getJsonArray("writeErrors", new JsonArray());
+                    return writeErrors.isEmpty() ?
+                            Single.just(result.getLong("inserted", 0L)) :
+                            Single.<Long>error(new IllegalStateException("Failed to save articles: " + writeErrors.encode()));
+                });
+    }
+
+    private Single<Void> rxAddQuery(String query) {
+
+        return Single.create(new SingleOnSubscribeAdapter<>(fut -> storageService.addQuery(query, fut)));
+    }
+
+    private Single<Void> rxDropCollection(String collectionName) {
+
+        return Single.create(new SingleOnSubscribeAdapter<>(fut -> mongo.dropCollection(collectionName, fut)));
+    }
+
+    /**
+     * Determines if a collection holds the articles of a query, rather than being one of storage's own collections
+     */
+    static boolean isQueryCollection(String collectionName) {
+        return !RESERVED_COLLECTIONS.contains(collectionName) && !collectionName.startsWith("system.");
+    }
+}
@@ -11,6 +11,10 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.serviceproxy.ProxyHelper;
 
 /**
+ * Storage of news articles and their sentiment results. The articles of every query are kept in a single articles
+ * collection, and each query which has been searched for is recorded in a queries registry. The collection and index
+ * operations are general purpose, and are not needed to store articles.
+ *
  * @author Luke Herron
  */
 @ProxyGen
@@ -36,6 +40,16 @@ public interface StorageService {
         return ADDRESS;
     }
 
+    /**
+     * Adds a query to the queries registry, so that it will be included in future crawls. Adding a query which is
+     * already registered has no effect.
+     *
+     * @param query the query to add
+     * @param resultHandler the result will be returned asynchronously in this handler
+     */
+    @Fluent
+    StorageService addQuery(String query, Handler<AsyncResult<Void>> resultHandler);
+
     /**
      * Create a mongo collection using the specified collection name.
      *
@@ -56,6 +70,22 @@ public interface StorageService {
     @Fluent
     StorageService createIndex(String collectionName, JsonObject collectionIndex, Handler<AsyncResult<Void>> resultHandler);
 
+    /**
+     * Retrieves a page of the articles stored under a query, most recently stored first. The result holds the page's
+     * "articles" and, if there may be further articles, a "cursor" which is passed in to retrieve the next page. Pages
+     * are read from an index on the query and article id, so retrieving a later page does not scan the earlier ones.
+     *
+     * @param query the query that the articles were stored under
+     * @param filter json object holding further conditions (in mongo query syntax) which the articles must match, or null
+     * @param projection json object listing the fields of each article to retrieve, or null to retrieve the name,
+     *                   description, url, datePublished and sentiment
+     * @param cursor the cursor returned with the previous page, or null to retrieve the first page
+     * @param limit the maximum number of articles in the page
+     * @param resultHandler the result will be returned asynchronously in this handler
+     */
+    @Fluent
+    StorageService getArticles(String query, JsonObject filter, JsonObject projection, String cursor, int limit, Handler<AsyncResult<JsonObject>> resultHandler);
+
     /**
      * Retrieves a list of all current collections in mongo storage
      *
@@ -65,25 +95,64 @@ public interface StorageService {
     StorageService getCollections(Handler<AsyncResult<JsonArray>> resultHandler);
 
     /**
-     * Retrieves the sentiment results for a specific collection name. A collection name maps to an API query, so any
-     * returned sentiment value will be relevant to the query that is being searched.
+     * Retrieves every query in the queries registry. Each query is described by its name, createdAt, lastCrawled,
+     * lastRequested (all epoch ms), interval (ms between crawls) and priority. A query which has never been crawled has
+     * no lastCrawled. The registry is served from memory, so this does not query mongo.
      *
-     * @param collectionName the name of the collection that sentiment results will be retrieved from
      * @param resultHandler the result will be returned asynchronously in this handler
      */
     @Fluent
-    StorageService getSentimentResults(String collectionName, Handler<AsyncResult<JsonObject>> resultHandler);
+    StorageService getQueries(Handler<AsyncResult<JsonArray>> resultHandler);
+
+    /**
+     * Retrieves the sentiment results for a specific query. The results are summarised from the query's daily buckets,
+     * so they include articles which have since expired. If no articles have been stored for the query, the result is
+     * empty.
+     *
+     * @param query the query that sentiment results will be retrieved for
+     * @param resultHandler the result will be returned asynchronously in this handler
+     */
+    @Fluent
+    StorageService getSentimentResults(String query, Handler<AsyncResult<JsonObject>> resultHandler);
+
+    /**
+     * Retrieves the entities which articles published within a time range were most often about, along with the
+     * sentiment of those articles. Each entity holds its name, count (the number of articles about it), mean, stddev,
+     * min and max. Entities are summarised by day, so the range is widened to the start of the day containing from.
+     *
+     * @param query the query that entities will be retrieved for, or null to retrieve them across all queries
+     * @param from the start of the time range (epoch ms), inclusive
+     * @param to the end of the time range (epoch ms), exclusive
+     * @param limit the maximum number of entities to retrieve
+     * @param resultHandler the result will be returned asynchronously in this handler
+     */
+    @Fluent
+    StorageService getEntitySentiment(String query, long from, long to, int limit, Handler<AsyncResult<JsonArray>> resultHandler);
 
     /**
-     * Checks if an article with a specific name and description is currently contained in mongo storage
+     * Retrieves the sentiment results for a query as a time series. Each point of the series summarises the articles
+     * published within one bucket of the requested granularity, and holds the bucket's start (epoch ms), count, mean,
+     * stddev, min and max. Buckets without any articles are omitted.
      *
-     * @param collectionName the name of the collection that the article search will be conducted within
+     * @param query the query that sentiment results will be retrieved for
+     * @param from the start of the time range (epoch ms), inclusive
+     * @param to the end of the time range (epoch ms), exclusive
+     * @param granularity the width of each bucket in the time series
+     * @param resultHandler the result will be returned asynchronously in this handler
+     */
+    @Fluent
+    StorageService getSentimentTimeSeries(String query, long from, long to, Granularity granularity, Handler<AsyncResult<JsonArray>> resultHandler);
+
+    /**
+     * Checks if an article with a specific name and description is currently stored for a query
+     *
+     * @param query the query that the article search will be conducted within
      * @param articleName the name of the article which we are searching for
      * @param articleDescription the description of the article which we are searching for
      * @param resultHandler the result will be returned asynchronously in this handler
      */
     @Fluent
-    StorageService hasArticle(String collectionName, String articleName, String articleDescription, Handler<AsyncResult<Boolean>> resultHandler);
+    StorageService hasArticle(String query, String articleName, String articleDescription, Handler<AsyncResult<Boolean>> resultHandler);
 
     /**
      * Checks if the specified collection is currently contained in mongo storage.
@@ -105,12 +174,37 @@ public interface StorageService {
     StorageService isIndexPresent(String indexName, String collectionName, Handler<AsyncResult<Boolean>> resultHandler);
 
     /**
-     * Stores the provided articles in the specified collection name.
+     * Stores the provided articles under the specified query. Articles which are already stored for the query are
+     * rejected, and reported as write errors in the result.
+     *
+     * @param query the query to store the articles under
+     * @param articles json object containing a list of articles to store
+     * @param resultHandler the result will be returned asynchronously in this handler
+     */
+    @Fluent
+    StorageService saveArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler);
+
+    /**
+     * Stores the provided articles under the specified query, keyed by each article's fingerprint. Articles which are
+     * not yet stored for the query are inserted, and those which are already stored are replaced by the new copy, so
+     * saving the same articles again (e.g. on a retry) is safe. Only inserted articles are added to the query's time
+     * series and entity buckets. The result holds the number of articles "inserted" and "matched" (i.e. already stored).
      *
-     * @param collectionName the name of the collection to store the articles in
+     * @param query the query to store the articles under
      * @param articles json object containing a list of articles to store
      * @param resultHandler the result will be returned asynchronously in this handler
      */
     @Fluent
-    StorageService saveArticles(String collectionName, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler);
+    StorageService saveOrUpdateArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler);
+
+    /**
+     * Updates the metadata of a query in the queries registry. Only lastCrawled, lastRequested, interval and priority
+     * may be updated, and the update fails if the query is not registered.
+     *
+     * @param query the query to update
+     * @param metadata json object holding the fields to update
+     * @param resultHandler the result will be returned asynchronously in this handler
+     */
+    @Fluent
+    StorageService updateQuery(String query, JsonObject metadata, Handler<AsyncResult<JsonObject>> resultHandler);
 }
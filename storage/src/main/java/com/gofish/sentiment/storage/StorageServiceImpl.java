@@ -1,6 +1,8 @@
 package com.gofish.sentiment.storage;
 
+import com.gofish.sentiment.common.logging.SampledLogger;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
@@ -15,7 +17,13 @@ import io.vertx.rx.java.SingleOnSubscribeAdapter;
 import rx.Observable;
 import rx.Single;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author Luke Herron
@@ -23,16 +31,134 @@ import java.util.List;
 public class StorageServiceImpl implements StorageService {
 
     private static final Logger LOG = LoggerFactory.getLogger(StorageServiceImpl.class);
+    private static final SampledLogger HOT_PATH_LOG = SampledLogger.getLogger(StorageServiceImpl.class);
+    private static final int MAX_BUCKET_UPDATE_ATTEMPTS = 3;
 
     private final MongoClient mongo;
+    private final QueryRegistry queryRegistry;
+    private final CollectionCatalog collectionCatalog;
 
     public StorageServiceImpl(Vertx vertx, JsonObject config) {
         this.mongo = MongoClient.createShared(vertx, config);
+        this.queryRegistry = QueryRegistry.createShared(vertx, config);
+        this.collectionCatalog = CollectionCatalog.createShared(vertx, config);
+
+        ensureIndex(ArticleDocuments.COLLECTION, new JsonObject().put("query", 1).put("fingerprint", 1),
+                new IndexOptions().name(ArticleDocuments.COLLECTION + "Index").unique(true));
+        ensureIndex(ArticleDocuments.COLLECTION, new JsonObject().put("query", 1).put("_id", -1),
+                new IndexOptions().name(ArticleDocuments.COLLECTION + "PageIndex"));
+        ensureIndex(SentimentBuckets.COLLECTION, new JsonObject().put("query", 1).put("granularity", 1).put("start", 1),
+                new IndexOptions().name(SentimentBuckets.COLLECTION + "Index").unique(true));
+        ensureIndex(SentimentBuckets.ENTITY_COLLECTION, new JsonObject().put("query", 1).put("start", 1).put("entity", 1),
+                new IndexOptions().name(SentimentBuckets.ENTITY_COLLECTION + "Index").unique(true));
+        ensureIndex(SentimentBuckets.ENTITY_COLLECTION, new JsonObject().put("start", 1),
+                new IndexOptions().name(SentimentBuckets.ENTITY_COLLECTION + "StartIndex"));
+
+        // Raw articles and hourly buckets can be expired, while daily buckets are kept to summarise the expired articles
+        final JsonObject retentionConfig = config.getJsonObject("retention", new JsonObject());
+        ensureExpiry(ArticleDocuments.COLLECTION, "storedAt", retentionConfig.getInteger("articles.days", 0), null);
+        ensureExpiry(SentimentBuckets.COLLECTION, "startDate", retentionConfig.getInteger("hourly.days", 0),
+                new JsonObject().put("granularity", Granularity.HOUR.name().toLowerCase()));
+    }
+
+    /**
+     * Creates an index which the storage service relies upon, unless it already exists
+     * @param collectionName name of the collection for which the index will be created
+     * @param collectionIndex JsonObject which specifies the fields that form the index
+     * @param indexOptions Options used to configure the index
+     */
+    private void ensureIndex(String collectionName, JsonObject collectionIndex, IndexOptions indexOptions) {
+        mongo.createIndexWithOptions(collectionName, collectionIndex, indexOptions, result -> {
+            if (result.failed()) {
+                LOG.error("Failed to create index ''{0}''", result.cause(), indexOptions.getName());
+            }
+        });
+    }
+
+    /**
+     * Creates a TTL index which expires the documents of a collection a number of days after the date held in a field.
+     * If the index already exists with a different expiry, its expiry is updated. If expiry is turned off, an index
+     * created while it was on is dropped.
+     * @param collectionName name of the collection whose documents will expire
+     * @param field the date field which documents expire by
+     * @param days the number of days after which documents expire, or 0 to never expire them
+     * @param partialFilter JsonObject which restricts expiry to the documents it matches, or null to expire any document
+     */
+    private void ensureExpiry(String collectionName, String field, int days, JsonObject partialFilter) {
+        final String indexName = collectionName + "ExpiryIndex";
+
+        if (days <= 0) {
+            collectionCatalog.hasIndex(indexName, collectionName, hasIndex -> {
+                if (hasIndex.failed()) {
+                    LOG.error("Failed to check for index ''{0}''", hasIndex.cause(), indexName);
+                }
+                else if (hasIndex.result()) {
+                    mongo.dropIndex(collectionName, indexName, dropped -> {
+                        if (dropped.failed()) {
+                            LOG.error("Failed to drop index ''{0}''", dropped.cause(), indexName);
+                        }
+                        else {
+                            LOG.info("Dropped index ''{0}'' as expiry is turned off", indexName);
+                        }
+                    });
+                }
+            });
+
+            return;
+        }
+
+        final long expireAfterSeconds = TimeUnit.DAYS.toSeconds(days);
+        final IndexOptions indexOptions = new IndexOptions()
+                .name(indexName)
+                .expireAfter(expireAfterSeconds, TimeUnit.SECONDS);
+        if (partialFilter != null) {
+            indexOptions.partialFilterExpression(partialFilter);
+        }
+
+        mongo.createIndexWithOptions(collectionName, new JsonObject().put(field, 1), indexOptions, created -> {
+            if (created.succeeded()) {
+                return;
+            }
+
+            // Most likely the retention has been changed since the index was created
+            final JsonObject collModCommand = new JsonObject()
+                    .put("collMod", collectionName)
+                    .put("index", new JsonObject()
+                            .put("keyPattern", new JsonObject().put(field, 1))
+                            .put("expireAfterSeconds", expireAfterSeconds));
+
+            mongo.runCommand("collMod", collModCommand, modified -> {
+                if (modified.failed()) {
+                    LOG.error("Failed to create index ''{0}''", created.cause(), indexName);
+                    LOG.error("Failed to update the expiry of index ''{0}''", modified.cause(), indexName);
+                }
+            });
+        });
+    }
+
+    @Override
+    public StorageService addQuery(String query, Handler<AsyncResult<Void>> resultHandler) {
+        LOG.info("Adding query ''{0}''", query);
+
+        rxAddQuery(query).subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
+    /**
+     * Adds a query to the queries registry, unless it is already registered
+     * @param query the query to add
+     * @return Single which emits once the query is registered
+     */
+    private Single<Void> rxAddQuery(String query) {
+
+        return Single.create(new SingleOnSubscribeAdapter<JsonObject>(fut -> queryRegistry.add(query, fut)))
+                .map(entry -> (Void) null);
     }
 
     @Override
     public StorageService createCollection(String collectionName, Handler<AsyncResult<Void>> resultHandler) {
-        LOG.info("Creating collection '" + collectionName + "'");
+        LOG.info("Creating collection ''{0}''", collectionName);
 
         rxHasCollection(collectionName)
                 .flatMap(isPresent -> isPresent ?
@@ -50,7 +176,10 @@ public class StorageServiceImpl implements StorageService {
      */
     private Single<Void> rxCreateCollection(String collectionName) {
 
-        return Single.create(new SingleOnSubscribeAdapter<>(fut -> mongo.createCollection(collectionName, fut)));
+        return Single.create(new SingleOnSubscribeAdapter<Void>(fut -> mongo.createCollection(collectionName, fut)))
+                .doOnSuccess(v -> collectionCatalog.addCollection(collectionName))
+                // The catalog may have missed a collection created elsewhere, so bring it up to date
+                .doOnError(error -> collectionCatalog.refresh());
     }
 
     @Override
@@ -58,7 +187,7 @@ public class StorageServiceImpl implements StorageService {
         final String indexName = collectionName + "Index";
         final IndexOptions indexOptions = new IndexOptions().name(indexName).unique(true);
 
-        LOG.info("Creating index '" + indexName + "'");
+        LOG.info("Creating index ''{0}''", indexName);
 
         rxIsIndexPresent(indexName, collectionName)
                 .flatMap(isPresent -> isPresent ?
@@ -79,8 +208,49 @@ public class StorageServiceImpl implements StorageService {
      */
     private Single<Void> rxCreateIndex(String collectionName, JsonObject collectionIndex, IndexOptions indexOptions) {
 
+        return Single.create(new SingleOnSubscribeAdapter<Void>(fut ->
+                mongo.createIndexWithOptions(collectionName, collectionIndex, indexOptions, fut)))
+                .doOnSuccess(v -> collectionCatalog.addIndex(indexOptions.getName(), collectionName))
+                .doOnError(error -> collectionCatalog.refresh());
+    }
+
+    @Override
+    public StorageService getArticles(String query, JsonObject filter, JsonObject projection, String cursor, int limit, Handler<AsyncResult<JsonObject>> resultHandler) {
+        HOT_PATH_LOG.info("Retrieving {0} articles for query ''{1}'' from cursor {2}", limit, query, cursor);
+
+        final JsonObject findQuery;
+        final JsonObject fields;
+        try {
+            findQuery = ArticleDocuments.pageQuery(query, filter, cursor);
+            fields = ArticleDocuments.pageProjection(projection);
+        }
+        catch (IllegalArgumentException e) {
+            resultHandler.handle(Future.failedFuture(e));
+            return this;
+        }
+
+        final FindOptions findOptions = new FindOptions()
+                .setFields(fields)
+                .setSort(new JsonObject().put("_id", -1))
+                .setLimit(limit);
+
+        rxGetArticles(findQuery, findOptions)
+                .map(documents -> ArticleDocuments.toPage(documents, limit))
+                .subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
+    /**
+     * Retrieves the articles which match the find query
+     * @param findQuery the find query which defines the query, filter and cursor of the page
+     * @param findOptions findOptions which determines the projection, order and size of the page
+     * @return Single which emits the documents of the page
+     */
+    private Single<List<JsonObject>> rxGetArticles(JsonObject findQuery, FindOptions findOptions) {
+
         return Single.create(new SingleOnSubscribeAdapter<>(fut ->
-                mongo.createIndexWithOptions(collectionName, collectionIndex, indexOptions, fut)));
+                mongo.findWithOptions(ArticleDocuments.COLLECTION, findQuery, findOptions, fut)));
     }
 
     @Override
@@ -102,16 +272,29 @@ public class StorageServiceImpl implements StorageService {
     }
 
     @Override
-    public StorageService getSentimentResults(String collectionName, Handler<AsyncResult<JsonObject>> resultHandler) {
-        LOG.info("Retrieving sentiment results for collection '" + collectionName + "'");
+    public StorageService getQueries(Handler<AsyncResult<JsonArray>> resultHandler) {
+        LOG.info("Retrieving queries");
+
+        rxGetQueries().subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
 
-        final JsonObject getResultsCommand = new JsonObject()
-                .put("aggregate", collectionName)
-                .put("pipeline", new JsonArray()
-                        .add(new JsonObject().put("$group", new JsonObject()
-                                .put("_id", "")
-                                .put("score", new JsonObject().put("$avg", "$sentiment.score"))))
-                        .add(new JsonObject().put("$project", new JsonObject().put("_id", 0).put("score", 1))));
+    /**
+     * Retrieves the entry of every query in the queries registry
+     * @return Single which emits the registered queries
+     */
+    private Single<JsonArray> rxGetQueries() {
+
+        return Single.create(new SingleOnSubscribeAdapter<List<JsonObject>>(fut -> queryRegistry.getAll(fut)))
+                .map(JsonArray::new);
+    }
+
+    @Override
+    public StorageService getSentimentResults(String query, Handler<AsyncResult<JsonObject>> resultHandler) {
+        HOT_PATH_LOG.info("Retrieving sentiment results for query ''{0}''", query);
+
+        final JsonObject getResultsCommand = SentimentBuckets.overallQuery(query);
 
         rxGetSentimentResults(getResultsCommand).subscribe(RxHelper.toSubscriber(resultHandler));
 
@@ -119,8 +302,7 @@ public class StorageServiceImpl implements StorageService {
     }
 
     /**
-     * Retrieves the sentiment results for a specific collection name. A collection name maps to an API query, so any
-     * returned sentiment value will be relevant to the query that is being searched.
+     * Retrieves the sentiment results for a specific query, from its daily buckets
      * @param getResultsCommand the JsonObject which describes the mongo command used to retrieve the results
      * @return Single which emits the results of the command
      */
@@ -133,34 +315,84 @@ public class StorageServiceImpl implements StorageService {
     }
 
     @Override
-    public StorageService hasArticle(String collectionName, String articleName, String articleDescription, Handler<AsyncResult<Boolean>> resultHandler) {
-        LOG.info("Checking if '" + collectionName + "' has article '" + articleName + "'");
+    public StorageService getEntitySentiment(String query, long from, long to, int limit, Handler<AsyncResult<JsonArray>> resultHandler) {
+        HOT_PATH_LOG.info("Retrieving top {0} entities for query ''{1}''", limit, query);
+
+        final JsonObject command = SentimentBuckets.entityQuery(query, from, to, limit);
+
+        rxGetEntitySentiment(command).subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
 
-        final JsonObject findQuery = new JsonObject().put("name", articleName).put("description", articleDescription);
+    /**
+     * Ranks the entities within the entity buckets, and converts each in to its sentiment summary
+     * @param getEntitiesCommand the JsonObject which describes the mongo command used to rank the entities
+     * @return Single which emits the ranked entities
+     */
+    private Single<JsonArray> rxGetEntitySentiment(JsonObject getEntitiesCommand) {
+
+        return Single.create(new SingleOnSubscribeAdapter<JsonObject>(fut ->
+                mongo.runCommand("aggregate", getEntitiesCommand, fut)))
+                .map(response -> response.getJsonArray("result", new JsonArray()))
+                .map(groups -> new JsonArray(groups.stream()
+                        .map(group -> SentimentBuckets.toEntity((JsonObject) group))
+                        .collect(Collectors.toList())));
+    }
+
+    @Override
+    public StorageService getSentimentTimeSeries(String query, long from, long to, Granularity granularity, Handler<AsyncResult<JsonArray>> resultHandler) {
+        HOT_PATH_LOG.info("Retrieving {0} sentiment time series for query ''{1}''", granularity, query);
+
+        final JsonObject findQuery = SentimentBuckets.rangeQuery(query, from, to, granularity);
+        final FindOptions findOptions = new FindOptions().setSort(new JsonObject().put("start", 1));
+
+        rxGetSentimentTimeSeries(findQuery, findOptions).subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
+    /**
+     * Retrieves the time buckets which match the find query, and converts each in to a point of the time series
+     * @param findQuery the find query which defines the query, granularity and time range of the buckets
+     * @param findOptions findOptions which determines the order of the buckets
+     * @return Single which emits the points of the time series
+     */
+    private Single<JsonArray> rxGetSentimentTimeSeries(JsonObject findQuery, FindOptions findOptions) {
+
+        return Single.create(new SingleOnSubscribeAdapter<List<JsonObject>>(fut ->
+                mongo.findWithOptions(SentimentBuckets.COLLECTION, findQuery, findOptions, fut)))
+                .map(buckets -> new JsonArray(buckets.stream().map(SentimentBuckets::toPoint).collect(Collectors.toList())));
+    }
+
+    @Override
+    public StorageService hasArticle(String query, String articleName, String articleDescription, Handler<AsyncResult<Boolean>> resultHandler) {
+        HOT_PATH_LOG.info("Checking if ''{0}'' has article ''{1}''", query, articleName);
+
+        final JsonObject findQuery = ArticleDocuments.articleQuery(query, articleName, articleDescription);
         final FindOptions findOptions = new FindOptions().setFields(new JsonObject().put("_id", 1)).setLimit(1);
 
-        rxHasArticle(collectionName, findQuery, findOptions).subscribe(RxHelper.toSubscriber(resultHandler));
+        rxHasArticle(findQuery, findOptions).subscribe(RxHelper.toSubscriber(resultHandler));
 
         return this;
     }
 
     /**
-     * Checks if the specified article exists within the specified collection name
-     * @param collectionName the collection name to search for the article within
-     * @param findQuery the find query which defines the article name and description to search for
+     * Checks if the specified article exists within the articles collection
+     * @param findQuery the find query which defines the query and fingerprint of the article to search for
      * @param findOptions findOptions which determines the return output
      * @return Single which emits the results of the search
      */
-    private Single<Boolean> rxHasArticle(String collectionName, JsonObject findQuery, FindOptions findOptions) {
+    private Single<Boolean> rxHasArticle(JsonObject findQuery, FindOptions findOptions) {
 
         return Single.create(new SingleOnSubscribeAdapter<List<JsonObject>>(fut ->
-                mongo.findWithOptions(collectionName, findQuery, findOptions, fut)))
+                mongo.findWithOptions(ArticleDocuments.COLLECTION, findQuery, findOptions, fut)))
                 .map(collections -> !collections.isEmpty());
     }
 
     @Override
     public StorageService hasCollection(String collectionName, Handler<AsyncResult<Boolean>> resultHandler) {
-        LOG.info("Checking if collection '" + collectionName + "' exists");
+        LOG.info("Checking if collection ''{0}'' exists", collectionName);
 
         rxHasCollection(collectionName).subscribe(RxHelper.toSubscriber(resultHandler));
 
@@ -168,18 +400,19 @@ public class StorageServiceImpl implements StorageService {
     }
 
     /**
-     * Checks if the specified collection is currently contained in mongo storage
+     * Checks if the specified collection is currently contained in mongo storage. The check is made against the
+     * collection catalog, rather than mongo itself.
      * @param collectionName the collection name to search for
      * @return Single which emits the results of the search
      */
     private Single<Boolean> rxHasCollection(String collectionName) {
 
-        return rxGetCollections().map(collections -> collections.contains(collectionName));
+        return Single.create(new SingleOnSubscribeAdapter<>(fut -> collectionCatalog.hasCollection(collectionName, fut)));
     }
 
     @Override
     public StorageService isIndexPresent(String indexName, String collectionName, Handler<AsyncResult<Boolean>> resultHandler) {
-        LOG.info("Checking if index '" + indexName + "' exists in collection '" + collectionName + "'");
+        LOG.info("Checking if index ''{0}'' exists in collection ''{1}''", indexName, collectionName);
 
         rxIsIndexPresent(indexName, collectionName).subscribe(RxHelper.toSubscriber(resultHandler));
 
@@ -187,36 +420,39 @@ public class StorageServiceImpl implements StorageService {
     }
 
     /**
-     * Checks if the specified index is already defined for the specified collection name
+     * Checks if the specified index is already defined for the specified collection name. The check is made against the
+     * collection catalog, rather than mongo itself.
      * @param indexName index name to search for
      * @param collectionName collection name to search within
      * @return Single which emits the result of the search
      */
     private Single<Boolean> rxIsIndexPresent(String indexName, String collectionName) {
 
-        return Single.create(new SingleOnSubscribeAdapter<JsonArray>(fut -> mongo.listIndexes(collectionName, fut)))
-                .flatMapObservable(Observable::from)
-                .map(index -> ((JsonObject) index).getString("name").equals(indexName))
-                .firstOrDefault(false, equals -> equals)
-                .toSingle();
+        return Single.create(new SingleOnSubscribeAdapter<>(fut -> collectionCatalog.hasIndex(indexName, collectionName, fut)));
     }
 
     @Override
-    public StorageService saveArticles(String collectionName, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler) {
-        LOG.info("Saving articles to collection '" + collectionName + "'");
+    public StorageService saveArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler) {
+        HOT_PATH_LOG.info("Saving {0} articles for query ''{1}''", articles.size(), query);
+
+        final JsonObject storedAt = SentimentBuckets.toDate(System.currentTimeMillis());
+        final JsonArray documents = new JsonArray();
+        articles.forEach(article -> documents.add(ArticleDocuments.toDocument(query, (JsonObject) article).put("storedAt", storedAt)));
 
         final JsonObject command = new JsonObject()
-                .put("insert", collectionName)
-                .put("documents", articles)
+                .put("insert", ArticleDocuments.COLLECTION)
+                .put("documents", documents)
                 .put("ordered", false);
 
-        rxSaveArticles(command).subscribe(RxHelper.toSubscriber(resultHandler));
+        rxSaveArticles(command)
+                .flatMap(result -> rxUpdateRollups(query, getInserted(articles, result)).map(v -> result))
+                .subscribe(RxHelper.toSubscriber(resultHandler));
 
         return this;
     }
 
     /**
-     * Stores the provided articles in the specified collection name.
+     * Stores the provided articles in the articles collection.
      * @param saveArticlesCommand the JsonObject which describes the mongo command used to insert documents
      * @return Single which emits the result of the save command
      */
@@ -224,4 +460,123 @@ public class StorageServiceImpl implements StorageService {
 
         return Single.create(new SingleOnSubscribeAdapter<>(fut -> mongo.runCommand("insert", saveArticlesCommand, fut)));
     }
+
+    /**
+     * Determines which articles were stored by an insert command i.e. those which were not rejected as duplicates
+     * @param articles the articles which were sent to be inserted
+     * @param insertResult the result of the insert command
+     * @return the inserted articles
+     */
+    private static List<JsonObject> getInserted(JsonArray articles, JsonObject insertResult) {
+        final Set<Integer> rejected = new HashSet<>();
+        insertResult.getJsonArray("writeErrors", new JsonArray())
+                .forEach(error -> rejected.add(((JsonObject) error).getInteger("index")));
+
+        return IntStream.range(0, articles.size())
+                .filter(index -> !rejected.contains(index))
+                .mapToObj(articles::getJsonObject)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public StorageService saveOrUpdateArticles(String query, JsonArray articles, Handler<AsyncResult<JsonObject>> resultHandler) {
+        HOT_PATH_LOG.info("Saving or updating {0} articles for query ''{1}''", articles.size(), query);
+
+        final List<JsonObject> documents = ArticleDocuments.toDocuments(query, articles);
+
+        rxSaveOrUpdateArticles(ArticleDocuments.upsertCommand(documents))
+                .flatMap(result -> {
+                    final JsonArray upserted = result.getJsonArray("upserted", new JsonArray());
+                    final List<JsonObject> inserted = upserted.stream()
+                            .map(upsert -> documents.get(((JsonObject) upsert).getInteger("index")))
+                            .collect(Collectors.toList());
+                    final JsonObject counts = new JsonObject()
+                            .put("inserted", inserted.size())
+                            .put("matched", result.getInteger("n", 0) - inserted.size());
+                    Optional.ofNullable(result.getJsonArray("writeErrors")).ifPresent(errors -> counts.put("writeErrors", errors));
+
+                    return rxUpdateRollups(query, inserted).map(v -> counts);
+                })
+                .subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
+    /**
+     * Upserts the provided articles in to the articles collection.
+     * @param upsertCommand the JsonObject which describes the mongo command used to upsert documents
+     * @return Single which emits the result of the update command
+     */
+    private Single<JsonObject> rxSaveOrUpdateArticles(JsonObject upsertCommand) {
+
+        return Single.create(new SingleOnSubscribeAdapter<>(fut -> mongo.runCommand("update", upsertCommand, fut)));
+    }
+
+    /**
+     * Adds the sentiment scores of newly stored articles to the query's time buckets, and to the buckets of the
+     * entities they are about. Only articles which were not stored before are passed in, so that no article is counted
+     * twice. A failure to update the buckets fails the save, so that the caller knows the buckets are missing the
+     * articles (even though the articles themselves have been stored).
+     * @param query the query which the articles were saved under
+     * @param inserted the articles which were newly stored
+     * @return Single which emits once the buckets have been updated
+     */
+    private Single<Void> rxUpdateRollups(String query, List<JsonObject> inserted) {
+
+        return Observable.just(SentimentBuckets.updateCommand(query, inserted), SentimentBuckets.entityUpdateCommand(query, inserted))
+                .filter(command -> !command.isEmpty())
+                .flatMap(command -> rxUpdateBuckets(command, MAX_BUCKET_UPDATE_ATTEMPTS)
+                        .toObservable()
+                        .doOnError(error ->
+                                LOG.error("Failed to update ''{0}'' for query ''{1}''", error, command.getString("update"), query)))
+                .toList()
+                .map(results -> (Void) null)
+                .toSingle();
+    }
+
+    /**
+     * Runs a bucket update command. Mongo reports updates which failed as write errors of a successful reply, rather
+     * than failing the command. Updates which lost a race with another save to create a bucket (i.e. failed with a
+     * duplicate key error) are retried, while any other write error fails the update.
+     * @param command the JsonObject which describes the bucket update command
+     * @param attempts the number of times the command may be run
+     * @return Single which emits the result of the last run of the command
+     */
+    private Single<JsonObject> rxUpdateBuckets(JsonObject command, int attempts) {
+
+        return Single.create(new SingleOnSubscribeAdapter<JsonObject>(fut -> mongo.runCommand("update", command, fut)))
+                .flatMap(result -> {
+                    final JsonArray writeErrors = result.getJsonArray("writeErrors", new JsonArray());
+                    if (writeErrors.isEmpty()) {
+                        return Single.just(result);
+                    }
+
+                    final JsonObject retryCommand = SentimentBuckets.retryCommand(command, writeErrors);
+                    if (retryCommand.isEmpty() || attempts <= 1) {
+                        return Single.error(new IllegalStateException("Failed to update buckets: " + writeErrors.encode()));
+                    }
+
+                    return rxUpdateBuckets(retryCommand, attempts - 1);
+                });
+    }
+
+    @Override
+    public StorageService updateQuery(String query, JsonObject metadata, Handler<AsyncResult<JsonObject>> resultHandler) {
+        HOT_PATH_LOG.info("Updating query ''{0}'' with {1}", query, metadata.encode());
+
+        rxUpdateQuery(query, metadata).subscribe(RxHelper.toSubscriber(resultHandler));
+
+        return this;
+    }
+
+    /**
+     * Updates the metadata of a query in the queries registry
+     * @param query the query to update
+     * @param metadata JsonObject holding the fields to update
+     * @return Single which emits the query's updated registry entry
+     */
+    private Single<JsonObject> rxUpdateQuery(String query, JsonObject metadata) {
+
+        return Single.create(new SingleOnSubscribeAdapter<>(fut -> queryRegistry.update(query, metadata, fut)));
+    }
 }
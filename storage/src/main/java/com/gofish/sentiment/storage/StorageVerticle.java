@@ -1,7 +1,9 @@
 package com.gofish.sentiment.storage;
 
+import com.gofish.sentiment.common.discovery.LocalServices;
+import com.gofish.sentiment.common.discovery.LocalServices.ServiceRegistration;
+import com.gofish.sentiment.common.discovery.NodeRecords;
 import io.vertx.core.Future;
-import io.vertx.core.eventbus.MessageConsumer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
@@ -10,9 +12,7 @@ import io.vertx.rx.java.RxHelper;
 import io.vertx.rxjava.core.AbstractVerticle;
 import io.vertx.rxjava.ext.mongo.MongoClient;
 import io.vertx.rxjava.servicediscovery.ServiceDiscovery;
-import io.vertx.rxjava.servicediscovery.types.EventBusService;
 import io.vertx.servicediscovery.Record;
-import io.vertx.serviceproxy.ProxyHelper;
 
 import java.util.Optional;
 
@@ -24,7 +24,7 @@ public class StorageVerticle extends AbstractVerticle {
     private static final Logger LOG = LoggerFactory.getLogger(StorageVerticle.class);
 
     private MongoClient mongo;
-    private MessageConsumer<JsonObject> messageConsumer;
+    private ServiceRegistration registration;
     private ServiceDiscovery serviceDiscovery;
     private Record record;
 
@@ -41,23 +41,25 @@ public class StorageVerticle extends AbstractVerticle {
 
         // Initialise a service proxy and publish it for service discovery
         com.gofish.sentiment.storage.rxjava.StorageService storageService = com.gofish.sentiment.storage.rxjava.StorageService.create(vertx, config());
-        messageConsumer = ProxyHelper.registerService(StorageService.class, vertx.getDelegate(), storageService.getDelegate(), StorageService.ADDRESS);
+        registration = LocalServices.registerService(StorageService.class, vertx.getDelegate(), storageService.getDelegate(), StorageService.ADDRESS);
 
         serviceDiscovery = ServiceDiscovery.create(vertx, serviceDiscovery -> {
             LOG.info("Service Discovery intialised");
-            record = EventBusService.createRecord(StorageService.NAME, StorageService.ADDRESS, StorageService.class.getName());
+            record = LocalServices.createRecord(StorageService.NAME, StorageService.ADDRESS, StorageService.class.getName());
 
-            serviceDiscovery.rxPublish(record).subscribe(r -> startFuture.complete(), startFuture::fail);
+            NodeRecords.publish(vertx.getDelegate(), serviceDiscovery.getDelegate(), record, startFuture.completer());
         });
     }
 
     @Override
     public void stop(Future<Void> stopFuture) throws Exception {
-        ObservableFuture<Void> messageConsumerObservable = new ObservableFuture<>();
-        serviceDiscovery.rxUnpublish(record.getRegistration())
-                .flatMapObservable(v -> {
-                    messageConsumer.unregister(messageConsumerObservable.toHandler());
-                    return messageConsumerObservable;
+        ObservableFuture<Void> unpublishObservable = new ObservableFuture<>();
+        ObservableFuture<Void> unregisterObservable = new ObservableFuture<>();
+        NodeRecords.unpublish(vertx.getDelegate(), serviceDiscovery.getDelegate(), record.getName(), unpublishObservable.toHandler());
+        unpublishObservable
+                .flatMap(v -> {
+                    registration.unregister(unregisterObservable.toHandler());
+                    return unregisterObservable;
                 })
                 .doOnNext(v -> { serviceDiscovery.close(); mongo.close(); })
                 .subscribe(RxHelper.toSubscriber(stopFuture));
@@ -0,0 +1,152 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class ArticleDocumentsTest {
+
+    @Test
+    public void testFingerprintIsStable() {
+        final String fingerprint = ArticleDocuments.fingerprint("Apple shatters market records", "Shares soar");
+
+        assertEquals(40, fingerprint.length());
+        assertEquals(fingerprint, ArticleDocuments.fingerprint("Apple shatters market records", "Shares soar"));
+    }
+
+    @Test
+    public void testFingerprintSeparatesNameAndDescription() {
+        assertNotEquals(ArticleDocuments.fingerprint("ab", "c"), ArticleDocuments.fingerprint("a", "bc"));
+    }
+
+    @Test
+    public void testDocumentHasQueryAndFingerprint() {
+        final JsonObject article = new JsonObject().put("name", "Apple shatters market records").put("description", "Shares soar");
+        final JsonObject document = ArticleDocuments.toDocument("apple", article);
+
+        assertEquals("apple", document.getString("query"));
+        assertEquals(ArticleDocuments.fingerprint(article.getString("name"), article.getString("description")),
+                document.getString("fingerprint"));
+        assertFalse(article.containsKey("query"));
+        assertEquals(ArticleDocuments.articleQuery("apple", "Apple shatters market records", "Shares soar"),
+                new JsonObject().put("query", "apple").put("fingerprint", document.getString("fingerprint")));
+    }
+
+    @Test
+    public void testDocumentsAreDeduplicatedByFingerprint() {
+        final JsonArray articles = new JsonArray()
+                .add(new JsonObject().put("name", "a").put("description", "first"))
+                .add(new JsonObject().put("name", "b").put("description", "second"))
+                .add(new JsonObject().put("name", "a").put("description", "first").put("url", "copy"));
+        final List<JsonObject> documents = ArticleDocuments.toDocuments("apple", articles);
+
+        assertEquals(2, documents.size());
+        assertEquals("a", documents.get(0).getString("name"));
+        assertFalse(documents.get(0).containsKey("url"));
+        assertEquals("b", documents.get(1).getString("name"));
+    }
+
+    @Test
+    public void testUpsertCommandIsKeyedByQueryAndFingerprint() {
+        final JsonObject document = ArticleDocuments.toDocument("apple",
+                new JsonObject().put("name", "Apple shatters market records").put("description", "Shares soar"));
+        final JsonObject command = ArticleDocuments.upsertCommand(Collections.singletonList(document));
+        final JsonObject update = command.getJsonArray("updates").getJsonObject(0);
+
+        assertEquals(ArticleDocuments.COLLECTION, command.getString("update"));
+        assertFalse(command.getBoolean("ordered"));
+        assertEquals(ArticleDocuments.articleQuery("apple", "Apple shatters market records", "Shares soar"), update.getJsonObject("q"));
+        assertEquals(document, update.getJsonObject("u").getJsonObject("$set"));
+        assertEquals(1, update.getJsonObject("u").getJsonObject("$setOnInsert").size());
+        assertTrue(update.getJsonObject("u").getJsonObject("$setOnInsert").getJsonObject("storedAt").containsKey("$date"));
+        assertTrue(update.getBoolean("upsert"));
+    }
+
+    @Test
+    public void testUpsertCommandOnlyWritesRollupFieldsOnInsert() {
+        final JsonObject sentiment = new JsonObject().put("score", 0.8);
+        final JsonObject document = ArticleDocuments.toDocument("apple", new JsonObject()
+                .put("name", "Apple shatters market records")
+                .put("description", "Shares soar")
+                .put("url", "http://example.com/apple")
+                .put("datePublished", "2017-04-01T10:15:00Z")
+                .put("sentiment", sentiment));
+        final JsonObject update = ArticleDocuments.upsertCommand(Collections.singletonList(document))
+                .getJsonArray("updates").getJsonObject(0).getJsonObject("u");
+
+        assertEquals(sentiment, update.getJsonObject("$setOnInsert").getJsonObject("sentiment"));
+        assertEquals("2017-04-01T10:15:00Z", update.getJsonObject("$setOnInsert").getString("datePublished"));
+        assertFalse(update.getJsonObject("$set").containsKey("sentiment"));
+        assertFalse(update.getJsonObject("$set").containsKey("datePublished"));
+        assertEquals("http://example.com/apple", update.getJsonObject("$set").getString("url"));
+        assertTrue(document.containsKey("sentiment"));
+    }
+
+    @Test
+    public void testUpsertCommandIgnoresStoredAtOfDocument() {
+        final JsonObject storedAt = SentimentBuckets.toDate(0);
+        final JsonObject document = ArticleDocuments.toDocument("apple",
+                new JsonObject().put("name", "Apple shatters market records").put("description", "Shares soar"))
+                .put("storedAt", storedAt);
+        final JsonObject update = ArticleDocuments.upsertCommand(Collections.singletonList(document))
+                .getJsonArray("updates").getJsonObject(0).getJsonObject("u");
+
+        assertFalse(update.getJsonObject("$set").containsKey("storedAt"));
+        assertFalse(storedAt.equals(update.getJsonObject("$setOnInsert").getJsonObject("storedAt")));
+    }
+
+    @Test
+    public void testPageQueryStartsAfterCursor() {
+        final JsonObject filter = new JsonObject().put("about.name", "Apple Inc.");
+
+        assertEquals(new JsonObject().put("about.name", "Apple Inc.").put("query", "apple"),
+                ArticleDocuments.pageQuery("apple", filter, null));
+        assertEquals(new JsonObject().put("query", "apple")
+                        .put("_id", new JsonObject().put("$lt", new JsonObject().put("$oid", "58f0a1b2c3d4e5f601234567"))),
+                ArticleDocuments.pageQuery("apple", null, "58f0a1b2c3d4e5f601234567"));
+        assertFalse(filter.containsKey("query"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageQueryRejectsInvalidCursor() {
+        ArticleDocuments.pageQuery("apple", null, "{\"$gt\": \"\"}");
+    }
+
+    @Test
+    public void testPageProjectionDefaultsToSummaryFields() {
+        assertEquals(ArticleDocuments.DEFAULT_PROJECTION, ArticleDocuments.pageProjection(null));
+        assertEquals(new JsonObject().put("name", 1), ArticleDocuments.pageProjection(new JsonObject().put("name", 1).put("_id", 0)));
+        assertEquals(ArticleDocuments.DEFAULT_PROJECTION, ArticleDocuments.pageProjection(new JsonObject().put("_id", 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageProjectionRejectsOperators() {
+        ArticleDocuments.pageProjection(new JsonObject().put("$where", 1));
+    }
+
+    @Test
+    public void testPageHasCursorOnlyWhenFull() {
+        final List<JsonObject> documents = Arrays.asList(
+                new JsonObject().put("_id", new JsonObject().put("$oid", "58f0a1b2c3d4e5f601234568")).put("name", "b"),
+                new JsonObject().put("_id", new JsonObject().put("$oid", "58f0a1b2c3d4e5f601234567")).put("name", "a"));
+
+        final JsonObject fullPage = ArticleDocuments.toPage(documents, 2);
+        assertEquals("58f0a1b2c3d4e5f601234567", fullPage.getString("cursor"));
+        assertEquals(new JsonArray().add(new JsonObject().put("name", "b")).add(new JsonObject().put("name", "a")),
+                fullPage.getJsonArray("articles"));
+
+        assertFalse(ArticleDocuments.toPage(documents, 3).containsKey("cursor"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class LazyLoadTest {
+
+    @Test
+    public void testCallersWaitingOnTheSameLoadAreAllRun() {
+        List<Handler<AsyncResult<Void>>> loads = new ArrayList<>();
+        LazyLoad lazyLoad = new LazyLoad(loads::add);
+        AtomicInteger runs = new AtomicInteger();
+
+        lazyLoad.whenLoaded(result -> {}, runs::incrementAndGet);
+        lazyLoad.whenLoaded(result -> {}, runs::incrementAndGet);
+        assertEquals(1, loads.size());
+        assertEquals(0, runs.get());
+
+        loads.get(0).handle(Future.succeededFuture());
+        assertEquals(2, runs.get());
+
+        lazyLoad.whenLoaded(result -> {}, runs::incrementAndGet);
+        assertEquals(1, loads.size());
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    public void testFailedLoadFailsWaitingCallersAndIsRetried() {
+        List<Handler<AsyncResult<Void>>> loads = new ArrayList<>();
+        LazyLoad lazyLoad = new LazyLoad(loads::add);
+        List<AsyncResult<Void>> failures = new ArrayList<>();
+        AtomicInteger runs = new AtomicInteger();
+
+        lazyLoad.<Void>whenLoaded(failures::add, runs::incrementAndGet);
+        loads.get(0).handle(Future.failedFuture("mongo is unavailable"));
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0).failed());
+        assertEquals(0, runs.get());
+
+        lazyLoad.<Void>whenLoaded(failures::add, runs::incrementAndGet);
+        assertEquals(2, loads.size());
+        loads.get(1).handle(Future.succeededFuture());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testStaleCacheIsReloadedInTheBackground() throws InterruptedException {
+        List<Handler<AsyncResult<Void>>> loads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        LazyLoad lazyLoad = new LazyLoad(loads::add, 1, failures::add);
+        AtomicInteger runs = new AtomicInteger();
+
+        lazyLoad.whenLoaded(result -> {}, runs::incrementAndGet);
+        loads.get(0).handle(Future.succeededFuture());
+        Thread.sleep(5);
+
+        // The stale cache is still used while it is reloaded, and only one reload is started
+        lazyLoad.whenLoaded(result -> {}, runs::incrementAndGet);
+        lazyLoad.whenLoaded(result -> {}, runs::incrementAndGet);
+        assertEquals(2, loads.size());
+        assertEquals(3, runs.get());
+
+        loads.get(1).handle(Future.failedFuture("mongo is unavailable"));
+        assertEquals(1, failures.size());
+        Thread.sleep(5);
+
+        lazyLoad.whenLoaded(result -> {}, runs::incrementAndGet);
+        assertEquals(3, loads.size());
+        assertEquals(4, runs.get());
+    }
+}
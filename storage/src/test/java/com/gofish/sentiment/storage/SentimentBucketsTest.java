@@ -0,0 +1,186 @@
+package com.gofish.sentiment.storage;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Luke Herron
+ */
+public class SentimentBucketsTest {
+
+    private static final long HOUR = 3600000;
+    private static final long DAY = 24 * HOUR;
+
+    @Test
+    public void testBucketStartIsAlignedToGranularity() {
+        final long time = 10 * DAY + 5 * HOUR + 1234;
+
+        assertEquals(10 * DAY + 5 * HOUR, SentimentBuckets.bucketStart(time, Granularity.HOUR));
+        assertEquals(10 * DAY, SentimentBuckets.bucketStart(time, Granularity.DAY));
+    }
+
+    @Test
+    public void testArticlesInTheSameBucketAreCombined() {
+        final JsonObject command = SentimentBuckets.updateCommand("apple", Arrays.asList(
+                createArticle("2017-04-03T10:15:00.0000000Z", 0.2),
+                createArticle("2017-04-03T10:45:00.0000000Z", 0.6),
+                createArticle("2017-04-03T11:05:00.0000000Z", 0.9)));
+
+        final JsonArray updates = command.getJsonArray("updates");
+        assertEquals(SentimentBuckets.COLLECTION, command.getString("update"));
+        assertEquals(3, updates.size()); // Two hourly buckets, and one daily bucket
+
+        final JsonObject hourly = updates.getJsonObject(0);
+        assertEquals("hour", hourly.getJsonObject("q").getString("granularity"));
+        assertEquals(2L, (long) hourly.getJsonObject("u").getJsonObject("$inc").getLong("count"));
+        assertEquals(0.8, hourly.getJsonObject("u").getJsonObject("$inc").getDouble("sum"), 1e-9);
+        assertEquals(0.2, hourly.getJsonObject("u").getJsonObject("$min").getDouble("min"), 1e-9);
+        assertEquals(0.6, hourly.getJsonObject("u").getJsonObject("$max").getDouble("max"), 1e-9);
+
+        final JsonObject daily = updates.getJsonObject(1);
+        assertEquals("day", daily.getJsonObject("q").getString("granularity"));
+        assertEquals(3L, (long) daily.getJsonObject("u").getJsonObject("$inc").getLong("count"));
+        assertTrue(daily.getBoolean("upsert"));
+    }
+
+    @Test
+    public void testTimeBucketsHaveAStartDate() {
+        final JsonArray updates = SentimentBuckets.updateCommand("apple",
+                Collections.singletonList(createArticle("2017-04-03T10:15:00.0000000Z", 0.2))).getJsonArray("updates");
+
+        assertEquals(new JsonObject().put("startDate", new JsonObject().put("$date", "2017-04-03T10:00:00Z")),
+                updates.getJsonObject(0).getJsonObject("u").getJsonObject("$setOnInsert"));
+        assertEquals(new JsonObject().put("startDate", new JsonObject().put("$date", "2017-04-03T00:00:00Z")),
+                updates.getJsonObject(1).getJsonObject("u").getJsonObject("$setOnInsert"));
+        assertFalse(SentimentBuckets.entityUpdateCommand("apple", Collections.singletonList(
+                createArticle("2017-04-03T10:15:00.0000000Z", 0.2).put("about", new JsonArray().add(new JsonObject().put("name", "Apple")))))
+                .getJsonArray("updates").getJsonObject(0).getJsonObject("u").getJsonObject("$setOnInsert").containsKey("startDate"));
+    }
+
+    @Test
+    public void testOverallResultsAreReadFromDailyBuckets() {
+        final JsonObject command = SentimentBuckets.overallQuery("apple");
+        final JsonObject match = command.getJsonArray("pipeline").getJsonObject(0).getJsonObject("$match");
+
+        assertEquals(SentimentBuckets.COLLECTION, command.getString("aggregate"));
+        assertEquals(new JsonObject().put("query", "apple").put("granularity", "day"), match);
+    }
+
+    @Test
+    public void testArticlesWithoutScoresAreSkipped() {
+        final JsonObject command = SentimentBuckets.updateCommand("apple",
+                Collections.singletonList(new JsonObject().put("name", "Unscored")));
+
+        assertTrue(command.isEmpty());
+    }
+
+    @Test
+    public void testPointHasMeanAndStandardDeviation() {
+        final JsonObject point = SentimentBuckets.toPoint(new JsonObject()
+                .put("start", HOUR)
+                .put("count", 2)
+                .put("sum", 0.8)
+                .put("sumSq", 0.4)
+                .put("min", 0.2)
+                .put("max", 0.6));
+
+        assertEquals(HOUR, (long) point.getLong("start"));
+        assertEquals(0.4, point.getDouble("mean"), 1e-9);
+        assertEquals(0.2, point.getDouble("stddev"), 1e-9);
+    }
+
+    @Test
+    public void testEntitiesAreCountedOncePerArticle() {
+        final JsonObject article = createArticle("2017-04-03T10:15:00.0000000Z", 0.4)
+                .put("about", new JsonArray()
+                        .add(new JsonObject().put("name", "Apple Inc."))
+                        .add(new JsonObject().put("name", "apple inc."))
+                        .add(new JsonObject().put("name", "Imagination Technologies")));
+
+        final JsonArray updates = SentimentBuckets.entityUpdateCommand("apple", Arrays.asList(article, article.copy()))
+                .getJsonArray("updates");
+
+        assertEquals(2, updates.size());
+        assertEquals("apple inc.", updates.getJsonObject(0).getJsonObject("q").getString("entity"));
+        assertEquals("Apple Inc.", updates.getJsonObject(0).getJsonObject("u").getJsonObject("$setOnInsert").getString("name"));
+        assertEquals("apple", updates.getJsonObject(0).getJsonObject("q").getString("query"));
+        assertEquals(2L, (long) updates.getJsonObject(0).getJsonObject("u").getJsonObject("$inc").getLong("count"));
+    }
+
+    @Test
+    public void testEntitiesShareBucketsAcrossArticlesIgnoringCase() {
+        final JsonObject first = createArticle("2017-04-03T10:15:00.0000000Z", 0.4)
+                .put("about", new JsonArray().add(new JsonObject().put("name", "Apple Inc.")));
+        final JsonObject second = createArticle("2017-04-03T11:15:00.0000000Z", 0.6)
+                .put("about", new JsonArray().add(new JsonObject().put("name", "APPLE INC.")));
+
+        final JsonArray updates = SentimentBuckets.entityUpdateCommand("apple", Arrays.asList(first, second))
+                .getJsonArray("updates");
+
+        assertEquals(1, updates.size());
+        assertEquals(2L, (long) updates.getJsonObject(0).getJsonObject("u").getJsonObject("$inc").getLong("count"));
+    }
+
+    @Test
+    public void testEntityQueryIsNotRestrictedWithoutQuery() {
+        final JsonObject match = SentimentBuckets.entityQuery(null, DAY + HOUR, 3 * DAY, 5)
+                .getJsonArray("pipeline").getJsonObject(0).getJsonObject("$match");
+
+        assertFalse(match.containsKey("query"));
+        assertEquals(DAY, (long) match.getJsonObject("start").getLong("$gte"));
+    }
+
+    @Test
+    public void testEntityHasNameAndMean() {
+        final JsonObject entity = SentimentBuckets.toEntity(new JsonObject()
+                .put("_id", "apple inc.")
+                .put("name", "Apple Inc.")
+                .put("count", 4)
+                .put("sum", 2.0)
+                .put("sumSq", 1.0)
+                .put("min", 0.5)
+                .put("max", 0.5));
+
+        assertEquals("Apple Inc.", entity.getString("entity"));
+        assertEquals(0.5, entity.getDouble("mean"), 1e-9);
+        assertEquals(0.0, entity.getDouble("stddev"), 1e-9);
+    }
+
+    @Test
+    public void testRetryCommandHoldsOnlyDuplicateKeyUpdates() {
+        final JsonObject command = SentimentBuckets.updateCommand("apple", Arrays.asList(
+                createArticle("2017-04-01T10:15:00Z", 0.8), createArticle("2017-04-02T10:15:00Z", 0.4)));
+        final JsonArray writeErrors = new JsonArray()
+                .add(new JsonObject().put("index", 1).put("code", 11000).put("errmsg", "E11000 duplicate key error"));
+
+        final JsonObject retryCommand = SentimentBuckets.retryCommand(command, writeErrors);
+
+        assertEquals(SentimentBuckets.COLLECTION, retryCommand.getString("update"));
+        assertEquals(new JsonArray().add(command.getJsonArray("updates").getJsonObject(1)), retryCommand.getJsonArray("updates"));
+    }
+
+    @Test
+    public void testOtherWriteErrorsAreNotRetried() {
+        final JsonObject command = SentimentBuckets.updateCommand("apple",
+                Collections.singletonList(createArticle("2017-04-01T10:15:00Z", 0.8)));
+        final JsonArray writeErrors = new JsonArray()
+                .add(new JsonObject().put("index", 0).put("code", 11000))
+                .add(new JsonObject().put("index", 1).put("code", 121));
+
+        assertTrue(SentimentBuckets.retryCommand(command, writeErrors).isEmpty());
+    }
+
+    private static JsonObject createArticle(String datePublished, double score) {
+        return new JsonObject()
+                .put("datePublished", datePublished)
+                .put("sentiment", new JsonObject().put("score", score));
+    }
+}
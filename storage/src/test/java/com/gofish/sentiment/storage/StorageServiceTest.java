@@ -15,6 +15,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.net.URL;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @author Luke Herron
@@ -49,14 +51,25 @@ public class StorageServiceTest {
                 .put("name", 1)
                 .put("description", 1);
 
+        // Articles are stored in the articles collection under their query, while the query's (legacy) collection
+        // is left for the collection and index tests
+        final JsonArray documents = new JsonArray();
+        articles.forEach(article -> documents.add(ArticleDocuments.toDocument(collectionName, (JsonObject) article)));
+
         final JsonObject insertCommand = new JsonObject()
-                .put("insert", collectionName)
-                .put("documents", articles)
+                .put("insert", ArticleDocuments.COLLECTION)
+                .put("documents", documents)
                 .put("ordered", false);
 
         mongo.createCollection(collectionName, context.asyncAssertSuccess());
         mongo.createIndexWithOptions(collectionName, collectionIndex, new IndexOptions().name(indexName).unique(true), context.asyncAssertSuccess());
+        mongo.createIndexWithOptions(ArticleDocuments.COLLECTION, new JsonObject().put("query", 1).put("fingerprint", 1),
+                new IndexOptions().name("articlesIndex").unique(true), context.asyncAssertSuccess());
         mongo.runCommand("insert", insertCommand, context.asyncAssertSuccess());
+
+        // Sentiment results are read from the buckets, which are normally updated as articles are saved
+        final List<JsonObject> stored = documents.stream().map(document -> (JsonObject) document).collect(Collectors.toList());
+        mongo.runCommand("update", SentimentBuckets.updateCommand(collectionName, stored), context.asyncAssertSuccess());
         mongo.close();
     }
 
@@ -73,6 +86,36 @@ public class StorageServiceTest {
         context.assertNotNull(storageService);
     }
 
+    @Test
+    public void testAddQuerySucceeds(TestContext context) {
+        storageService.addQuery("addedQuery", context.asyncAssertSuccess(v ->
+                storageService.addQuery("addedQuery", context.asyncAssertSuccess(w ->
+                        storageService.getQueries(context.asyncAssertSuccess(queries ->
+                                context.assertEquals(1L, queries.stream()
+                                        .filter(query -> "addedQuery".equals(((JsonObject) query).getString("name")))
+                                        .count())))))));
+    }
+
+    @Test
+    public void testUpdateQuerySucceeds(TestContext context) {
+        storageService.addQuery("updatedQuery", context.asyncAssertSuccess(v ->
+                storageService.updateQuery("updatedQuery", new JsonObject().put("lastCrawled", 1000L).put("priority", 5),
+                        context.asyncAssertSuccess(query -> {
+                            context.assertEquals(1000L, query.getLong("lastCrawled"));
+                            context.assertEquals(5, query.getInteger("priority"));
+                        }))));
+    }
+
+    @Test
+    public void testUpdateQueryFailsIfQueryUnknown(TestContext context) {
+        storageService.updateQuery("unknownQuery", new JsonObject().put("lastCrawled", 1000L), context.asyncAssertFailure());
+    }
+
+    @Test
+    public void testUpdateQueryFailsIfFieldInvalid(TestContext context) {
+        storageService.updateQuery("updatedQuery", new JsonObject().put("name", "renamed"), context.asyncAssertFailure());
+    }
+
     @Test
     public void testCreateCollectionSucceeds(TestContext context) {
         storageService.createCollection("testCollection", context.asyncAssertSuccess());
@@ -105,7 +148,7 @@ public class StorageServiceTest {
     @Test
     public void testGetSentimentResultsSucceedsForValidCollection(TestContext context) {
         storageService.getSentimentResults("existingCollection", context.asyncAssertSuccess(result ->
-                context.assertEquals("{\"score\":0.38630980000000004}", result.encode())));
+                context.assertInRange(0.3863098, result.getDouble("score"), 1e-9)));
     }
 
     @Test
@@ -114,6 +157,19 @@ public class StorageServiceTest {
                 context.assertTrue(result.isEmpty())));
     }
 
+    @Test
+    public void testHasArticleReturnsTrueForStoredArticle(TestContext context) {
+        URL articlesURL = StorageServiceTest.class.getClassLoader().getResource("data/StorageArticles.json");
+        assert  articlesURL != null;
+
+        final JsonObject article = vertx.fileSystem().readFileBlocking(articlesURL.getFile()).toJsonArray().getJsonObject(0);
+
+        storageService.hasArticle("existingCollection", article.getString("name"), article.getString("description"),
+                context.asyncAssertSuccess(context::assertTrue));
+        storageService.hasArticle("missingCollection", article.getString("name"), article.getString("description"),
+                context.asyncAssertSuccess(context::assertFalse));
+    }
+
     @Test
     public void testHasCollectionReturnsTrueIfCollectionExists(TestContext context) {
         storageService.hasCollection("existingCollection", context.asyncAssertSuccess(context::assertTrue));
@@ -146,6 +202,35 @@ public class StorageServiceTest {
                 context.assertTrue(result.containsKey("writeErrors"))));
     }
 
+    @Test
+    public void testSaveOrUpdateArticlesIsIdempotent(TestContext context) {
+        URL articlesURL = StorageServiceTest.class.getClassLoader().getResource("data/StorageArticleSingle.json");
+        assert  articlesURL != null;
+
+        final JsonArray article = vertx.fileSystem().readFileBlocking(articlesURL.getFile()).toJsonArray();
+
+        storageService.saveOrUpdateArticles("upsertQuery", article, context.asyncAssertSuccess(first -> {
+            context.assertEquals(new JsonObject().put("inserted", 1).put("matched", 0), first);
+            storageService.saveOrUpdateArticles("upsertQuery", article, context.asyncAssertSuccess(second ->
+                    context.assertEquals(new JsonObject().put("inserted", 0).put("matched", 1), second)));
+        }));
+    }
+
+    @Test
+    public void testGetArticlesPagesThroughArticles(TestContext context) {
+        storageService.getArticles("existingCollection", null, null, null, 1, context.asyncAssertSuccess(first -> {
+            context.assertEquals(1, first.getJsonArray("articles").size());
+            context.assertNotNull(first.getString("cursor"));
+            storageService.getArticles("existingCollection", null, null, first.getString("cursor"), 1, context.asyncAssertSuccess(second ->
+                    context.assertNotEquals(first.getJsonArray("articles"), second.getJsonArray("articles"))));
+        }));
+    }
+
+    @Test
+    public void testGetArticlesFailsIfCursorInvalid(TestContext context) {
+        storageService.getArticles("existingCollection", null, null, "notACursor", 1, context.asyncAssertFailure());
+    }
+
     @Test
     public void testIsIndexPresentReturnsTrueWhenCollectionExists(TestContext context) {
         storageService.isIndexPresent("existingCollectionIndex", "existingCollection", context.asyncAssertSuccess(context::assertTrue));